@@ -5,27 +5,33 @@ import ch.lambdaj.function.convert.Converter;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
+import com.google.common.io.ByteStreams;
+import net.thucydides.core.guice.Injectors;
+import net.thucydides.core.util.EnvironmentVariables;
+import org.apache.commons.lang3.StringUtils;
 import org.reflections.Reflections;
-import org.reflections.scanners.MethodAnnotationsScanner;
-import org.reflections.scanners.ResourcesScanner;
-import org.reflections.scanners.SubTypesScanner;
-import org.reflections.scanners.TypeAnnotationsScanner;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
 import java.net.URI;
+import java.net.URISyntaxException;
 import java.net.URL;
-import java.util.ArrayList;
+import java.nio.file.Files;
 import java.util.Collection;
 import java.util.Enumeration;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 import java.util.zip.ZipInputStream;
 
 import static ch.lambdaj.Lambda.convert;
+import static net.serenitybdd.jbehave.SerenityJBehaveSystemProperties.CLASS_METADATA_CACHE_DIRECTORY;
 
 /**
  * Load classes from a given package.
@@ -38,12 +44,18 @@ public class ClassFinder {
         this.classLoader = classLoader;
     }
 
+    /**
+     * Annotated class lookups keep their metadata in the directory given by class.metadata.cache.directory, if set.
+     */
     public static ClassFinder loadClasses() {
-        return new ClassFinder(getDefaultClassLoader());
+        EnvironmentVariables environmentVariables = Injectors.getInjector().getProvider(EnvironmentVariables.class).get();
+        return new ClassFinder(getDefaultClassLoader()).withMetadataCacheFrom(environmentVariables);
     }
 
     public ClassFinder withClassLoader(ClassLoader classLoader) {
-        return new ClassFinder(classLoader);
+        ClassFinder classFinder = new ClassFinder(classLoader);
+        classFinder.metadataCache = metadataCache;
+        return classFinder;
     }
 
     /**
@@ -60,18 +72,30 @@ public class ClassFinder {
         }
     }
 
+    /**
+     * Each classpath root holding the package is scanned in its own fork/join task.
+     * The classes are then loaded on the calling thread, in classpath order.
+     */
     private List<Class<?>> allClassesInPackage(String packageName) {
         try {
             String path = packageName.replace('.', '/');
             Enumeration<URL> resources = classResourcesOn(path);
-            List<URI> dirs = new ArrayList<URI>();
+            List<ScanClasspathRoot> scans = Lists.newArrayList();
             while (resources.hasMoreElements()) {
                 URL resource = resources.nextElement();
-                dirs.add(resource.toURI());
+                scans.add(new ScanClasspathRoot(resource.toURI(), packageName));
+            }
+            ForkJoinPool pool = new ForkJoinPool(Math.min(Runtime.getRuntime().availableProcessors(), Math.max(1, scans.size())));
+            try {
+                pool.invoke(new ScanAllClasspathRoots(scans));
+            } finally {
+                pool.shutdown();
             }
             List<Class<?>> classes = Lists.newArrayList();
-            for (URI directory : dirs) {
-                classes.addAll(findClasses(directory, packageName));
+            for (ScanClasspathRoot scan : scans) {
+                for (String className : scan.classNames) {
+                    classes.add(loadClassWithName(className));
+                }
             }
             return classes;
         } catch (Exception e) {
@@ -79,21 +103,82 @@ public class ClassFinder {
         }
     }
 
+    private static class ScanAllClasspathRoots extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final List<ScanClasspathRoot> scans;
+
+        private ScanAllClasspathRoots(List<ScanClasspathRoot> scans) {
+            this.scans = scans;
+        }
+
+        @Override
+        protected void compute() {
+            invokeAll(scans);
+        }
+    }
+
+    private class ScanClasspathRoot extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final URI directory;
+        private final String packageName;
+        private List<String> classNames;
+
+        private ScanClasspathRoot(URI directory, String packageName) {
+            this.directory = directory;
+            this.packageName = packageName;
+        }
+
+        @Override
+        protected void compute() {
+            classNames = findClassNames(directory, packageName);
+        }
+    }
+
 
     private List<Class<? extends Annotation>> expectedAnnotations;
 
+    private StepClassFileScanner stepClassFileScanner;
+
+    private ReflectionsMetadataCache metadataCache;
+
     public ClassFinder annotatedWith(Class<? extends Annotation>... someAnnotations) {
         expectedAnnotations = ImmutableList.copyOf(someAnnotations);
         return this;
     }
 
+    /**
+     * Keep what is learnt about the annotated classes of a package in the given directory, so that later lookups,
+     * in this JVM or in later runs, only scan the package again if its classes have changed.
+     */
+    public ClassFinder withMetadataCacheIn(File cacheDirectory) {
+        metadataCache = new ReflectionsMetadataCache(cacheDirectory);
+        return this;
+    }
+
+    /**
+     * Keep the metadata of annotated classes in the directory given by the class.metadata.cache.directory property,
+     * if it is set.
+     */
+    public ClassFinder withMetadataCacheFrom(EnvironmentVariables environmentVariables) {
+        String cacheDirectory = environmentVariables.getProperty(CLASS_METADATA_CACHE_DIRECTORY.getName());
+        return StringUtils.isNotEmpty(cacheDirectory) ? withMetadataCacheIn(new File(cacheDirectory)) : this;
+    }
+
+    /**
+     * Only load the classes with JBehave step methods. The class files are read to find them,
+     * so the other classes in the package are never loaded.
+     */
+    public ClassFinder containingSteps() {
+        stepClassFileScanner = new StepClassFileScanner(getClassLoader());
+        return this;
+    }
+
     public List<Class<?>> annotatedClassesInPackage(String packageName) {
 
-        Reflections reflections = new Reflections(packageName,
-                new SubTypesScanner(),
-                new TypeAnnotationsScanner(),
-                new MethodAnnotationsScanner(),
-                new ResourcesScanner(), getClassLoader());
+        Reflections reflections = (metadataCache == null) ? ReflectionsMetadataCache.scan(packageName, getClassLoader())
+                                                          : metadataCache.reflectionsFor(packageName, getClassLoader());
 
         Set<Class<?>> matchingClasses = Sets.newHashSet();
         for (Class<? extends Annotation> expectedAnnotation : expectedAnnotations) {
@@ -126,21 +211,21 @@ public class ClassFinder {
     }
 
     /**
-     * Recursive method used to find all classes in a given directory and subdirs.
+     * Recursive method used to find the names of all classes in a given directory and subdirs.
      *
      * @param directory   The base directory
      * @param packageName The package name for classes found inside the base directory
-     * @return The classes
+     * @return The class names
      */
-    private List<Class<?>> findClasses(URI directory, String packageName) {
+    private List<String> findClassNames(URI directory, String packageName) {
         try {
             final String scheme = directory.getScheme();
             final String schemeSpecificPart = directory.getSchemeSpecificPart();
 
             if (scheme.equals("jar") && schemeSpecificPart.contains("!")) {
-                return findClassesInJar(directory, packageName);
+                return findClassNamesInJar(directory, packageName);
             } else if (scheme.equals("file")) {
-                return findClassesInFileSystemDirectory(directory, packageName);
+                return findClassNamesInFileSystemDirectory(directory, packageName);
             }
 
             throw new IllegalArgumentException("cannot handle URI with scheme [" + scheme + "]");
@@ -154,51 +239,98 @@ public class ClassFinder {
 
     }
 
-    private List<Class<?>> findClassesInJar(URI jarDirectory, String packageName) throws IOException {
-        final String schemeSpecificPart = jarDirectory.getSchemeSpecificPart();
+    /**
+     * Jar files on the file system are read through their central directory, so only the entries
+     * of the package are read. Other jars, such as jars nested in another jar, are read from the start.
+     * The jar location is taken from the raw URI, which is still encoded, so paths with spaces stay valid.
+     */
+    private List<String> findClassNamesInJar(URI jarDirectory, String packageName) throws IOException, URISyntaxException {
+        final String rawSchemeSpecificPart = jarDirectory.getRawSchemeSpecificPart();
+
+        String [] split = rawSchemeSpecificPart.split("!");
+        String packagePath = packageName.isEmpty() ? "" : packageName.replace('.', '/') + "/";
+        URI jar = new URI(split[0]);
+        if (split.length == 2 && "file".equals(jar.getScheme())) {
+            return findClassNamesInJarFile(new File(jar), packagePath);
+        }
+        return findClassNamesInJarStream(jar.toURL(), packagePath);
+    }
+
+    private List<String> findClassNamesInJarFile(File jarFile, String packagePath) throws IOException {
+        List<String> classNames = Lists.newArrayList();
+        try (ZipFile zip = new ZipFile(jarFile)) {
+            Enumeration<? extends ZipEntry> entries = zip.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                if (isAClassOfThePackage(entry, packagePath) && isWanted(zip, entry)) {
+                    classNames.add(classNameFor(entry));
+                }
+            }
+        }
+        return classNames;
+    }
 
-        List<Class<?>> classes = Lists.newArrayList();
-        String [] split = schemeSpecificPart.split("!");
-        URL jar = new URL(split[0]);
+    private List<String> findClassNamesInJarStream(URL jar, String packagePath) throws IOException {
+        List<String> classNames = Lists.newArrayList();
         try(ZipInputStream zip = new ZipInputStream(jar.openStream())) {
             ZipEntry entry;
             while ((entry = zip.getNextEntry()) != null) {
-                if (entry.getName().endsWith(".class")) {
-                    String className = classNameFor(entry);
-                    if (className.startsWith(packageName) && isNotAnInnerClass(className)) {
-                        classes.add(loadClassWithName(className));
-                    }
+                if (isAClassOfThePackage(entry, packagePath) && isWanted(zip)) {
+                    classNames.add(classNameFor(entry));
                 }
             }
         }
-
-        return classes;
+        return classNames;
     }
 
-    private List<Class<?>> findClassesInFileSystemDirectory(URI jarDirectory, String packageName) {
-        List<Class<?>> classes = Lists.newArrayList();
+    private List<String> findClassNamesInFileSystemDirectory(URI jarDirectory, String packageName) throws IOException {
+        List<String> classNames = Lists.newArrayList();
 
         File directory = new File(jarDirectory);
 
         if (!directory.exists()) {
-            return classes;
+            return classNames;
         }
         File[] files = directory.listFiles();
         if (files != null) {
             for (File file : files) {
                 if (file.isDirectory()) {
-                    classes.addAll(findClasses(file.toURI(), packageName + "." + file.getName()));
-                } else if (file.getName().endsWith(".class") && isNotAnInnerClass(file.getName())) {
-                    classes.add(correspondingClass(packageName, file));
+                    classNames.addAll(findClassNames(file.toURI(), packageName + "." + file.getName()));
+                } else if (file.getName().endsWith(".class") && isNotAnInnerClass(file.getName()) && isWanted(file)) {
+                    classNames.add(packageName + '.' + simpleClassNameOf(file));
                 }
             }
         }
 
-        return classes;
+        return classNames;
+    }
+
+    private boolean isAClassOfThePackage(ZipEntry entry, String packagePath) {
+        return entry.getName().startsWith(packagePath) && entry.getName().endsWith(".class") && isNotAnInnerClass(entry.getName());
+    }
+
+    /**
+     * Class files are only read when they are checked for step methods.
+     */
+    private boolean isWanted(ZipFile zip, ZipEntry entry) throws IOException {
+        if (stepClassFileScanner == null) {
+            return true;
+        }
+        try (InputStream classFile = zip.getInputStream(entry)) {
+            return stepClassFileScanner.hasStepMethods(ByteStreams.toByteArray(classFile));
+        }
+    }
+
+    private boolean isWanted(InputStream classFile) throws IOException {
+        return stepClassFileScanner == null || stepClassFileScanner.hasStepMethods(ByteStreams.toByteArray(classFile));
+    }
+
+    private boolean isWanted(File classFile) throws IOException {
+        return stepClassFileScanner == null || stepClassFileScanner.hasStepMethods(Files.readAllBytes(classFile.toPath()));
     }
 
     private static String classNameFor(ZipEntry entry) {
-        return entry.getName().replaceAll("[$].*", "").replaceAll("[.]class", "").replace('/', '.');
+        return entry.getName().replaceAll("[.]class", "").replace('/', '.');
     }
 
     private Class<?> loadClassWithName(String className){
@@ -209,11 +341,6 @@ public class ClassFinder {
         }
      }
 
-    private Class<?> correspondingClass(String packageName, File file) {
-        String fullyQualifiedClassName = packageName + '.' + simpleClassNameOf(file);
-        return loadClassWithName(fullyQualifiedClassName);
-    }
-
     private static ClassLoader getDefaultClassLoader() {
         return Thread.currentThread().getContextClassLoader();
     }
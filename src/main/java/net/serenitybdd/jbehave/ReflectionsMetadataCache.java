@@ -0,0 +1,179 @@
+package net.serenitybdd.jbehave;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Optional;
+import com.google.common.collect.Multimap;
+import com.google.common.collect.Ordering;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import org.jbehave.core.io.CodeLocations;
+import org.reflections.Reflections;
+import org.reflections.Store;
+import org.reflections.scanners.MethodAnnotationsScanner;
+import org.reflections.scanners.Scanner;
+import org.reflections.scanners.SubTypesScanner;
+import org.reflections.scanners.TypeAnnotationsScanner;
+import org.reflections.util.ClasspathHelper;
+import org.reflections.util.ConfigurationBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the metadata Reflections collects about the annotated classes of a package in a cache directory, so that
+ * the package is only scanned again when its classes change. Only the scanners needed to find annotated classes
+ * and methods are run.
+ * <p>
+ * Each package is stored in its own file, named after a hash of the package name and of the state of the classpath
+ * roots holding it: the size and modification time of jar files, and of each file of the package in directories.
+ * Packages found in roots that are not on the local file system are scanned every time.
+ * Unreadable cache files are ignored and replaced.
+ */
+class ReflectionsMetadataCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReflectionsMetadataCache.class);
+
+    private static final int FORMAT_VERSION = 1;
+    private static final String CACHE_FILE_SUFFIX = ".reflections";
+
+    private final File cacheDirectory;
+
+    ReflectionsMetadataCache(File cacheDirectory) {
+        this.cacheDirectory = cacheDirectory;
+    }
+
+    static Reflections scan(String packageName, ClassLoader classLoader) {
+        return new Reflections(packageName, scanners(), classLoader);
+    }
+
+    private static Scanner[] scanners() {
+        return new Scanner[]{new SubTypesScanner(), new TypeAnnotationsScanner(), new MethodAnnotationsScanner()};
+    }
+
+    Reflections reflectionsFor(String packageName, ClassLoader classLoader) {
+        Collection<URL> classpathRoots = ClasspathHelper.forPackage(packageName, classLoader);
+        Optional<String> fingerprint = fingerprintOf(packageName, classpathRoots);
+        if (!fingerprint.isPresent()) {
+            return scan(packageName, classLoader);
+        }
+        File cacheFile = new File(cacheDirectory, fingerprint.get() + CACHE_FILE_SUFFIX);
+        Optional<Reflections> cachedReflections = reflectionsIn(cacheFile, classLoader);
+        if (cachedReflections.isPresent()) {
+            return cachedReflections.get();
+        }
+        Reflections reflections = scan(packageName, classLoader);
+        store(reflections, cacheFile);
+        return reflections;
+    }
+
+    private Optional<String> fingerprintOf(String packageName, Collection<URL> classpathRoots) {
+        String packagePath = packageName.replace('.', '/');
+        Hasher hasher = Hashing.murmur3_128().newHasher().putString(packageName, Charsets.UTF_8);
+        for (URL classpathRoot : Ordering.usingToString().sortedCopy(classpathRoots)) {
+            if (!"file".equals(classpathRoot.getProtocol())) {
+                return Optional.absent();
+            }
+            File root = new File(CodeLocations.getPathFromURL(classpathRoot));
+            hasher.putString(root.getAbsolutePath(), Charsets.UTF_8);
+            if (root.isFile()) {
+                hasher.putLong(root.length()).putLong(root.lastModified());
+            } else {
+                putFilesIn(new File(root, packagePath), hasher);
+            }
+        }
+        return Optional.of(hasher.hash().toString());
+    }
+
+    private void putFilesIn(File directory, Hasher hasher) {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : Ordering.natural().sortedCopy(Arrays.asList(files))) {
+            hasher.putString(file.getName(), Charsets.UTF_8);
+            if (file.isDirectory()) {
+                putFilesIn(file, hasher);
+            } else {
+                hasher.putLong(file.length()).putLong(file.lastModified());
+            }
+        }
+    }
+
+    private Optional<Reflections> reflectionsIn(File cacheFile, ClassLoader classLoader) {
+        if (!cacheFile.isFile()) {
+            return Optional.absent();
+        }
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(cacheFile)))) {
+            if (input.readInt() != FORMAT_VERSION) {
+                return Optional.absent();
+            }
+            Reflections reflections = new Reflections(new ConfigurationBuilder().setScanners().addClassLoader(classLoader));
+            Store store = reflections.getStore();
+            int indexCount = input.readInt();
+            for (int i = 0; i < indexCount; i++) {
+                Multimap<String, String> index = store.getOrCreate(input.readUTF());
+                int keyCount = input.readInt();
+                for (int j = 0; j < keyCount; j++) {
+                    String key = input.readUTF();
+                    int valueCount = input.readInt();
+                    for (int k = 0; k < valueCount; k++) {
+                        index.put(key, input.readUTF());
+                    }
+                }
+            }
+            return Optional.of(reflections);
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn("Ignoring unreadable class metadata cache file {} ({})", cacheFile, e.getMessage());
+            return Optional.absent();
+        }
+    }
+
+    /**
+     * The file is replaced atomically, so JVMs running in parallel will never see a partially written cache file.
+     */
+    private void store(Reflections reflections, File cacheFile) {
+        try {
+            Files.createDirectories(cacheDirectory.toPath());
+            File temporaryFile = File.createTempFile(cacheFile.getName(), ".tmp", cacheDirectory);
+            try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporaryFile)))) {
+                writeStore(reflections.getStore(), output);
+            }
+            Files.move(temporaryFile.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOGGER.warn("Could not save the class metadata to {} ({})", cacheFile, e.getMessage());
+        }
+    }
+
+    private void writeStore(Store store, DataOutputStream output) throws IOException {
+        output.writeInt(FORMAT_VERSION);
+        output.writeInt(store.keySet().size());
+        for (String index : store.keySet()) {
+            output.writeUTF(index);
+            Map<String, Collection<String>> entries = store.get(index).asMap();
+            output.writeInt(entries.size());
+            for (Map.Entry<String, Collection<String>> entry : entries.entrySet()) {
+                output.writeUTF(entry.getKey());
+                List<String> values = Ordering.natural().sortedCopy(entry.getValue());
+                output.writeInt(values.size());
+                for (String value : values) {
+                    output.writeUTF(value);
+                }
+            }
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package net.serenitybdd.jbehave;
 
 import net.serenitybdd.jbehave.converters.*;
+import net.serenitybdd.jbehave.givenstories.MemoizingStepCollector;
+import net.serenitybdd.jbehave.parsing.DelimitedExamplesTableFactory;
 import org.jbehave.core.Embeddable;
 import org.jbehave.core.configuration.Configuration;
 import org.jbehave.core.configuration.ParanamerConfiguration;
@@ -8,10 +10,10 @@ import org.jbehave.core.embedder.Embedder;
 import org.jbehave.core.failures.FailureStrategy;
 import org.jbehave.core.failures.UUIDExceptionWrapper;
 import org.jbehave.core.io.CodeLocations;
+import org.jbehave.core.parsers.RegexStoryParser;
 import org.jbehave.core.reporters.CrossReference;
 import org.jbehave.core.reporters.FilePrintStreamFactory;
 import org.jbehave.core.reporters.Format;
-import org.jbehave.core.reporters.StoryReporterBuilder;
 import org.jbehave.core.steps.ParameterConverters;
 import org.junit.internal.AssumptionViolatedException;
 
@@ -38,7 +40,7 @@ public class SerenityJBehave {
         viewResources.put("decorateNonHtml", "true");
 
         new ParameterConverters.DateConverter();
-        return new ParanamerConfiguration()
+        Configuration configuration = new ParanamerConfiguration()
                 .useParameterConverters(
                         new ParameterConverters().addConverters(
                                 new ParameterConverters.DateConverter(),
@@ -52,7 +54,7 @@ public class SerenityJBehave {
                                 new ParameterConverters.EnumConverter(),
                                 new ParameterConverters.EnumListConverter()))
                 .useStoryReporterBuilder(
-                        new StoryReporterBuilder()
+                        new SerenityStoryReporterBuilder()
                                 .withDefaultFormats()
                                 .withFormats((Format[]) formats.toArray())
                                 .withCrossReference(xref)
@@ -63,6 +65,9 @@ public class SerenityJBehave {
                                 .withReporters(new SerenityReporter(systemConfiguration)))
                 .useStoryLoader(new UTF8StoryLoader())
                 .useFailureStrategy(new IgnoreAssumptionViolations());
+        return configuration
+                .useStoryParser(new RegexStoryParser(configuration.keywords(), new DelimitedExamplesTableFactory(configuration)))
+                .useStepCollector(new MemoizingStepCollector(configuration.stepCollector(), configuration.keywords()));
     }
 
     private static class IgnoreAssumptionViolations implements FailureStrategy {
@@ -57,6 +57,98 @@ public enum SerenityJBehaveSystemProperties {
      */
     JBEHAVE_STORY_PACKAGES,
 
+    /**
+     * A file used to remember the story paths found on each classpath root between runs.
+     * Classpath roots that have not changed since the previous run are not scanned again.
+     * If this property is not set, the classpath is scanned in full every time.
+     */
+    STORY_INDEX_FILE,
+
+    /**
+     * A directory used to keep the parsed stories between runs, so that stories whose text has not changed
+     * are not parsed again. If this property is not set, every story is parsed each time it is run.
+     */
+    STORY_CACHE_DIRECTORY,
+
+    /**
+     * A story bundle file, written by the storyBundle build task, to read the stories from rather than
+     * loading and parsing each story file. Stories that are not in the bundle, or have changed since it was
+     * written, are parsed as usual.
+     */
+    STORY_BUNDLE,
+
+    /**
+     * A directory used to keep what is learnt about the annotated classes of each package between runs, for the
+     * annotated class lookups of ClassFinder.loadClasses(), so that packages whose classes have not changed are
+     * not scanned again. If this property is not set, the package is scanned for every lookup.
+     */
+    CLASS_METADATA_CACHE_DIRECTORY,
+
+    /**
+     * Stories to leave out of the test run, as a semi-colon separated list of path expressions,
+     * e.g. "**&#47;drafts/**;**&#47;*_wip.story". Directories excluded in this way are not scanned at all.
+     */
+    EXCLUDED_STORY_PATHS,
+
+    /**
+     * Split the stories into this many shards, e.g. to spread them across several build agents.
+     * Each agent runs a different shard, chosen with story.shard.index.
+     */
+    STORY_SHARD_COUNT,
+
+    /**
+     * The shard of stories to run in this JVM, counting from 0 up to story.shard.count - 1.
+     */
+    STORY_SHARD_INDEX,
+
+    /**
+     * A properties file giving how long each story took to run, in milliseconds.
+     * When sharding stories, this is used to give each shard about the same amount of work.
+     * If this property is set, the file is updated with the story durations at the end of each run, except when
+     * the stories are split into shards: the file is then only read, and story.durations.output.file is written.
+     */
+    STORY_DURATIONS_FILE,
+
+    /**
+     * Where to save the story durations at the end of the run, along with those read from story.durations.file,
+     * instead of updating story.durations.file. When sharding stories, give each shard its own output file and
+     * merge them into story.durations.file once all the shards have finished.
+     */
+    STORY_DURATIONS_OUTPUT_FILE,
+
+    /**
+     * The order in which to run the stories: "alphabetical" (the default), or "longest-first", which
+     * uses the durations in story.durations.file to start the slowest stories first when running stories in parallel.
+     */
+    STORY_ORDER,
+
+    /**
+     * A file recording the story files, given stories and step classes each story depended on the last time it passed.
+     * If this property is set, the file is updated at the end of each run.
+     */
+    STORY_IMPACT_FILE,
+
+    /**
+     * Only run the stories that might be affected by changes since they last passed, according to story.impact.file:
+     * new stories, stories that did not pass, and stories whose story files, given stories, step classes, or the
+     * step libraries and page objects these use, changed. The other stories are left out of the run: they are only
+     * logged as carried forward from their last run, and do not appear in the test outcomes. Defaults to false.
+     */
+    ONLY_RUN_IMPACTED_STORIES,
+
+    /**
+     * Describe the stories to JUnit down to their scenarios and example rows only, and leave out the steps until
+     * the stories are run, so that IDEs and build tools can list the tests of very large suites quickly.
+     * The number of tests is then estimated without matching the steps. Defaults to false.
+     */
+    DEFER_STEP_DESCRIPTIONS,
+
+    /**
+     * Keep the test runner going once the stories have run, and run stories again as soon as their story files,
+     * their given stories or their step classes change on the classpath. Meant for use during development.
+     */
+    WATCH_STORIES,
+
     /**
      * Controls the ignoreFailuresInView flag in JBehave (see http://jbehave.org/reference/stable/running-stories.html).
      */
@@ -10,6 +10,7 @@ import net.serenitybdd.core.Serenity;
 import net.serenitybdd.core.SerenityListeners;
 import net.serenitybdd.core.SerenityReports;
 import net.thucydides.core.model.DataTable;
+import net.thucydides.core.model.DataTableRow;
 import net.thucydides.core.model.TestOutcome;
 import net.thucydides.core.model.TestResult;
 import net.thucydides.core.model.TestTag;
@@ -193,8 +194,8 @@ public class SerenityReporter implements StoryReporter {
 
         restartBrowserIfNecessary();
 
-        if (shouldResetStepsBeforeEachScenario() && !runningFirstScenario()) {
-            SerenityStepFactory.resetContext();
+        if (!runningFirstScenario()) {
+            SerenityStepFactory.resetScenarioContext(shouldResetStepsBeforeEachScenario());
         }
 
         if (isCurrentScenario(scenarioTitle)) {
@@ -704,9 +705,22 @@ public class SerenityReporter implements StoryReporter {
         StepEventBus.getEventBus().useExamplesFrom(serenityTableFrom(table));
     }
 
+    /**
+     * The rows are copied one at a time, rather than through {@link ExamplesTable#getRows()},
+     * to avoid holding further copies of large tables while the Serenity table is built.
+     */
     private DataTable serenityTableFrom(ExamplesTable table) {
-        return DataTable.withHeaders(table.getHeaders()).andMappedRows(table.getRows()).build();
-
+        List<String> headers = table.getHeaders();
+        List<DataTableRow> rows = new ArrayList<>(table.getRowCount());
+        for (int row = 0; row < table.getRowCount(); row++) {
+            Map<String, String> values = table.getRow(row);
+            List<Object> rowValues = new ArrayList<>(headers.size());
+            for (String header : headers) {
+                rowValues.add(values.get(header));
+            }
+            rows.add(new DataTableRow(rowValues));
+        }
+        return DataTable.withHeaders(headers).andRowData(rows).build();
     }
 
     public void example(Map<String, String> tableRow) {
@@ -854,7 +868,7 @@ public class SerenityReporter implements StoryReporter {
                     scenarioMeta(filtered.getMeta());
 
                     final List<String> steps = filtered.getSteps();
-                    if (ExamplesTable.EMPTY == filtered.getExamplesTable() || filtered.getExamplesTable().getRows().size() == 0) {
+                    if (ExamplesTable.EMPTY == filtered.getExamplesTable() || filtered.getExamplesTable().getRowCount() == 0) {
                         for (final String step : steps) {
                             beforeStep(step);
                             successful(step);
@@ -862,8 +876,8 @@ public class SerenityReporter implements StoryReporter {
                     } else {
                         final ExamplesTable examples = filtered.getExamplesTable();
                         beforeExamples(steps, examples);
-                        for (final Map<String, String> row : examples.getRows()) {
-                            example(row);
+                        for (int row = 0; row < examples.getRowCount(); row++) {
+                            example(examples.getRow(row));
                             for (final String step : steps) {
                                 beforeStep(step);
                                 successful(step);
@@ -1,43 +1,116 @@
 package net.serenitybdd.jbehave;
 
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import net.serenitybdd.jbehave.annotations.ScopedTo;
+import net.serenitybdd.jbehave.annotations.StepScope;
 import net.thucydides.core.pages.Pages;
 import net.thucydides.core.webdriver.ThucydidesWebDriverSupport;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.lang.reflect.Constructor;
+import java.util.EnumMap;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Keeps track of instantiated JBehave step libraries used in ThucydidesWebdriverIntegration tests.
+ * Each thread running stories has its own context. Step libraries are kept for as long as their
+ * {@link ScopedTo} annotation asks, and those scoped to the JVM are shared by all the contexts.
+ * <p>
+ * The fields of a step library are injected each time it is used, except for long-lived step libraries:
+ * those scoped to the thread are injected once per story, and those scoped to the JVM only when they are created,
+ * so that threads running stories at the same time do not overwrite each other's drivers and pages.
  */
 public class SerenityStepContext {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(SerenityStepContext.class);
 
+    private static final ConcurrentMap<Class<?>, Object> JVM_STEP_INSTANCES = new ConcurrentHashMap<>();
+
     private Map<Class<?>, Object> stepInstances = Maps.newHashMap();
+    private Map<StepScope, Map<Class<?>, Object>> scopedStepInstances = new EnumMap<>(StepScope.class);
+    private Set<Class<?>> threadScopedStepsInjectedForThisStory = Sets.newHashSet();
+
+    /**
+     * Injects the fields of a step library, e.g. its drivers, pages and nested step libraries.
+     */
+    interface StepLibraryInjector {
+        void injectInto(Object stepLibrary);
+    }
+
+    private static final StepLibraryInjector NO_INJECTION = new StepLibraryInjector() {
+        @Override
+        public void injectInto(Object stepLibrary) {
+        }
+    };
 
     public SerenityStepContext() {
+        for (StepScope scope : StepScope.values()) {
+            scopedStepInstances.put(scope, Maps.<Class<?>, Object>newHashMap());
+        }
     }
 
     public Object newInstanceOf(final Class<?> type) {
-        if (stepInstances.containsKey(type)) {
-            return stepInstances.get(type);
-        } else {
-            Object newInstance = null;
-            try {
-                ThucydidesWebDriverSupport.getPages();
-                if (hasConstructorWithPagesParameter(type)) {
-                    newInstance = createNewPageEnabledStepCandidate(type);
-                } else {
-                    newInstance = type.newInstance();
+        return newInstanceOf(type, NO_INJECTION);
+    }
+
+    /**
+     * The step library to use for a type, with its fields injected if they are due to be.
+     */
+    Object newInstanceOf(Class<?> type, StepLibraryInjector injector) {
+        StepScope scope = scopeOf(type);
+        if (scope == StepScope.JVM) {
+            return jvmInstanceOf(type, injector);
+        }
+        Map<Class<?>, Object> instances = (scope == null) ? stepInstances : scopedStepInstances.get(scope);
+        Object instance = instances.get(type);
+        if (instance == null) {
+            instance = createInstanceOf(type);
+            instances.put(type, instance);
+        }
+        if (scope != StepScope.THREAD || threadScopedStepsInjectedForThisStory.add(type)) {
+            injector.injectInto(instance);
+        }
+        return instance;
+    }
+
+    static StepScope scopeOf(Class<?> type) {
+        ScopedTo scopedTo = type.getAnnotation(ScopedTo.class);
+        return (scopedTo == null) ? null : scopedTo.value();
+    }
+
+    /**
+     * Step libraries scoped to the JVM are injected before other threads can see them, and never again.
+     */
+    private Object jvmInstanceOf(Class<?> type, StepLibraryInjector injector) {
+        Object instance = JVM_STEP_INSTANCES.get(type);
+        if (instance == null) {
+            synchronized (JVM_STEP_INSTANCES) {
+                instance = JVM_STEP_INSTANCES.get(type);
+                if (instance == null) {
+                    instance = createInstanceOf(type);
+                    injector.injectInto(instance);
+                    JVM_STEP_INSTANCES.put(type, instance);
                 }
-            } catch (Exception e) {
-                throw new SerenityStepInitializationError(e);
             }
-            stepInstances.put(type, newInstance);
-            return newInstance;
+        }
+        return instance;
+    }
+
+    private Object createInstanceOf(Class<?> type) {
+        try {
+            ThucydidesWebDriverSupport.getPages();
+            if (hasConstructorWithPagesParameter(type)) {
+                return createNewPageEnabledStepCandidate(type);
+            } else {
+                return type.newInstance();
+            }
+        } catch (Exception e) {
+            throw new SerenityStepInitializationError(e);
         }
     }
 
@@ -66,8 +139,30 @@ public class SerenityStepContext {
         return newInstance;
     }
 
-    public void reset() {
-        stepInstances.clear();
+    /**
+     * Forget the step libraries kept for the current scenario, including those without a scope if asked to.
+     */
+    public void resetScenario(boolean includingUnscopedSteps) {
+        scopedStepInstances.get(StepScope.SCENARIO).clear();
+        if (includingUnscopedSteps) {
+            stepInstances.clear();
+        }
+    }
+
+    /**
+     * Forget the step libraries kept for the current story or scenario.
+     */
+    public void resetStory() {
+        resetScenario(true);
+        scopedStepInstances.get(StepScope.STORY).clear();
+        threadScopedStepsInjectedForThisStory.clear();
+    }
+
+    /**
+     * Forget the step libraries shared by all the threads, e.g. when the step classes have been reloaded.
+     */
+    static void resetJvmScopedSteps() {
+        JVM_STEP_INSTANCES.clear();
     }
 }
 
@@ -1,8 +1,14 @@
 package net.serenitybdd.jbehave;
 
 import ch.lambdaj.function.convert.Converter;
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
+import com.google.common.collect.MapMaker;
 import net.serenitybdd.core.di.DependencyInjector;
+import net.serenitybdd.jbehave.annotations.StepScope;
+import net.serenitybdd.jbehave.impact.StoryImpactRecorder;
+import net.serenitybdd.jbehave.index.StepClassIndex;
 import net.thucydides.core.guice.Injectors;
 import net.thucydides.core.steps.PageObjectDependencyInjector;
 import net.thucydides.core.steps.StepAnnotations;
@@ -17,23 +23,26 @@ import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentMap;
 
 import static ch.lambdaj.Lambda.convert;
 
 public class SerenityStepFactory extends AbstractStepsFactory {
 
-    private static final ThreadLocal<SerenityStepContext> context = new ThreadLocal<SerenityStepContext>();
+    private static final ConcurrentMap<Thread, SerenityStepContext> contexts = new MapMaker().weakKeys().makeMap();
     private static final org.slf4j.Logger logger = LoggerFactory.getLogger(SerenityStepFactory.class);
 
     private final String rootPackage;
     private ClassLoader classLoader;
-    private DependencyInjectorService dependencyInjectorService;
+    private final List<DependencyInjector> dependencyInjectors;
 
     public SerenityStepFactory(Configuration configuration, String rootPackage, ClassLoader classLoader) {
         super(configuration);
         this.rootPackage = rootPackage;
         this.classLoader = classLoader;
-        this.dependencyInjectorService = Injectors.getInjector().getInstance(DependencyInjectorService.class);
+        DependencyInjectorService dependencyInjectorService = Injectors.getInjector().getInstance(DependencyInjectorService.class);
+        this.dependencyInjectors = ImmutableList.copyOf(dependencyInjectorService.findDependencyInjectors());
     }
 
     private StepFactory getStepFactory() {
@@ -45,10 +54,22 @@ public class SerenityStepFactory extends AbstractStepsFactory {
         return convert(coreCandidateSteps, toSerenityCandidateSteps());
     }
 
+    /**
+     * The steps classes are shared by all the factories of this JVM using the same root package and class loader.
+     */
     @Override
     protected List<Class<?>> stepsTypes() {
+        return StepTypesRegistry.sharedByThisJVM().stepTypesUnder(rootPackage, classLoader, new Callable<List<Class<?>>>() {
+            @Override
+            public List<Class<?>> call() {
+                return stepTypesUnderRootPackage();
+            }
+        });
+    }
+
+    private List<Class<?>> stepTypesUnderRootPackage() {
         List<Class<?>> types = new ArrayList<Class<?>>();
-        for (Class candidateClass : getCandidateClasses() ){
+        for (Class<?> candidateClass : indexedOrScannedClassesUnderRootPackage()) {
             if (hasAnnotatedMethods(candidateClass)) {
                 types.add(candidateClass);
             }
@@ -56,17 +77,24 @@ public class SerenityStepFactory extends AbstractStepsFactory {
         return types;
     }
 
-    private List<Class> getCandidateClasses() {
-
-        List<Class<?>> allClassesUnderRootPackage = ClassFinder.loadClasses().withClassLoader(classLoader).fromPackage(rootPackage);
-        List<Class> candidateClasses = Lists.newArrayList();
-        for(Class<?> classUnderRootPackage : allClassesUnderRootPackage) {
-            if (hasAnnotatedMethods(classUnderRootPackage)) {
-                candidateClasses.add(classUnderRootPackage);
+    /**
+     * The steps classes listed in the index written when they were compiled, if there is one,
+     * and otherwise the classes with step methods found under the root package.
+     */
+    private List<Class<?>> indexedOrScannedClassesUnderRootPackage() {
+        Optional<List<String>> indexedClassNames = StepClassIndex.classNamesInPackage(rootPackage, classLoader);
+        if (!indexedClassNames.isPresent()) {
+            return ClassFinder.loadClasses().withClassLoader(classLoader).containingSteps().fromPackage(rootPackage);
+        }
+        List<Class<?>> indexedClasses = Lists.newArrayList();
+        for (String className : indexedClassNames.get()) {
+            try {
+                indexedClasses.add(classLoader.loadClass(className));
+            } catch (ClassNotFoundException | LinkageError e) {
+                logger.debug("Ignoring the indexed steps class {} ({})", className, e.toString());
             }
         }
-
-        return candidateClasses;
+        return indexedClasses;
     }
 
     private Converter<CandidateSteps, CandidateSteps> toSerenityCandidateSteps() {
@@ -77,34 +105,96 @@ public class SerenityStepFactory extends AbstractStepsFactory {
         };
     }
 
+    /**
+     * Fields are injected every time a steps instance is used, as the driver and pages can change between scenarios.
+     * Long-lived steps instances are injected less often, see {@link SerenityStepContext}.
+     */
     public Object createInstanceOfType(Class<?> type) {
-        Object stepsInstance = getContext().newInstanceOf(type);
+        StoryImpactRecorder.stepClassUsed(type);
+        if (SerenityStepContext.scopeOf(type) == StepScope.JVM && ThreadBoundFields.in(type)) {
+            throw new SerenityStepInitializationError(type.getName() + " cannot be scoped to the JVM: it is a page object "
+                    + "or has @Steps, @Managed, @ManagedPages or page object fields, which belong to the thread running the story");
+        }
+        return getContext().newInstanceOf(type, new SerenityStepContext.StepLibraryInjector() {
+            @Override
+            public void injectInto(Object stepsInstance) {
+                injectFields(stepsInstance);
+            }
+        });
+    }
+
+    private void injectFields(Object stepsInstance) {
         StepAnnotations.injectScenarioStepsInto(stepsInstance, getStepFactory());
         ThucydidesWebDriverSupport.initializeFieldsIn(stepsInstance);
         injectDependencies(stepsInstance);
-
-        return stepsInstance;
     }
 
+    /**
+     * The dependency injectors found when the factory was created are used for every steps instance.
+     */
     private void injectDependencies(Object stepInstance) {
-        List<DependencyInjector> dependencyInjectors = dependencyInjectorService.findDependencyInjectors();
-        dependencyInjectors.add(new PageObjectDependencyInjector(ThucydidesWebDriverSupport.getPages()));
-
-        for(DependencyInjector injector : dependencyInjectors) {
+        for (DependencyInjector injector : dependencyInjectors) {
             injector.injectDependenciesInto(stepInstance);
         }
+        new PageObjectDependencyInjector(ThucydidesWebDriverSupport.getPages()).injectDependenciesInto(stepInstance);
     }
 
-
+    /**
+     * The step libraries of the current thread. Contexts are kept per thread rather than in a thread local,
+     * so that the contexts of pool threads that have since died can be dropped when a new one is created or a
+     * story starts. Threads are held weakly, so the contexts of threads that are no longer used are dropped too.
+     */
     public SerenityStepContext getContext() {
-        if (context.get() == null) {
-            context.set(new SerenityStepContext());
+        SerenityStepContext stepContext = contexts.get(Thread.currentThread());
+        if (stepContext == null) {
+            removeContextsOfDeadThreads();
+            stepContext = new SerenityStepContext();
+            contexts.put(Thread.currentThread(), stepContext);
         }
-        return context.get();
+        return stepContext;
     }
 
+    private static void removeContextsOfDeadThreads() {
+        for (Thread thread : contexts.keySet()) {
+            if (!thread.isAlive()) {
+                contexts.remove(thread);
+            }
+        }
+    }
+
+    static boolean hasContextFor(Thread thread) {
+        return contexts.containsKey(thread);
+    }
+
+    /**
+     * Start a new story: the step libraries scoped to the story or the scenario are created again when next used.
+     */
     public static void resetContext() {
-        context.remove();
+        removeContextsOfDeadThreads();
+        SerenityStepContext stepContext = contexts.get(Thread.currentThread());
+        if (stepContext != null) {
+            stepContext.resetStory();
+        }
+    }
+
+    /**
+     * Start a new scenario: the step libraries scoped to the scenario, and those without a scope if asked to,
+     * are created again when next used.
+     */
+    public static void resetScenarioContext(boolean includingUnscopedSteps) {
+        SerenityStepContext stepContext = contexts.get(Thread.currentThread());
+        if (stepContext != null) {
+            stepContext.resetScenario(includingUnscopedSteps);
+        }
+    }
+
+    /**
+     * Drop the step libraries of every thread, including those scoped to the JVM, once the step classes have been
+     * reloaded, so that instances of the old classes are not used again and their class loader can be collected.
+     */
+    public static void resetAllContexts() {
+        contexts.clear();
+        SerenityStepContext.resetJvmScopedSteps();
     }
 
     public static SerenityStepFactory withStepsFromPackage(String rootPackage, Configuration configuration) {
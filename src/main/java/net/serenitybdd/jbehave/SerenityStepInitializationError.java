@@ -4,4 +4,8 @@ public class SerenityStepInitializationError extends RuntimeException {
     public SerenityStepInitializationError(Exception cause) {
         super(cause);
     }
+
+    public SerenityStepInitializationError(String message) {
+        super(message);
+    }
 }
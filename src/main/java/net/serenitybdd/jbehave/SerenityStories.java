@@ -1,23 +1,40 @@
 package net.serenitybdd.jbehave;
 
 import ch.lambdaj.Lambda;
+import com.google.common.base.Optional;
 import com.google.common.base.Splitter;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 import net.serenitybdd.core.Serenity;
+import net.serenitybdd.jbehave.discovery.ParallelStoryFinder;
+import net.serenitybdd.jbehave.discovery.StoryPathIndex;
+import net.serenitybdd.jbehave.discovery.StoryPathMatcher;
+import net.serenitybdd.jbehave.discovery.StoryPathNormalizer;
+import net.serenitybdd.jbehave.impact.StoryImpactRecorder;
+import net.serenitybdd.jbehave.impact.StoryImpacts;
+import net.serenitybdd.jbehave.parsing.BundledStoryLoader;
+import net.serenitybdd.jbehave.parsing.BundledStoryParser;
+import net.serenitybdd.jbehave.parsing.CachingStoryParser;
+import net.serenitybdd.jbehave.parsing.DelimitedExamplesTableFactory;
+import net.serenitybdd.jbehave.parsing.StoryBundle;
 import net.serenitybdd.jbehave.runners.SerenityReportingRunner;
+import net.serenitybdd.jbehave.scheduling.StoryDurationRecorder;
+import net.serenitybdd.jbehave.scheduling.StoryDurations;
+import net.serenitybdd.jbehave.scheduling.StoryShards;
 import net.thucydides.core.ThucydidesSystemProperty;
 import net.thucydides.core.guice.Injectors;
 import net.thucydides.core.util.EnvironmentVariables;
 import org.codehaus.plexus.util.StringUtils;
 import org.jbehave.core.configuration.Configuration;
-import org.jbehave.core.io.StoryFinder;
 import org.jbehave.core.junit.JUnitStories;
 import org.jbehave.core.reporters.Format;
 import org.jbehave.core.steps.InjectableStepsFactory;
 import org.junit.runner.RunWith;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.io.File;
 import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
@@ -26,6 +43,17 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 
+import static net.serenitybdd.jbehave.SerenityJBehaveSystemProperties.EXCLUDED_STORY_PATHS;
+import static net.serenitybdd.jbehave.SerenityJBehaveSystemProperties.ONLY_RUN_IMPACTED_STORIES;
+import static net.serenitybdd.jbehave.SerenityJBehaveSystemProperties.STORY_BUNDLE;
+import static net.serenitybdd.jbehave.SerenityJBehaveSystemProperties.STORY_DURATIONS_FILE;
+import static net.serenitybdd.jbehave.SerenityJBehaveSystemProperties.STORY_DURATIONS_OUTPUT_FILE;
+import static net.serenitybdd.jbehave.SerenityJBehaveSystemProperties.STORY_CACHE_DIRECTORY;
+import static net.serenitybdd.jbehave.SerenityJBehaveSystemProperties.STORY_IMPACT_FILE;
+import static net.serenitybdd.jbehave.SerenityJBehaveSystemProperties.STORY_INDEX_FILE;
+import static net.serenitybdd.jbehave.SerenityJBehaveSystemProperties.STORY_ORDER;
+import static net.serenitybdd.jbehave.SerenityJBehaveSystemProperties.STORY_SHARD_COUNT;
+import static net.serenitybdd.jbehave.SerenityJBehaveSystemProperties.STORY_SHARD_INDEX;
 import static org.jbehave.core.reporters.Format.*;
 
 /**
@@ -36,16 +64,21 @@ import static org.jbehave.core.reporters.Format.*;
 @RunWith(SerenityReportingRunner.class)
 public class SerenityStories extends JUnitStories {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(SerenityStories.class);
+
     public static final String DEFAULT_STORY_NAME = "**/*.story";
     public static final List<String> DEFAULT_GIVEN_STORY_PREFIX = ImmutableList.of("Given", "Precondition");
+    public static final String LONGEST_FIRST = "longest-first";
 
     private net.thucydides.core.webdriver.Configuration systemConfiguration;
     private EnvironmentVariables environmentVariables;
 
     private String storyFolder = "";
     private String storyNamePattern = DEFAULT_STORY_NAME;
+    private List<String> excludedStoryPaths = Lists.newArrayList();
 
     private Configuration configuration;
+    private StoryDurations storyDurations;
     private List<Format> formats = Arrays.asList(CONSOLE, HTML, XML);
 
     public SerenityStories() {
@@ -75,10 +108,71 @@ public class SerenityStories extends JUnitStories {
                 thucydidesConfiguration = thucydidesConfiguration.withEnvironmentVariables(environmentVariables);
             }
             configuration = SerenityJBehave.defaultConfiguration(thucydidesConfiguration, formats, this);
+            cacheParsedStoriesIn(configuration);
+            readBundledStoriesIn(configuration);
+            recordStoryDurationsIn(configuration);
+            recordStoryImpactsIn(configuration);
         }
         return configuration;
     }
 
+    private void cacheParsedStoriesIn(Configuration configuration) {
+        String cacheDirectory = getEnvironmentVariables().getProperty(STORY_CACHE_DIRECTORY.getName());
+        if (StringUtils.isNotEmpty(cacheDirectory)) {
+            configuration.useStoryParser(CachingStoryParser.cachingStoriesParsedBy(configuration.storyParser(), new File(cacheDirectory)));
+        }
+    }
+
+    private void readBundledStoriesIn(Configuration configuration) {
+        String bundleFile = getEnvironmentVariables().getProperty(STORY_BUNDLE.getName());
+        if (StringUtils.isEmpty(bundleFile)) {
+            return;
+        }
+        try {
+            StoryBundle bundle = StoryBundle.open(new File(bundleFile));
+            configuration.useStoryLoader(new BundledStoryLoader(bundle, configuration.storyLoader(), getClassLoader()));
+            configuration.useStoryParser(BundledStoryParser.bundledStoriesOr(configuration.storyParser(), bundle,
+                    configuration.keywords(), new DelimitedExamplesTableFactory(configuration)));
+        } catch (IOException e) {
+            LOGGER.warn("Could not read the story bundle {} ({})", bundleFile, e.getMessage());
+        }
+    }
+
+    private void recordStoryDurationsIn(Configuration configuration) {
+        Optional<File> durationsOutputFile = storyDurationsOutputFile();
+        if (durationsOutputFile.isPresent() && configuration.storyReporterBuilder() instanceof SerenityStoryReporterBuilder) {
+            ((SerenityStoryReporterBuilder) configuration.storyReporterBuilder())
+                    .withLiveReporters(new StoryDurationRecorder(loadedStoryDurations(), durationsOutputFile.get()));
+        }
+    }
+
+    /**
+     * Where the story durations of this run are saved, along with those recorded by earlier runs:
+     * story.durations.output.file if it is defined, and otherwise story.durations.file, unless the stories are split
+     * into shards. Shards are balanced with the durations in story.durations.file, so it is never rewritten by a shard
+     * while the JVMs running the other shards may still be reading it.
+     */
+    protected Optional<File> storyDurationsOutputFile() {
+        String outputFile = getEnvironmentVariables().getProperty(STORY_DURATIONS_OUTPUT_FILE.getName());
+        if (StringUtils.isNotEmpty(outputFile)) {
+            return Optional.of(new File(outputFile));
+        }
+        String durationsFile = getEnvironmentVariables().getProperty(STORY_DURATIONS_FILE.getName());
+        if (StringUtils.isEmpty(durationsFile) || storyShardCount() > 1) {
+            return Optional.absent();
+        }
+        return Optional.of(new File(durationsFile));
+    }
+
+    private void recordStoryImpactsIn(Configuration configuration) {
+        String impactFile = getEnvironmentVariables().getProperty(STORY_IMPACT_FILE.getName());
+        if (StringUtils.isNotEmpty(impactFile) && configuration.storyReporterBuilder() instanceof SerenityStoryReporterBuilder) {
+            ((SerenityStoryReporterBuilder) configuration.storyReporterBuilder())
+                    .withLiveReporters(new StoryImpactRecorder(storyImpacts(), new File(impactFile),
+                                                               configuration.storyLoader(), getClassLoader()));
+        }
+    }
+
     @Override
     public InjectableStepsFactory stepsFactory() {
         return SerenityStepFactory.withStepsFromPackage(getRootPackage(), configuration()).andClassLoader(getClassLoader());
@@ -94,92 +188,95 @@ public class SerenityStories extends JUnitStories {
     }
 
     public List<String> storyPaths() {
-        Set<String> storyPaths = Sets.newHashSet();
-
+        long discoveryStart = System.currentTimeMillis();
+        StoryPathIndex storyPathIndex = storyPathIndex();
         List<String> pathExpressions = getStoryPathExpressions();
-        StoryFinder storyFinder = new StoryFinder();
+        StoryPathMatcher storyPathMatcher = StoryPathMatcher.including(pathExpressions)
+                                                            .excluding(getExcludedStoryPathExpressions());
+
+        Set<String> storyPaths = new ParallelStoryFinder(storyPathIndex).findPaths(getClasspathRoots(), storyPathMatcher);
+        StoryPathMatcher exclusions = StoryPathMatcher.including(getExcludedStoryPathExpressions());
         for (String pathExpression : pathExpressions) {
-            if (absolutePath(pathExpression)) {
+            if (absolutePath(pathExpression) && !exclusions.matches(pathExpression)) {
                 storyPaths.add(pathExpression);
             }
-            for (URL classpathRootUrl : allClasspathRoots()) {
-                storyPaths.addAll(storyFinder.findPaths(classpathRootUrl, pathExpression, ""));
-            }
-            storyPaths = removeDuplicatesFrom(storyPaths);
-            storyPaths = pruneGivenStoriesFrom(storyPaths);
         }
-        return sorted(storyPaths);
+        List<String> normalizedStoryPaths = new StoryPathNormalizer(skippedPreconditions()).normalize(storyPaths);
+        storyPathIndex.save();
+        LOGGER.info("Found {} stories in {} ms ({} classpath roots scanned, {} reused from the story index)",
+                normalizedStoryPaths.size(), System.currentTimeMillis() - discoveryStart,
+                storyPathIndex.getScannedRoots(), storyPathIndex.getReusedRoots());
+        return inExecutionOrder(storiesAffectedByChanges(storiesInThisShard(normalizedStoryPaths)));
     }
 
-    private List<String> sorted(Set<String> storyPaths) {
-        List<String> sortedStories = Lists.newArrayList(storyPaths);
-        Collections.sort(sortedStories);
-        return sortedStories;
-    }
-
-    private Set<String> removeDuplicatesFrom(Set<String> storyPaths) {
-        Set<String> trimmedPaths = Sets.newHashSet();
-        for(String storyPath : storyPaths) {
-            if (!thereExistsALongerVersionOf(storyPath, storyPaths)) {
-                trimmedPaths.add(storyPath);
-            }
+    /**
+     * If only.run.impacted.stories is set, the stories that passed last time and that nothing has changed for are left out.
+     */
+    protected List<String> storiesAffectedByChanges(List<String> storyPaths) {
+        if (!getEnvironmentVariables().getPropertyAsBoolean(ONLY_RUN_IMPACTED_STORIES.getName(), false)) {
+            return storyPaths;
         }
-        return trimmedPaths;
+        return storyImpacts().storiesAffectedByChanges(storyPaths, configuration().storyLoader(), getClassLoader());
     }
 
-    private boolean thereExistsALongerVersionOf(String storyPath, Set<String> storyPaths) {
-        for(String existingPath : storyPaths) {
-            if ((existingPath.endsWith("/" + storyPath)) || (existingPath.endsWith("\\" + storyPath))) {
-                return true;
-            }
-        }
-        return false;
+    /**
+     * What each story depended on when it last passed, if the story.impact.file property is defined.
+     */
+    protected StoryImpacts storyImpacts() {
+        String impactFile = getEnvironmentVariables().getProperty(STORY_IMPACT_FILE.getName());
+        return (StringUtils.isEmpty(impactFile)) ? StoryImpacts.none() : StoryImpacts.loadedFrom(new File(impactFile));
     }
 
-    private Set<String> pruneGivenStoriesFrom(Set<String> storyPaths) {
-        List<String> filteredPaths = Lists.newArrayList(storyPaths);
-        for (String skippedPrecondition : skippedPreconditions()) {
-            filteredPaths = removeFrom(filteredPaths)
-                    .pathsNotStartingWith(skippedPrecondition)
-                    .and().pathsNotStartingWith("/" + skippedPrecondition)
-                    .filter();
-        }
-        return Sets.newHashSet(filteredPaths);
+    /**
+     * Stories are run in alphabetical order, unless the story.order property asks for the longest stories to go first.
+     */
+    protected List<String> inExecutionOrder(List<String> storyPaths) {
+        String storyOrder = getEnvironmentVariables().getProperty(STORY_ORDER.getName(), "");
+        return (storyOrder.equalsIgnoreCase(LONGEST_FIRST)) ? storyDurations().longestFirst(storyPaths) : storyPaths;
     }
 
-    class FilterBuilder {
-
-        private final List<String> paths;
-
-        public FilterBuilder(List<String> paths) {
-            this.paths = paths;
-        }
-
-        public FilterBuilder pathsNotStartingWith(String skippedPrecondition) {
-            List<String> filteredPaths = Lists.newArrayList();
-            for (String path : paths) {
-                if (!startsWith(skippedPrecondition, path)) {
-                    filteredPaths.add(path);
-                }
-            }
-            return new FilterBuilder(filteredPaths);
+    /**
+     * If the stories are split into shards, only the stories in the shard for this JVM are run.
+     */
+    protected List<String> storiesInThisShard(List<String> storyPaths) {
+        int shardCount = storyShardCount();
+        if (shardCount <= 1) {
+            return storyPaths;
         }
+        int shardIndex = getEnvironmentVariables().getPropertyAsInteger(STORY_SHARD_INDEX.getName(), 0);
+        List<String> storiesInShard = new StoryShards(shardCount, storyDurations()).storiesInShard(shardIndex, storyPaths);
+        LOGGER.info("Running {} of {} stories in story shard {} of {}",
+                storiesInShard.size(), storyPaths.size(), shardIndex, shardCount);
+        return storiesInShard;
+    }
 
-        public FilterBuilder and() {
-            return this;
-        }
+    private int storyShardCount() {
+        return getEnvironmentVariables().getPropertyAsInteger(STORY_SHARD_COUNT.getName(), 1);
+    }
 
-        public List<String> filter() {
-            return ImmutableList.copyOf(paths);
+    /**
+     * The story durations recorded by earlier runs, if the story.durations.file property is defined.
+     * They are read once, so the shards and the story order stay the same however often the stories are listed.
+     */
+    protected StoryDurations storyDurations() {
+        if (storyDurations == null) {
+            storyDurations = loadedStoryDurations();
         }
+        return storyDurations;
+    }
 
-        private boolean startsWith(String skippedPrecondition, String path) {
-            return path.toLowerCase().startsWith(skippedPrecondition.toLowerCase());
-        }
+    private StoryDurations loadedStoryDurations() {
+        String durationsFile = getEnvironmentVariables().getProperty(STORY_DURATIONS_FILE.getName());
+        return (StringUtils.isEmpty(durationsFile)) ? StoryDurations.none() : StoryDurations.loadedFrom(new File(durationsFile));
     }
 
-    private FilterBuilder removeFrom(List<String> filteredPaths) {
-        return new FilterBuilder(filteredPaths);
+    /**
+     * The index used to avoid rescanning classpath roots that have not changed since the previous run.
+     * The index is only kept between runs if the story.index.file property is defined.
+     */
+    protected StoryPathIndex storyPathIndex() {
+        String indexFile = getEnvironmentVariables().getProperty(STORY_INDEX_FILE.getName());
+        return (StringUtils.isEmpty(indexFile)) ? StoryPathIndex.inMemory() : StoryPathIndex.storedIn(new File(indexFile));
     }
 
     private List<String> skippedPreconditions() {
@@ -190,7 +287,10 @@ public class SerenityStories extends JUnitStories {
         return (!pathExpression.contains("*"));
     }
 
-    private Set<URL> allClasspathRoots() {
+    /**
+     * The classpath roots where stories are looked for.
+     */
+    public Set<URL> getClasspathRoots() {
         try {
             Set<URL> baseRoots = Sets.newHashSet(Collections.list(getClassLoader().getResources(".")));
             return addGradleResourceRootsTo(baseRoots);
@@ -220,6 +320,18 @@ public class SerenityStories extends JUnitStories {
         return Lists.newArrayList(Splitter.on(';').trimResults().omitEmptyStrings().split(getStoryPath()));
     }
 
+    /**
+     * Path expressions for stories that should not be run, even if they match the story path expressions.
+     */
+    protected List<String> getExcludedStoryPathExpressions() {
+        List<String> excludedExpressions = Lists.newArrayList(excludedStoryPaths);
+        String excludedPathsProperty = getEnvironmentVariables().getProperty(EXCLUDED_STORY_PATHS.getName());
+        if (StringUtils.isNotEmpty(excludedPathsProperty)) {
+            excludedExpressions.addAll(Lists.newArrayList(Splitter.on(';').trimResults().omitEmptyStrings().split(excludedPathsProperty)));
+        }
+        return excludedExpressions;
+    }
+
     /**
      * The root package on the classpath containing the JBehave stories to be run.
      */
@@ -234,6 +346,13 @@ public class SerenityStories extends JUnitStories {
         this.storyFolder = storyFolder;
     }
 
+    /**
+     * Leave out the stories matching these path expressions, separated by semi-colons
+     */
+    public void excludeStoriesMatching(String storyPathExpressions) {
+        excludedStoryPaths.addAll(Lists.newArrayList(Splitter.on(';').trimResults().omitEmptyStrings().split(storyPathExpressions)));
+    }
+
     public void useFormats(Format... formats) {
         this.formats = Arrays.asList(formats);
     }
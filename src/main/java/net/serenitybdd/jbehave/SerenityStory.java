@@ -1,6 +1,7 @@
 package net.serenitybdd.jbehave;
 
 import com.google.common.collect.Lists;
+import net.serenitybdd.jbehave.discovery.StoryResourceIndex;
 import net.thucydides.core.util.EnvironmentVariables;
 import net.thucydides.core.util.Inflector;
 import org.codehaus.plexus.util.StringUtils;
@@ -66,7 +67,7 @@ public class SerenityStory extends SerenityStories {
     }
 
     private void addIfPresent(List<String> storyNames, String storyNameCandidate) {
-        if (Thread.currentThread().getContextClassLoader().getResource(storyNameCandidate) != null) {
+        if (StoryResourceIndex.on(Thread.currentThread().getContextClassLoader()).resourceNamed(storyNameCandidate) != null) {
             storyNames.add(storyNameCandidate);
         }
     }
@@ -0,0 +1,43 @@
+package net.serenitybdd.jbehave;
+
+import com.google.common.collect.Lists;
+import org.jbehave.core.reporters.ConcurrentStoryReporter;
+import org.jbehave.core.reporters.DelegatingStoryReporter;
+import org.jbehave.core.reporters.StoryReporter;
+import org.jbehave.core.reporters.StoryReporterBuilder;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A story reporter builder that can also notify reporters of each story event as it happens.
+ * When stories run in several threads, JBehave holds back the events sent to the usual report formats until each story
+ * is finished, so that the reports of different stories do not get mixed up. Live reporters are told straight away,
+ * which is what reporters that need to know when things actually happen, such as timers, require.
+ */
+public class SerenityStoryReporterBuilder extends StoryReporterBuilder {
+
+    private final List<StoryReporter> liveReporters = Collections.synchronizedList(Lists.<StoryReporter>newArrayList());
+
+    /**
+     * Reporters to notify as the stories run. They may be notified by several threads at once.
+     */
+    public SerenityStoryReporterBuilder withLiveReporters(StoryReporter... reporters) {
+        Collections.addAll(liveReporters, reporters);
+        return this;
+    }
+
+    @Override
+    public StoryReporter build(String storyPath) {
+        if (liveReporters.isEmpty()) {
+            return super.build(storyPath);
+        }
+        List<StoryReporter> formatReporters = Lists.newArrayList();
+        for (org.jbehave.core.reporters.Format format : formats()) {
+            formatReporters.add(reporterFor(storyPath, format));
+        }
+        return new ConcurrentStoryReporter(new DelegatingStoryReporter(Lists.newArrayList(liveReporters)),
+                                           new DelegatingStoryReporter(formatReporters),
+                                           multiThreading());
+    }
+}
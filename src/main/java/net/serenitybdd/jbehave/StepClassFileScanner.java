@@ -0,0 +1,226 @@
+package net.serenitybdd.jbehave;
+
+import com.google.common.io.ByteStreams;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tells whether a class has JBehave step methods by reading its class file, without loading the class.
+ * Like {@link org.jbehave.core.steps.AbstractStepsFactory}, a class has step methods when one of its public
+ * methods, of its own or inherited, carries an annotation from <code>org.jbehave.core.annotations</code>.
+ * <p>
+ * The constant pool is read first: a class file that does not mention a JBehave annotation cannot declare
+ * a step method, so only its superclass is looked at. Class files that cannot be read are taken to have steps,
+ * so that the class is loaded and checked as it was before.
+ * <p>
+ * A scanner can be shared by threads scanning different classpath roots.
+ */
+class StepClassFileScanner {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(StepClassFileScanner.class);
+
+    private static final int MAGIC = 0xCAFEBABE;
+    private static final int ACC_PUBLIC = 0x0001;
+    private static final String JBEHAVE_ANNOTATIONS = "Lorg/jbehave/core/annotations";
+    private static final String RUNTIME_VISIBLE_ANNOTATIONS = "RuntimeVisibleAnnotations";
+
+    private final ClassLoader classLoader;
+    private final Map<String, Boolean> stepClasses = new ConcurrentHashMap<>();
+
+    StepClassFileScanner(ClassLoader classLoader) {
+        this.classLoader = classLoader;
+    }
+
+    boolean hasStepMethods(byte[] classFile) {
+        try {
+            return hasStepMethods(ClassFile.read(classFile));
+        } catch (IOException | RuntimeException e) {
+            LOGGER.debug("Could not read a class file ({}), the class will be loaded instead", e.toString());
+            return true;
+        }
+    }
+
+    private boolean hasStepMethods(ClassFile classFile) throws IOException {
+        return classFile.declaresStepMethods || inheritsStepMethodsFrom(classFile.superClassName);
+    }
+
+    private boolean inheritsStepMethodsFrom(String internalClassName) throws IOException {
+        if (internalClassName == null || internalClassName.startsWith("java/")) {
+            return false;
+        }
+        Boolean hasStepMethods = stepClasses.get(internalClassName);
+        if (hasStepMethods == null) {
+            hasStepMethods = superClassHasStepMethods(internalClassName);
+            stepClasses.put(internalClassName, hasStepMethods);
+        }
+        return hasStepMethods;
+    }
+
+    private boolean superClassHasStepMethods(String internalClassName) throws IOException {
+        try (InputStream classFile = classLoader.getResourceAsStream(internalClassName + ".class")) {
+            if (classFile == null) {
+                return true;
+            }
+            return hasStepMethods(ClassFile.read(ByteStreams.toByteArray(classFile)));
+        }
+    }
+
+    /**
+     * The parts of a class file needed to find step methods: the name of the superclass, and whether
+     * a public method carries a JBehave annotation.
+     */
+    private static class ClassFile {
+        private final String[] utf8Constants;
+        private final int[] classNameIndexes;
+        private String superClassName;
+        private boolean declaresStepMethods;
+
+        private ClassFile(int constantPoolCount) {
+            utf8Constants = new String[constantPoolCount];
+            classNameIndexes = new int[constantPoolCount];
+        }
+
+        static ClassFile read(byte[] bytes) throws IOException {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a class file");
+            }
+            in.readUnsignedShort();
+            in.readUnsignedShort();
+
+            ClassFile classFile = new ClassFile(in.readUnsignedShort());
+            boolean mentionsJBehaveAnnotations = classFile.readConstantPool(in);
+
+            in.readUnsignedShort();
+            in.readUnsignedShort();
+            classFile.superClassName = classFile.className(in.readUnsignedShort());
+            if (mentionsJBehaveAnnotations) {
+                skip(in, 2 * in.readUnsignedShort());
+                skipMembers(in);
+                classFile.declaresStepMethods = classFile.readMethods(in);
+            }
+            return classFile;
+        }
+
+        private boolean readConstantPool(DataInputStream in) throws IOException {
+            boolean mentionsJBehaveAnnotations = false;
+            for (int index = 1; index < utf8Constants.length; index++) {
+                int tag = in.readUnsignedByte();
+                switch (tag) {
+                    case 1:
+                        utf8Constants[index] = in.readUTF();
+                        mentionsJBehaveAnnotations |= utf8Constants[index].startsWith(JBEHAVE_ANNOTATIONS);
+                        break;
+                    case 7:
+                        classNameIndexes[index] = in.readUnsignedShort();
+                        break;
+                    case 8: case 16: case 19: case 20:
+                        skip(in, 2);
+                        break;
+                    case 15:
+                        skip(in, 3);
+                        break;
+                    case 3: case 4: case 9: case 10: case 11: case 12: case 17: case 18:
+                        skip(in, 4);
+                        break;
+                    case 5: case 6:
+                        skip(in, 8);
+                        index++;
+                        break;
+                    default:
+                        throw new IOException("Unknown constant pool tag " + tag);
+                }
+            }
+            return mentionsJBehaveAnnotations;
+        }
+
+        private boolean readMethods(DataInputStream in) throws IOException {
+            int methodCount = in.readUnsignedShort();
+            for (int method = 0; method < methodCount; method++) {
+                boolean isPublic = (in.readUnsignedShort() & ACC_PUBLIC) != 0;
+                skip(in, 4);
+                int attributeCount = in.readUnsignedShort();
+                for (int attribute = 0; attribute < attributeCount; attribute++) {
+                    String attributeName = utf8Constants[in.readUnsignedShort()];
+                    int length = in.readInt();
+                    if (isPublic && RUNTIME_VISIBLE_ANNOTATIONS.equals(attributeName)) {
+                        if (hasJBehaveAnnotation(in)) {
+                            return true;
+                        }
+                    } else {
+                        skip(in, length);
+                    }
+                }
+            }
+            return false;
+        }
+
+        private boolean hasJBehaveAnnotation(DataInputStream in) throws IOException {
+            boolean hasJBehaveAnnotation = false;
+            int annotationCount = in.readUnsignedShort();
+            for (int annotation = 0; annotation < annotationCount; annotation++) {
+                hasJBehaveAnnotation |= utf8Constants[in.readUnsignedShort()].startsWith(JBEHAVE_ANNOTATIONS);
+                skipElementValuePairs(in);
+            }
+            return hasJBehaveAnnotation;
+        }
+
+        private String className(int classIndex) {
+            return (classIndex == 0) ? null : utf8Constants[classNameIndexes[classIndex]];
+        }
+
+        private static void skipMembers(DataInputStream in) throws IOException {
+            int memberCount = in.readUnsignedShort();
+            for (int member = 0; member < memberCount; member++) {
+                skip(in, 6);
+                int attributeCount = in.readUnsignedShort();
+                for (int attribute = 0; attribute < attributeCount; attribute++) {
+                    skip(in, 2);
+                    skip(in, in.readInt());
+                }
+            }
+        }
+
+        private static void skipElementValuePairs(DataInputStream in) throws IOException {
+            int pairCount = in.readUnsignedShort();
+            for (int pair = 0; pair < pairCount; pair++) {
+                skip(in, 2);
+                skipElementValue(in);
+            }
+        }
+
+        private static void skipElementValue(DataInputStream in) throws IOException {
+            int tag = in.readUnsignedByte();
+            switch (tag) {
+                case 'e':
+                    skip(in, 4);
+                    break;
+                case '@':
+                    skip(in, 2);
+                    skipElementValuePairs(in);
+                    break;
+                case '[':
+                    int valueCount = in.readUnsignedShort();
+                    for (int value = 0; value < valueCount; value++) {
+                        skipElementValue(in);
+                    }
+                    break;
+                default:
+                    skip(in, 2);
+            }
+        }
+
+        private static void skip(DataInputStream in, int bytes) throws IOException {
+            if (in.skipBytes(bytes) != bytes) {
+                throw new IOException("Unexpected end of class file");
+            }
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package net.serenitybdd.jbehave;
+
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * The steps classes found under each root package, shared by all the story runners of a JVM so that
+ * the classpath is only scanned once per root package and class loader. When several runners ask for the
+ * same root package at the same time, one finds the steps classes and the others wait for them.
+ * <p>
+ * Class loaders are held weakly, and only the names of their steps classes are kept, so that a class loader
+ * that is no longer used, such as the one replaced when watched step classes are reloaded, can be garbage collected
+ * with its classes. The classes are looked up by name through their class loader each time they are asked for.
+ * Use {@link #invalidate(String)} or {@link #invalidateAll()} when the steps classes may have changed,
+ * e.g. after compiling new classes in a long-lived JVM.
+ */
+public class StepTypesRegistry {
+
+    private static final StepTypesRegistry STEP_TYPES_FOR_THIS_JVM = new StepTypesRegistry();
+
+    private final LoadingCache<ClassLoader, Cache<String, List<String>>> stepTypesByClassLoader
+            = CacheBuilder.newBuilder().weakKeys().build(new CacheLoader<ClassLoader, Cache<String, List<String>>>() {
+                @Override
+                public Cache<String, List<String>> load(ClassLoader classLoader) {
+                    return CacheBuilder.newBuilder().build();
+                }
+            });
+
+    StepTypesRegistry() {
+    }
+
+    public static StepTypesRegistry sharedByThisJVM() {
+        return STEP_TYPES_FOR_THIS_JVM;
+    }
+
+    /**
+     * The steps classes under a root package, found with the given finder the first time they are asked for.
+     */
+    public List<Class<?>> stepTypesUnder(String rootPackage, ClassLoader classLoader, final Callable<List<Class<?>>> finder) {
+        if (classLoader == null) {
+            return found(finder);
+        }
+        try {
+            List<String> stepTypeNames = stepTypesByClassLoader.getUnchecked(classLoader).get(rootPackage, new Callable<List<String>>() {
+                @Override
+                public List<String> call() throws Exception {
+                    return namesOf(finder.call());
+                }
+            });
+            return loaded(stepTypeNames, classLoader);
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            throw Throwables.propagate(e.getCause());
+        }
+    }
+
+    /**
+     * Find the steps classes under a root package again the next time they are asked for, whatever the class loader.
+     */
+    public void invalidate(String rootPackage) {
+        for (Cache<String, List<String>> stepTypes : stepTypesByClassLoader.asMap().values()) {
+            stepTypes.invalidate(rootPackage);
+        }
+    }
+
+    public void invalidateAll() {
+        stepTypesByClassLoader.invalidateAll();
+    }
+
+    private static List<String> namesOf(List<Class<?>> stepTypes) {
+        ImmutableList.Builder<String> stepTypeNames = ImmutableList.builder();
+        for (Class<?> stepType : stepTypes) {
+            stepTypeNames.add(stepType.getName());
+        }
+        return stepTypeNames.build();
+    }
+
+    private static List<Class<?>> loaded(List<String> stepTypeNames, ClassLoader classLoader) {
+        ImmutableList.Builder<Class<?>> stepTypes = ImmutableList.builder();
+        for (String stepTypeName : stepTypeNames) {
+            try {
+                stepTypes.add(classLoader.loadClass(stepTypeName));
+            } catch (ClassNotFoundException e) {
+                throw new IllegalStateException("The steps class " + stepTypeName + " can no longer be loaded", e);
+            }
+        }
+        return stepTypes.build();
+    }
+
+    private List<Class<?>> found(Callable<List<Class<?>>> finder) {
+        try {
+            return ImmutableList.copyOf(finder.call());
+        } catch (Exception e) {
+            throw Throwables.propagate(e);
+        }
+    }
+}
@@ -4,6 +4,7 @@ import com.google.common.base.Optional;
 import com.google.common.base.Splitter;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
+import net.serenitybdd.jbehave.discovery.StoryResourceIndex;
 import net.thucydides.core.util.EnvironmentVariables;
 import org.codehaus.plexus.util.StringUtils;
 
@@ -34,6 +35,11 @@ class StoryPathFinder {
             rootStoryName = stripLeadingWildcards(rootStoryName);
             Set<String> newPathElements = Sets.newHashSet();
 
+            if (!storyResources().mightContainStoriesNamed(baseNameOf(rootStoryName))) {
+                storyPathElements.add(withWildcard(rootStoryName));
+                continue;
+            }
+
             Optional<URL> storyOnClasspath = storyOnClasspath(rootStoryName);
 
             if (storyOnClasspath.isPresent() && unidentified(storyOnClasspath.get())) {
@@ -78,8 +84,16 @@ class StoryPathFinder {
         return "**/" + resourceName;
     }
 
+    private String baseNameOf(String storyName) {
+        return storyName.substring(storyName.lastIndexOf('/') + 1);
+    }
+
     private Optional<URL> storyOnClasspath(String storyFile) {
-        return Optional.fromNullable(getClassLoader().getResource(storyFile));
+        return Optional.fromNullable(storyResources().resourceNamed(storyFile));
+    }
+
+    private StoryResourceIndex storyResources() {
+        return StoryResourceIndex.on(getClassLoader());
     }
 
 
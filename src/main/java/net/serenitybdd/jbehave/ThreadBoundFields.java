@@ -0,0 +1,51 @@
+package net.serenitybdd.jbehave;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import net.serenitybdd.core.pages.PageObject;
+import net.serenitybdd.core.pages.PagesAnnotatedField;
+import net.thucydides.core.annotations.Fields;
+import net.thucydides.core.annotations.ManagedWebDriverAnnotatedField;
+import net.thucydides.core.steps.StepsAnnotatedField;
+
+import java.lang.reflect.Field;
+
+/**
+ * Tells whether the instances of a steps class hold the step libraries, driver or pages of the thread running
+ * the story: steps classes that are page objects, or that have {@code @Steps}, {@code @Managed},
+ * {@code @ManagedPages} or page object fields. Environment variables and the Serenity configuration are the same
+ * for every thread. This is worked out once per class, and steps classes are held weakly.
+ */
+class ThreadBoundFields {
+
+    private static final LoadingCache<Class<?>, Boolean> THREAD_BOUND_STEPS_TYPES
+            = CacheBuilder.newBuilder().weakKeys().build(new CacheLoader<Class<?>, Boolean>() {
+                @Override
+                public Boolean load(Class<?> stepsType) {
+                    return !StepsAnnotatedField.findOptionalAnnotatedFields(stepsType).isEmpty()
+                           || ManagedWebDriverAnnotatedField.hasManagedWebdriverField(stepsType)
+                           || PagesAnnotatedField.findOptionalAnnotatedField(stepsType).isPresent()
+                           || hasPageObjects(stepsType);
+                }
+            });
+
+    private ThreadBoundFields() {
+    }
+
+    static boolean in(Class<?> stepsType) {
+        return THREAD_BOUND_STEPS_TYPES.getUnchecked(stepsType);
+    }
+
+    private static boolean hasPageObjects(Class<?> stepsType) {
+        if (PageObject.class.isAssignableFrom(stepsType)) {
+            return true;
+        }
+        for (Field field : Fields.of(stepsType).allFields()) {
+            if (PageObject.class.isAssignableFrom(field.getType())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
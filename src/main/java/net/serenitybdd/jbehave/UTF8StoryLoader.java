@@ -1,20 +1,171 @@
 package net.serenitybdd.jbehave;
 
-import org.apache.commons.io.IOUtils;
+import com.google.common.base.Charsets;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.Weigher;
+import net.serenitybdd.jbehave.discovery.StoryResourceIndex;
 import org.jbehave.core.io.InvalidStoryResource;
 import org.jbehave.core.io.LoadFromClasspath;
+import org.jbehave.core.io.StoryResourceNotFound;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
 
+/**
+ * Loads stories and other resources as UTF-8 text, keeping the most recently used texts in memory so that
+ * given stories used by many stories are only read once. The cache is bounded by the size of the texts it holds.
+ * <p>
+ * Story files in classpath directories are read straight from a file channel, and large ones are mapped
+ * into memory rather than copied. Other resources, such as stories in jar files, are read from their URL.
+ */
 public class UTF8StoryLoader extends LoadFromClasspath {
 
+	private static final long DEFAULT_MAXIMUM_CACHED_BYTES = 64L * 1024 * 1024;
+	private static final long MAPPED_FILE_THRESHOLD = 256 * 1024;
+	private static final int UNKNOWN_LENGTH_BUFFER_SIZE = 8 * 1024;
+
+	private static final ThreadLocal<CharsetDecoder> DECODERS = new ThreadLocal<CharsetDecoder>() {
+		@Override
+		protected CharsetDecoder initialValue() {
+			return Charsets.UTF_8.newDecoder()
+					.onMalformedInput(CodingErrorAction.REPLACE)
+					.onUnmappableCharacter(CodingErrorAction.REPLACE);
+		}
+	};
+
+	private final Cache<String, String> storyTexts;
+
+	public UTF8StoryLoader() {
+		this(Thread.currentThread().getContextClassLoader(), DEFAULT_MAXIMUM_CACHED_BYTES);
+	}
+
+	public UTF8StoryLoader(ClassLoader classLoader, long maximumCachedBytes) {
+		super(classLoader, Charsets.UTF_8);
+		this.storyTexts = CacheBuilder.newBuilder()
+				.maximumWeight(maximumCachedBytes)
+				.weigher(new Weigher<String, String>() {
+					@Override
+					public int weigh(String resourcePath, String text) {
+						return 2 * text.length();
+					}
+				})
+				.build();
+	}
+
 	public String loadResourceAsText(String resourcePath) {
-        InputStream stream = resourceAsStream(resourcePath);
+		String text = storyTexts.getIfPresent(resourcePath);
+		if (text == null) {
+			text = textOf(resourcePath, resourceNamed(resourcePath));
+			storyTexts.put(resourcePath, text);
+		}
+		return text;
+	}
+
+	/**
+	 * Read these stories again the next time they are loaded, e.g. because the story files have changed.
+	 * Story paths with and without a leading slash are both forgotten.
+	 */
+	public void forget(Collection<String> storyPaths) {
+		for (String storyPath : storyPaths) {
+			String relativePath = storyPath.startsWith("/") ? storyPath.substring(1) : storyPath;
+			storyTexts.invalidate(relativePath);
+			storyTexts.invalidate("/" + relativePath);
+		}
+	}
+
+	/**
+	 * Stories are looked up in the shared story index rather than by asking the class loader every time.
+	 */
+	@Override
+	protected InputStream resourceAsStream(String resourcePath) {
 		try {
-			return IOUtils.toString(stream, "UTF-8");
+			return resourceNamed(resourcePath).openStream();
 		} catch (IOException e) {
-			throw new InvalidStoryResource(resourcePath, stream, e);
+			throw new InvalidStoryResource(resourcePath, e);
 		}
 	}
+
+	private URL resourceNamed(String resourcePath) {
+		URL resource = StoryResourceIndex.on(classLoader).resourceNamed(resourcePath);
+		if (resource == null) {
+			throw new StoryResourceNotFound(resourcePath, classLoader);
+		}
+		return resource;
+	}
+
+	private String textOf(String resourcePath, URL resource) {
+		try {
+			return decode("file".equals(resource.getProtocol()) ? bytesOfFile(new File(resource.toURI())) : bytesAt(resource));
+		} catch (IOException | URISyntaxException | IllegalArgumentException e) {
+			throw new InvalidStoryResource(resourcePath, e);
+		}
+	}
+
+	private ByteBuffer bytesOfFile(File file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size >= MAPPED_FILE_THRESHOLD) {
+				return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+			}
+			ByteBuffer bytes = ByteBuffer.allocate((int) size);
+			while (bytes.hasRemaining()) {
+				if (channel.read(bytes) < 0) {
+					break;
+				}
+			}
+			bytes.flip();
+			return bytes;
+		}
+	}
+
+	private ByteBuffer bytesAt(URL resource) throws IOException {
+		URLConnection connection = resource.openConnection();
+		int length = connection.getContentLength();
+		try (ReadableByteChannel channel = Channels.newChannel(connection.getInputStream())) {
+			ByteBuffer bytes = ByteBuffer.allocate(length >= 0 ? length : UNKNOWN_LENGTH_BUFFER_SIZE);
+			while (channel.read(bytes) >= 0) {
+				if (!bytes.hasRemaining()) {
+					if (length >= 0) {
+						break;
+					}
+					bytes = enlarged(bytes);
+				}
+			}
+			bytes.flip();
+			return bytes;
+		}
+	}
+
+	private ByteBuffer enlarged(ByteBuffer bytes) {
+		ByteBuffer larger = ByteBuffer.allocate(bytes.capacity() * 2);
+		bytes.flip();
+		larger.put(bytes);
+		return larger;
+	}
+
+	/**
+	 * UTF-8 never needs more than one char per byte, so a buffer as long as the input is always large enough.
+	 */
+	private String decode(ByteBuffer bytes) {
+		CharsetDecoder decoder = DECODERS.get().reset();
+		CharBuffer chars = CharBuffer.allocate(bytes.remaining());
+		decoder.decode(bytes, chars, true);
+		decoder.flush(chars);
+		chars.flip();
+		return chars.toString();
+	}
 }
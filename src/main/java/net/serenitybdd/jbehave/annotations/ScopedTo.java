@@ -0,0 +1,17 @@
+package net.serenitybdd.jbehave.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * How long instances of a step library are kept, e.g. <code>@ScopedTo(StepScope.JVM)</code> for a heavy,
+ * stateless library that only needs to be built once. Step libraries without this annotation are kept for
+ * a scenario, or for a story if <code>reset.steps.each.scenario</code> is false.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface ScopedTo {
+    StepScope value();
+}
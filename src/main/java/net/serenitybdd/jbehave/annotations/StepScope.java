@@ -0,0 +1,31 @@
+package net.serenitybdd.jbehave.annotations;
+
+/**
+ * How long an instance of a step library is kept before a new one is created.
+ * See {@link ScopedTo}.
+ */
+public enum StepScope {
+
+    /**
+     * A new instance for each scenario.
+     */
+    SCENARIO,
+
+    /**
+     * A new instance for each story.
+     */
+    STORY,
+
+    /**
+     * One instance for each thread running stories, kept from one story to the next.
+     * Its fields are injected again at the start of each story.
+     */
+    THREAD,
+
+    /**
+     * A single instance shared by every thread of the JVM, so the class must be safe to use from several threads.
+     * Its fields are only injected when it is created, and it cannot have {@code @Steps}, {@code @Managed},
+     * {@code @ManagedPages} or page object fields, which belong to the thread running a story.
+     */
+    JVM
+}
@@ -0,0 +1,130 @@
+package net.serenitybdd.jbehave.discovery;
+
+import com.google.common.collect.Maps;
+import org.jbehave.core.io.CodeLocations;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.util.Map;
+
+/**
+ * Records the state of a classpath root (a directory or a jar file) at the time it was scanned for stories,
+ * so that we can tell later on whether it needs to be scanned again.
+ * For a jar file, the size and modification time of the file are recorded. For a directory, the modification
+ * time of every directory in the tree is recorded: adding, removing or renaming a file changes the modification
+ * time of the directory containing it, so checking the directories is enough without listing any files.
+ */
+class ClasspathRootStamp {
+
+    enum Kind {ABSENT, ARCHIVE, DIRECTORY, UNSUPPORTED}
+
+    private final Kind kind;
+    private final long size;
+    private final long lastModified;
+    private final Map<String, Long> directories;
+
+    private ClasspathRootStamp(Kind kind, long size, long lastModified, Map<String, Long> directories) {
+        this.kind = kind;
+        this.size = size;
+        this.lastModified = lastModified;
+        this.directories = directories;
+    }
+
+    public static ClasspathRootStamp of(URL classpathRoot) {
+        if (!isLocal(classpathRoot)) {
+            return new ClasspathRootStamp(Kind.UNSUPPORTED, 0, 0, null);
+        }
+        File root = new File(CodeLocations.getPathFromURL(classpathRoot));
+        if (!root.exists()) {
+            return new ClasspathRootStamp(Kind.ABSENT, 0, 0, null);
+        }
+        if (root.isFile()) {
+            return new ClasspathRootStamp(Kind.ARCHIVE, root.length(), root.lastModified(), null);
+        }
+        Map<String, Long> directories = Maps.newLinkedHashMap();
+        recordDirectoriesIn(root, "", directories);
+        return new ClasspathRootStamp(Kind.DIRECTORY, 0, 0, directories);
+    }
+
+    private static boolean isLocal(URL classpathRoot) {
+        return "file".equals(classpathRoot.getProtocol());
+    }
+
+    private static void recordDirectoriesIn(File directory, String relativePath, Map<String, Long> directories) {
+        directories.put(relativePath, directory.lastModified());
+        File[] subdirectories = directory.listFiles();
+        if (subdirectories != null) {
+            for (File subdirectory : subdirectories) {
+                if (subdirectory.isDirectory()) {
+                    recordDirectoriesIn(subdirectory, relativePath + "/" + subdirectory.getName(), directories);
+                }
+            }
+        }
+    }
+
+    /**
+     * Stamps of roots we cannot inspect on the local file system are never reused.
+     */
+    public boolean isCacheable() {
+        return kind != Kind.UNSUPPORTED;
+    }
+
+    /**
+     * Checks whether the classpath root is still in the state recorded by this stamp.
+     */
+    public boolean isStillValidFor(URL classpathRoot) {
+        if (!isCacheable() || !isLocal(classpathRoot)) {
+            return false;
+        }
+        File root = new File(CodeLocations.getPathFromURL(classpathRoot));
+        switch (kind) {
+            case ABSENT:
+                return !root.exists();
+            case ARCHIVE:
+                return root.isFile() && root.length() == size && root.lastModified() == lastModified;
+            default:
+                return directoriesAreUnchangedUnder(root);
+        }
+    }
+
+    private boolean directoriesAreUnchangedUnder(File root) {
+        for (Map.Entry<String, Long> directory : directories.entrySet()) {
+            File recordedDirectory = new File(root, directory.getKey());
+            if (!recordedDirectory.isDirectory() || recordedDirectory.lastModified() != directory.getValue()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    void writeTo(DataOutputStream output) throws IOException {
+        output.writeByte(kind.ordinal());
+        output.writeLong(size);
+        output.writeLong(lastModified);
+        if (kind == Kind.DIRECTORY) {
+            output.writeInt(directories.size());
+            for (Map.Entry<String, Long> directory : directories.entrySet()) {
+                output.writeUTF(directory.getKey());
+                output.writeLong(directory.getValue());
+            }
+        }
+    }
+
+    static ClasspathRootStamp readFrom(DataInputStream input) throws IOException {
+        Kind kind = Kind.values()[input.readByte()];
+        long size = input.readLong();
+        long lastModified = input.readLong();
+        Map<String, Long> directories = null;
+        if (kind == Kind.DIRECTORY) {
+            int directoryCount = input.readInt();
+            directories = Maps.newLinkedHashMap();
+            for (int i = 0; i < directoryCount; i++) {
+                directories.put(input.readUTF(), input.readLong());
+            }
+        }
+        return new ClasspathRootStamp(kind, size, lastModified, directories);
+    }
+}
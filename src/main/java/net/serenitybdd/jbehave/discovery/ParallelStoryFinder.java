@@ -0,0 +1,81 @@
+package net.serenitybdd.jbehave.discovery;
+
+import com.google.common.collect.Lists;
+
+import java.net.URL;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Scans several classpath roots for stories at the same time, one fork/join task per classpath root.
+ * Each root is walked once, whatever the number of path expressions.
+ * The story paths found in every root are merged into a single concurrent set.
+ */
+public class ParallelStoryFinder {
+
+    private final StoryPathIndex storyPathIndex;
+    private final int parallelism;
+
+    public ParallelStoryFinder(StoryPathIndex storyPathIndex) {
+        this(storyPathIndex, Runtime.getRuntime().availableProcessors());
+    }
+
+    public ParallelStoryFinder(StoryPathIndex storyPathIndex, int parallelism) {
+        this.storyPathIndex = storyPathIndex;
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    public Set<String> findPaths(Collection<URL> classpathRoots, StoryPathMatcher matcher) {
+        Set<String> storyPaths = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+        List<ScanClasspathRoot> scans = Lists.newArrayList();
+        for (URL classpathRoot : classpathRoots) {
+            scans.add(new ScanClasspathRoot(classpathRoot, matcher, storyPaths));
+        }
+        ForkJoinPool pool = new ForkJoinPool(Math.min(parallelism, Math.max(1, scans.size())));
+        try {
+            pool.invoke(new ScanAllClasspathRoots(scans));
+        } finally {
+            pool.shutdown();
+        }
+        return storyPaths;
+    }
+
+    private static class ScanAllClasspathRoots extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final List<ScanClasspathRoot> scans;
+
+        private ScanAllClasspathRoots(List<ScanClasspathRoot> scans) {
+            this.scans = scans;
+        }
+
+        @Override
+        protected void compute() {
+            invokeAll(scans);
+        }
+    }
+
+    private class ScanClasspathRoot extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final URL classpathRoot;
+        private final StoryPathMatcher matcher;
+        private final Set<String> storyPaths;
+
+        private ScanClasspathRoot(URL classpathRoot, StoryPathMatcher matcher, Set<String> storyPaths) {
+            this.classpathRoot = classpathRoot;
+            this.matcher = matcher;
+            this.storyPaths = storyPaths;
+        }
+
+        @Override
+        protected void compute() {
+            storyPaths.addAll(storyPathIndex.findPaths(classpathRoot, matcher));
+        }
+    }
+}
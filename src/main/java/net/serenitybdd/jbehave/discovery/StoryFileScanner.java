@@ -0,0 +1,106 @@
+package net.serenitybdd.jbehave.discovery;
+
+import com.google.common.collect.Lists;
+import org.jbehave.core.io.CodeLocations;
+import org.jbehave.core.io.StoryFinder;
+
+import java.io.IOException;
+import java.net.URL;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.EnumSet;
+import java.util.List;
+
+/**
+ * Finds the story files matching a {@link StoryPathMatcher} in a single classpath root.
+ * Directories are walked with {@link Files#walkFileTree}, and jar files are read through a zip file system.
+ * Each root is walked once for all the patterns, and directories the matcher rules out are skipped.
+ * The paths returned are relative to the classpath root, using forward slashes, as with the JBehave {@link StoryFinder}.
+ */
+public class StoryFileScanner {
+
+    private static final String SEPARATOR = "/";
+
+    public List<String> findPaths(URL classpathRoot, StoryPathMatcher matcher) {
+        if (!"file".equals(classpathRoot.getProtocol())) {
+            return new StoryFinder().findPaths(classpathRoot, matcher.getIncludes(), matcher.getExcludes());
+        }
+        Path root = Paths.get(CodeLocations.getPathFromURL(classpathRoot));
+        try {
+            if (Files.isDirectory(root)) {
+                return matchingFilesUnder(root, matcher);
+            } else if (Files.isRegularFile(root)) {
+                return matchingFilesInArchive(root, matcher);
+            }
+            return Collections.emptyList();
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Could not scan the classpath root " + classpathRoot + " for stories", e);
+        }
+    }
+
+    private List<String> matchingFilesInArchive(Path archive, StoryPathMatcher matcher) throws IOException {
+        try (FileSystem archiveFileSystem = FileSystems.newFileSystem(archive, (ClassLoader) null)) {
+            return matchingFilesUnder(archiveFileSystem.getPath(SEPARATOR), matcher);
+        }
+    }
+
+    private List<String> matchingFilesUnder(final Path root, final StoryPathMatcher matcher) throws IOException {
+        final List<String> matchingPaths = Lists.newArrayList();
+        final Deque<StoryPathMatcher.State> directoryStates = new ArrayDeque<>();
+        Files.walkFileTree(root, EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path directory, BasicFileAttributes attributes) {
+                StoryPathMatcher.State state = (directory.equals(root)) ? matcher.start()
+                        : matcher.enterDirectory(directoryStates.peek(), nameOf(directory));
+                if (!matcher.shouldDescendInto(state)) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                directoryStates.push(state);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path directory, IOException exc) {
+                directoryStates.pop();
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+                String relativePath = relativePathOf(root, file);
+                if (matcher.matchesFile(directoryStates.peek(), nameOf(file), relativePath)) {
+                    matchingPaths.add(relativePath);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        Collections.sort(matchingPaths);
+        return matchingPaths;
+    }
+
+    private String nameOf(Path path) {
+        String name = path.getFileName().toString();
+        return (name.endsWith(SEPARATOR)) ? name.substring(0, name.length() - 1) : name;
+    }
+
+    private String relativePathOf(Path root, Path file) {
+        String relativePath = root.relativize(file).toString();
+        String fileSystemSeparator = file.getFileSystem().getSeparator();
+        return (fileSystemSeparator.equals(SEPARATOR)) ? relativePath : relativePath.replace(fileSystemSeparator, SEPARATOR);
+    }
+}
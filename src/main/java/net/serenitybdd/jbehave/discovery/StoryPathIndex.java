@@ -0,0 +1,175 @@
+package net.serenitybdd.jbehave.discovery;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Remembers the story paths found on each classpath root, so that roots that have not changed since
+ * the previous run do not need to be scanned again.
+ * The index is kept in memory, and optionally saved to a file so that it can be reused by other JVMs.
+ * It can safely be used by several threads scanning different classpath roots at the same time.
+ */
+public class StoryPathIndex {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(StoryPathIndex.class);
+
+    private static final int FORMAT_VERSION = 2;
+
+    private final Optional<File> indexFile;
+    private final Map<String, IndexEntry> entries;
+    private final StoryFileScanner storyFileScanner = new StoryFileScanner();
+
+    private volatile boolean modified = false;
+    private final AtomicInteger scannedRoots = new AtomicInteger();
+    private final AtomicInteger reusedRoots = new AtomicInteger();
+
+    private StoryPathIndex(Optional<File> indexFile, Map<String, IndexEntry> entries) {
+        this.indexFile = indexFile;
+        this.entries = entries;
+    }
+
+    /**
+     * An index that is only kept for the lifetime of this object.
+     */
+    public static StoryPathIndex inMemory() {
+        return new StoryPathIndex(Optional.<File>absent(), new ConcurrentHashMap<String, IndexEntry>());
+    }
+
+    /**
+     * An index that is loaded from (and saved to) the given file.
+     * A missing, unreadable or outdated index file is simply ignored and rebuilt.
+     */
+    public static StoryPathIndex storedIn(File indexFile) {
+        return new StoryPathIndex(Optional.of(indexFile), entriesFrom(indexFile));
+    }
+
+    /**
+     * Find the story paths matching a set of path expressions in a classpath root, reusing the paths found on a
+     * previous scan if the classpath root has not changed since then.
+     */
+    public List<String> findPaths(URL classpathRoot, StoryPathMatcher matcher) {
+        String key = keyFor(classpathRoot, matcher);
+        IndexEntry entry = entries.get(key);
+        if (entry != null && entry.stamp.isStillValidFor(classpathRoot)) {
+            reusedRoots.incrementAndGet();
+            return entry.storyPaths;
+        }
+        ClasspathRootStamp stamp = ClasspathRootStamp.of(classpathRoot);
+        List<String> storyPaths = ImmutableList.copyOf(storyFileScanner.findPaths(classpathRoot, matcher));
+        scannedRoots.incrementAndGet();
+        if (stamp.isCacheable()) {
+            entries.put(key, new IndexEntry(stamp, storyPaths));
+            modified = true;
+        }
+        return storyPaths;
+    }
+
+    /**
+     * How many classpath roots had to be scanned since this index was loaded.
+     */
+    public int getScannedRoots() {
+        return scannedRoots.get();
+    }
+
+    /**
+     * How many classpath roots were reused from the index without being scanned since this index was loaded.
+     */
+    public int getReusedRoots() {
+        return reusedRoots.get();
+    }
+
+    /**
+     * Write the index back to its file, if it has one and anything has changed.
+     * The file is replaced atomically, so JVMs running in parallel will never see a partially written index.
+     */
+    public synchronized void save() {
+        if (!indexFile.isPresent() || !modified) {
+            return;
+        }
+        File file = indexFile.get();
+        try {
+            File directory = file.getAbsoluteFile().getParentFile();
+            Files.createDirectories(directory.toPath());
+            File temporaryFile = File.createTempFile(file.getName(), ".tmp", directory);
+            try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporaryFile)))) {
+                writeEntriesTo(output);
+            }
+            Files.move(temporaryFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            modified = false;
+        } catch (IOException e) {
+            LOGGER.warn("Could not save the story index to {} ({})", file, e.getMessage());
+        }
+    }
+
+    private void writeEntriesTo(DataOutputStream output) throws IOException {
+        output.writeInt(FORMAT_VERSION);
+        output.writeInt(entries.size());
+        for (Map.Entry<String, IndexEntry> entry : entries.entrySet()) {
+            output.writeUTF(entry.getKey());
+            entry.getValue().stamp.writeTo(output);
+            output.writeInt(entry.getValue().storyPaths.size());
+            for (String storyPath : entry.getValue().storyPaths) {
+                output.writeUTF(storyPath);
+            }
+        }
+    }
+
+    private static Map<String, IndexEntry> entriesFrom(File indexFile) {
+        Map<String, IndexEntry> entries = new ConcurrentHashMap<>();
+        if (!indexFile.isFile()) {
+            return entries;
+        }
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)))) {
+            if (input.readInt() != FORMAT_VERSION) {
+                return entries;
+            }
+            int entryCount = input.readInt();
+            for (int i = 0; i < entryCount; i++) {
+                String key = input.readUTF();
+                ClasspathRootStamp stamp = ClasspathRootStamp.readFrom(input);
+                int pathCount = input.readInt();
+                ImmutableList.Builder<String> storyPaths = ImmutableList.builder();
+                for (int j = 0; j < pathCount; j++) {
+                    storyPaths.add(input.readUTF());
+                }
+                entries.put(key, new IndexEntry(stamp, storyPaths.build()));
+            }
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn("Ignoring unreadable story index {} ({})", indexFile, e.getMessage());
+            entries.clear();
+        }
+        return entries;
+    }
+
+    private String keyFor(URL classpathRoot, StoryPathMatcher matcher) {
+        return classpathRoot.toString() + "|" + matcher.signature();
+    }
+
+    private static class IndexEntry {
+        private final ClasspathRootStamp stamp;
+        private final List<String> storyPaths;
+
+        private IndexEntry(ClasspathRootStamp stamp, List<String> storyPaths) {
+            this.stamp = stamp;
+            this.storyPaths = storyPaths;
+        }
+    }
+}
@@ -0,0 +1,316 @@
+package net.serenitybdd.jbehave.discovery;
+
+import com.google.common.base.Joiner;
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import org.codehaus.plexus.util.SelectorUtils;
+
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Matches relative story paths against a set of Ant-style include and exclude patterns in a single pass.
+ * <p>
+ * All the patterns are compiled together into a small automaton over path segments. A classpath root is
+ * walked once, whatever the number of patterns: the state of the automaton is carried down from directory
+ * to directory, so each file name is only compared with the patterns that can still match at that depth.
+ * Directories that no include pattern can match, or that an exclude pattern such as "**&#47;drafts/**" rules
+ * out entirely, are not descended into at all.
+ * <p>
+ * Patterns follow the conventions of the JBehave StoryFinder: an expression may contain several patterns
+ * separated by commas, a trailing slash means "everything in this directory", and patterns are case-sensitive.
+ */
+public class StoryPathMatcher {
+
+    private static final String SEPARATOR = "/";
+    private static final String ANY_DIRECTORIES = "**";
+    private static final String REGEX_PREFIX = "%regex[";
+
+    private final List<String> includes;
+    private final List<String> excludes;
+    private final List<CompiledPattern> compiledIncludes;
+    private final List<CompiledPattern> compiledExcludes;
+    private final List<String> regexIncludes;
+    private final List<String> regexExcludes;
+
+    private StoryPathMatcher(List<String> includes, List<String> excludes) {
+        this.includes = ImmutableList.copyOf(includes);
+        this.excludes = ImmutableList.copyOf(excludes);
+        this.compiledIncludes = compile(includes);
+        this.compiledExcludes = compile(excludes);
+        this.regexIncludes = regexPatternsIn(includes);
+        this.regexExcludes = regexPatternsIn(excludes);
+    }
+
+    /**
+     * A matcher for the given path expressions. Each expression may contain several comma-separated patterns.
+     */
+    public static StoryPathMatcher including(List<String> includeExpressions) {
+        return new StoryPathMatcher(patternsIn(includeExpressions), ImmutableList.<String>of());
+    }
+
+    public static StoryPathMatcher including(String... includeExpressions) {
+        return including(ImmutableList.copyOf(includeExpressions));
+    }
+
+    /**
+     * The same matcher, also rejecting any path matching one of the given expressions.
+     */
+    public StoryPathMatcher excluding(List<String> excludeExpressions) {
+        List<String> allExcludes = Lists.newArrayList(excludes);
+        allExcludes.addAll(patternsIn(excludeExpressions));
+        return new StoryPathMatcher(includes, allExcludes);
+    }
+
+    public List<String> getIncludes() {
+        return includes;
+    }
+
+    public List<String> getExcludes() {
+        return excludes;
+    }
+
+    /**
+     * The state of the automaton at the top of a classpath root.
+     */
+    public State start() {
+        return new State(startPositions(compiledIncludes), startPositions(compiledExcludes));
+    }
+
+    /**
+     * The state of the automaton inside a subdirectory of the directory with the given state.
+     */
+    public State enterDirectory(State state, String directoryName) {
+        return new State(advance(compiledIncludes, state.includePositions, directoryName),
+                         advance(compiledExcludes, state.excludePositions, directoryName));
+    }
+
+    /**
+     * Is it worth walking through a directory in this state? It is not if no include pattern can match
+     * anything below it, or if an exclude pattern matches everything below it.
+     */
+    public boolean shouldDescendInto(State state) {
+        if (!regexIncludes.isEmpty()) {
+            return true;
+        }
+        return anyCanContinue(compiledIncludes, state.includePositions)
+                && !anyMatchesAllRemainingPaths(compiledExcludes, state.excludePositions);
+    }
+
+    /**
+     * Does a file in a directory with the given state match?
+     *
+     * @param directoryState the state of the directory containing the file
+     * @param fileName       the name of the file
+     * @param relativePath   the path of the file relative to the classpath root, using forward slashes
+     */
+    public boolean matchesFile(State directoryState, String fileName, String relativePath) {
+        boolean included = anyAccepts(compiledIncludes, advance(compiledIncludes, directoryState.includePositions, fileName))
+                || anyRegexMatches(regexIncludes, relativePath);
+        if (!included) {
+            return false;
+        }
+        return !anyAccepts(compiledExcludes, advance(compiledExcludes, directoryState.excludePositions, fileName))
+                && !anyRegexMatches(regexExcludes, relativePath);
+    }
+
+    /**
+     * Does a path relative to a classpath root match, using forward slashes as separators?
+     */
+    public boolean matches(String relativePath) {
+        List<String> segments = Lists.newArrayList(Splitter.on(SEPARATOR).omitEmptyStrings().split(relativePath));
+        if (segments.isEmpty() || relativePath.startsWith(SEPARATOR)) {
+            return anyRegexMatches(regexIncludes, relativePath) && !anyRegexMatches(regexExcludes, relativePath);
+        }
+        State state = start();
+        for (String directory : segments.subList(0, segments.size() - 1)) {
+            state = enterDirectory(state, directory);
+        }
+        return matchesFile(state, segments.get(segments.size() - 1), relativePath);
+    }
+
+    /**
+     * A stable description of the patterns, used to tell whether two matchers would find the same paths.
+     */
+    public String signature() {
+        return Joiner.on(',').join(includes) + "|" + Joiner.on(',').join(excludes);
+    }
+
+    @Override
+    public String toString() {
+        return "includes " + includes + ", excludes " + excludes;
+    }
+
+    private static List<String> patternsIn(List<String> expressions) {
+        List<String> patterns = Lists.newArrayList();
+        for (String expression : expressions) {
+            for (String pattern : Splitter.on(',').trimResults().omitEmptyStrings().split(expression)) {
+                if (!pattern.startsWith(REGEX_PREFIX)) {
+                    pattern = pattern.replace('\\', '/');
+                    if (pattern.endsWith(SEPARATOR)) {
+                        pattern = pattern + ANY_DIRECTORIES;
+                    }
+                }
+                patterns.add(pattern);
+            }
+        }
+        return patterns;
+    }
+
+    private static List<CompiledPattern> compile(List<String> patterns) {
+        List<CompiledPattern> compiledPatterns = Lists.newArrayList();
+        for (String pattern : patterns) {
+            if (!pattern.startsWith(REGEX_PREFIX)) {
+                compiledPatterns.add(new CompiledPattern(pattern));
+            }
+        }
+        return ImmutableList.copyOf(compiledPatterns);
+    }
+
+    private static List<String> regexPatternsIn(List<String> patterns) {
+        List<String> regexPatterns = Lists.newArrayList();
+        for (String pattern : patterns) {
+            if (pattern.startsWith(REGEX_PREFIX)) {
+                regexPatterns.add(pattern);
+            }
+        }
+        return ImmutableList.copyOf(regexPatterns);
+    }
+
+    private static BitSet[] startPositions(List<CompiledPattern> patterns) {
+        BitSet[] positions = new BitSet[patterns.size()];
+        for (int i = 0; i < patterns.size(); i++) {
+            positions[i] = patterns.get(i).start();
+        }
+        return positions;
+    }
+
+    private static BitSet[] advance(List<CompiledPattern> patterns, BitSet[] positions, String segment) {
+        BitSet[] nextPositions = new BitSet[patterns.size()];
+        for (int i = 0; i < patterns.size(); i++) {
+            nextPositions[i] = patterns.get(i).advance(positions[i], segment);
+        }
+        return nextPositions;
+    }
+
+    private static boolean anyAccepts(List<CompiledPattern> patterns, BitSet[] positions) {
+        for (int i = 0; i < patterns.size(); i++) {
+            if (patterns.get(i).accepts(positions[i])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean anyCanContinue(List<CompiledPattern> patterns, BitSet[] positions) {
+        for (int i = 0; i < patterns.size(); i++) {
+            if (patterns.get(i).canContinue(positions[i])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean anyMatchesAllRemainingPaths(List<CompiledPattern> patterns, BitSet[] positions) {
+        for (int i = 0; i < patterns.size(); i++) {
+            if (patterns.get(i).matchesAllRemainingPaths(positions[i])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean anyRegexMatches(List<String> regexPatterns, String relativePath) {
+        for (String pattern : regexPatterns) {
+            if (SelectorUtils.matchPath(pattern, relativePath, SEPARATOR, true)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The positions reached in each include and exclude pattern after reading the path down to a directory.
+     */
+    public static class State {
+        private final BitSet[] includePositions;
+        private final BitSet[] excludePositions;
+
+        private State(BitSet[] includePositions, BitSet[] excludePositions) {
+            this.includePositions = includePositions;
+            this.excludePositions = excludePositions;
+        }
+    }
+
+    /**
+     * A single Ant-style pattern, split into path segments. A position i means that the first i segments
+     * of the pattern have been matched; "**" segments can match any number of path segments, including none.
+     */
+    private static class CompiledPattern {
+        private final String[] segments;
+        private final boolean[] anyDirectories;
+        private final boolean[] wildcards;
+        private final boolean absolute;
+
+        CompiledPattern(String pattern) {
+            List<String> patternSegments = Lists.newArrayList(Splitter.on(SEPARATOR).omitEmptyStrings().split(pattern));
+            this.absolute = pattern.startsWith(SEPARATOR);
+            this.segments = patternSegments.toArray(new String[patternSegments.size()]);
+            this.anyDirectories = new boolean[segments.length];
+            this.wildcards = new boolean[segments.length];
+            for (int i = 0; i < segments.length; i++) {
+                anyDirectories[i] = segments[i].equals(ANY_DIRECTORIES);
+                wildcards[i] = segments[i].contains("*") || segments[i].contains("?");
+            }
+        }
+
+        BitSet start() {
+            BitSet positions = new BitSet(segments.length + 1);
+            if (!absolute) {
+                positions.set(0);
+            }
+            return closure(positions);
+        }
+
+        BitSet advance(BitSet positions, String segment) {
+            BitSet nextPositions = new BitSet(segments.length + 1);
+            for (int i = positions.nextSetBit(0); i >= 0 && i < segments.length; i = positions.nextSetBit(i + 1)) {
+                if (anyDirectories[i]) {
+                    nextPositions.set(i);
+                } else if (segmentMatches(i, segment)) {
+                    nextPositions.set(i + 1);
+                }
+            }
+            return closure(nextPositions);
+        }
+
+        boolean accepts(BitSet positions) {
+            return positions.get(segments.length);
+        }
+
+        boolean canContinue(BitSet positions) {
+            int first = positions.nextSetBit(0);
+            return first >= 0 && first < segments.length;
+        }
+
+        boolean matchesAllRemainingPaths(BitSet positions) {
+            int last = segments.length - 1;
+            return last >= 0 && anyDirectories[last] && positions.get(last);
+        }
+
+        private boolean segmentMatches(int position, String segment) {
+            return wildcards[position] ? SelectorUtils.match(segments[position], segment, true)
+                                       : segments[position].equals(segment);
+        }
+
+        private BitSet closure(BitSet positions) {
+            for (int i = positions.nextSetBit(0); i >= 0 && i < segments.length; i = positions.nextSetBit(i + 1)) {
+                if (anyDirectories[i]) {
+                    positions.set(i + 1);
+                }
+            }
+            return positions;
+        }
+    }
+}
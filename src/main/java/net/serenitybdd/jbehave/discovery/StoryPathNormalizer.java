@@ -0,0 +1,115 @@
+package net.serenitybdd.jbehave.discovery;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tidies up the story paths found on the classpath in a single pass:
+ * <ul>
+ * <li>a path is dropped if a longer path ends with it (e.g. "my_story.story" when "stories/my_story.story" was also found),</li>
+ * <li>given stories and preconditions, identified by their prefix, are dropped,</li>
+ * <li>the remaining paths are sorted.</li>
+ * </ul>
+ * Paths are compared segment by segment from the end, using a trie of reversed path segments,
+ * so the whole operation is O(n log n) rather than comparing every path with every other path.
+ */
+public class StoryPathNormalizer {
+
+    private final List<String> skippedPrefixes;
+
+    public StoryPathNormalizer(List<String> givenStoryPrefixes) {
+        List<String> prefixes = Lists.newArrayList();
+        for (String givenStoryPrefix : givenStoryPrefixes) {
+            prefixes.add(givenStoryPrefix);
+            prefixes.add("/" + givenStoryPrefix);
+        }
+        this.skippedPrefixes = ImmutableList.copyOf(prefixes);
+    }
+
+    public List<String> normalize(Collection<String> storyPaths) {
+        ReversedSegmentTrie trie = new ReversedSegmentTrie();
+        for (String storyPath : storyPaths) {
+            trie.add(storyPath);
+        }
+        List<String> normalizedPaths = Lists.newArrayListWithCapacity(storyPaths.size());
+        for (String storyPath : storyPaths) {
+            if (!isAGivenStory(storyPath) && !trie.containsALongerVersionOf(storyPath)) {
+                normalizedPaths.add(storyPath);
+            }
+        }
+        Collections.sort(normalizedPaths);
+        return normalizedPaths;
+    }
+
+    private boolean isAGivenStory(String storyPath) {
+        for (String prefix : skippedPrefixes) {
+            if (storyPath.regionMatches(true, 0, prefix, 0, prefix.length())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Stores paths by their segments, last segment first, so that all the paths ending with a given
+     * path share the node of that path.
+     */
+    private static class ReversedSegmentTrie {
+
+        private final Node root = new Node();
+
+        void add(String path) {
+            Node node = root;
+            int end = path.length();
+            while (end >= 0) {
+                int start = lastSeparatorBefore(path, end);
+                if (node != root) {
+                    node.hasLongerPaths = true;
+                }
+                node = node.childFor(path.substring(start + 1, end));
+                end = start;
+            }
+        }
+
+        boolean containsALongerVersionOf(String path) {
+            Node node = root;
+            int end = path.length();
+            while (end >= 0 && node != null) {
+                int start = lastSeparatorBefore(path, end);
+                node = node.children.get(path.substring(start + 1, end));
+                end = start;
+            }
+            return node != null && node.hasLongerPaths;
+        }
+
+        private int lastSeparatorBefore(String path, int end) {
+            for (int i = end - 1; i >= 0; i--) {
+                char character = path.charAt(i);
+                if (character == '/' || character == '\\') {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+
+    private static class Node {
+        private final Map<String, Node> children = Maps.newHashMap();
+        private boolean hasLongerPaths = false;
+
+        Node childFor(String segment) {
+            Node child = children.get(segment);
+            if (child == null) {
+                child = new Node();
+                children.put(segment, child);
+            }
+            return child;
+        }
+    }
+}
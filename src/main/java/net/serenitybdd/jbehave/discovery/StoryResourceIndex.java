@@ -0,0 +1,276 @@
+package net.serenitybdd.jbehave.discovery;
+
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.net.MalformedURLException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+
+/**
+ * An immutable index of the .story resources visible to a class loader, built once per class loader.
+ * Looking up a story by name is then a hash lookup rather than a walk through every jar and directory
+ * on the classpath, which matters when the same names are probed in many packages.
+ * <p>
+ * Lookups follow the rules of {@link ClassLoader#getResource(String)}: the first classpath entry containing
+ * a resource wins, and names starting with a slash are only found in directories, not in jar files.
+ * If the classpath could not be listed completely, or if a name only matches a story in a directory
+ * with a different case (which some file systems allow), the lookup falls back to the class loader itself.
+ */
+public class StoryResourceIndex {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(StoryResourceIndex.class);
+
+    private static final String STORY_SUFFIX = ".story";
+
+    /**
+     * Indexes only hold weak references to their class loaders, so that the class loaders can still be collected.
+     */
+    private static final Map<ClassLoader, StoryResourceIndex> INDEXES = new WeakHashMap<>();
+
+    private final WeakReference<ClassLoader> classLoader;
+    private final boolean complete;
+    private final Map<String, URL> resources;
+    private final Map<String, URL> directoryResources;
+    private final Set<String> lowerCaseNames;
+    private final Set<String> lowerCaseBaseNames;
+
+    private StoryResourceIndex(ClassLoader classLoader,
+                               boolean complete,
+                               Map<String, URL> resources,
+                               Map<String, URL> directoryResources) {
+        this.classLoader = new WeakReference<>(classLoader);
+        this.complete = complete;
+        this.resources = ImmutableMap.copyOf(resources);
+        this.directoryResources = ImmutableMap.copyOf(directoryResources);
+
+        ImmutableSet.Builder<String> lowerCaseNames = ImmutableSet.builder();
+        ImmutableSet.Builder<String> lowerCaseBaseNames = ImmutableSet.builder();
+        for (String name : resources.keySet()) {
+            lowerCaseBaseNames.add(baseNameOf(name).toLowerCase());
+        }
+        for (String name : directoryResources.keySet()) {
+            lowerCaseNames.add(name.toLowerCase());
+        }
+        this.lowerCaseNames = lowerCaseNames.build();
+        this.lowerCaseBaseNames = lowerCaseBaseNames.build();
+    }
+
+    /**
+     * The index of the stories visible to the given class loader, built the first time it is requested.
+     */
+    public static StoryResourceIndex on(ClassLoader classLoader) {
+        synchronized (INDEXES) {
+            StoryResourceIndex index = INDEXES.get(classLoader);
+            if (index == null) {
+                index = new IndexBuilder(classLoader).build();
+                INDEXES.put(classLoader, index);
+            }
+            return index;
+        }
+    }
+
+    /**
+     * The URL of the named resource, or null if the class loader would not find it.
+     */
+    public URL resourceNamed(String name) {
+        if (!isAPlainStoryName(name)) {
+            return classLoader().getResource(name);
+        }
+        boolean directoriesOnly = name.startsWith("/");
+        String key = directoriesOnly ? name.substring(1) : name;
+        URL resource = directoriesOnly ? directoryResources.get(key) : resources.get(key);
+        if (resource == null && (!complete || lowerCaseNames.contains(key.toLowerCase()))) {
+            return classLoader().getResource(name);
+        }
+        return resource;
+    }
+
+    private ClassLoader classLoader() {
+        ClassLoader loader = classLoader.get();
+        return (loader != null) ? loader : Thread.currentThread().getContextClassLoader();
+    }
+
+    /**
+     * Is there any story on the classpath with this file name, ignoring its package and case?
+     */
+    public boolean mightContainStoriesNamed(String baseName) {
+        return !complete || !baseName.toLowerCase().endsWith(STORY_SUFFIX) || lowerCaseBaseNames.contains(baseName.toLowerCase());
+    }
+
+    public int size() {
+        return resources.size();
+    }
+
+    private boolean isAPlainStoryName(String name) {
+        return name.toLowerCase().endsWith(STORY_SUFFIX)
+                && !name.contains("//") && !name.contains("./") && !name.contains("\\");
+    }
+
+    private static String baseNameOf(String name) {
+        return name.substring(name.lastIndexOf('/') + 1);
+    }
+
+    /**
+     * Lists the classpath of a class loader, in the order in which the class loader searches it.
+     */
+    private static class IndexBuilder {
+        private final ClassLoader classLoader;
+        private final Map<String, URL> resources = Maps.newHashMap();
+        private final Map<String, URL> directoryResources = Maps.newHashMap();
+        private final Set<String> visitedEntries = Sets.newHashSet();
+        private boolean complete = true;
+
+        IndexBuilder(ClassLoader classLoader) {
+            this.classLoader = classLoader;
+        }
+
+        StoryResourceIndex build() {
+            long start = System.currentTimeMillis();
+            for (URL classpathEntry : classpathEntries()) {
+                index(classpathEntry);
+            }
+            LOGGER.debug("Indexed {} stories on the classpath in {} ms", resources.size(), System.currentTimeMillis() - start);
+            return new StoryResourceIndex(classLoader, complete, resources, directoryResources);
+        }
+
+        private List<URL> classpathEntries() {
+            List<ClassLoader> delegationOrder = Lists.newArrayList();
+            ClassLoader systemClassLoader = ClassLoader.getSystemClassLoader();
+            for (ClassLoader loader = classLoader; loader != null; loader = loader.getParent()) {
+                delegationOrder.add(0, loader);
+                if (loader == systemClassLoader) {
+                    break;
+                }
+            }
+            List<URL> entries = Lists.newArrayList();
+            for (ClassLoader loader : delegationOrder) {
+                if (loader instanceof URLClassLoader) {
+                    Collections.addAll(entries, ((URLClassLoader) loader).getURLs());
+                } else if (loader == systemClassLoader) {
+                    entries.addAll(entriesOnTheJavaClassPath());
+                } else {
+                    complete = false;
+                }
+            }
+            return entries;
+        }
+
+        private List<URL> entriesOnTheJavaClassPath() {
+            List<URL> entries = Lists.newArrayList();
+            String classPath = System.getProperty("java.class.path", "");
+            for (String entry : Splitter.on(File.pathSeparatorChar).omitEmptyStrings().split(classPath)) {
+                try {
+                    entries.add(new File(entry).toURI().toURL());
+                } catch (MalformedURLException e) {
+                    complete = false;
+                }
+            }
+            return entries;
+        }
+
+        private void index(URL classpathEntry) {
+            if (!"file".equals(classpathEntry.getProtocol())) {
+                complete = false;
+                return;
+            }
+            File entry;
+            try {
+                entry = new File(classpathEntry.toURI());
+            } catch (URISyntaxException | IllegalArgumentException e) {
+                complete = false;
+                return;
+            }
+            if (!visitedEntries.add(entry.getAbsolutePath())) {
+                return;
+            }
+            if (entry.isDirectory()) {
+                indexDirectory(entry, "");
+            } else if (entry.isFile()) {
+                indexJar(entry);
+            }
+        }
+
+        private void indexDirectory(File directory, String packagePath) {
+            File[] files = directory.listFiles();
+            if (files == null) {
+                return;
+            }
+            for (File file : files) {
+                String name = packagePath + file.getName();
+                if (file.isDirectory()) {
+                    indexDirectory(file, name + "/");
+                } else if (name.toLowerCase().endsWith(STORY_SUFFIX)) {
+                    URL url = urlOf(file);
+                    if (url != null) {
+                        addIfAbsent(resources, name, url);
+                        addIfAbsent(directoryResources, name, url);
+                    }
+                }
+            }
+        }
+
+        private void indexJar(File jar) {
+            try (JarFile jarFile = new JarFile(jar)) {
+                String jarUrl = jar.toURI().toURL().toString();
+                Enumeration<JarEntry> entries = jarFile.entries();
+                while (entries.hasMoreElements()) {
+                    String name = entries.nextElement().getName();
+                    if (name.toLowerCase().endsWith(STORY_SUFFIX)) {
+                        addIfAbsent(resources, name, new URL("jar:" + jarUrl + "!/" + name));
+                    }
+                }
+                indexManifestClassPathOf(jar, jarFile.getManifest());
+            } catch (IOException e) {
+                LOGGER.debug("Could not index the stories in {} ({})", jar, e.getMessage());
+                complete = false;
+            }
+        }
+
+        private void indexManifestClassPathOf(File jar, Manifest manifest) throws MalformedURLException {
+            if (manifest == null || manifest.getMainAttributes().getValue(Attributes.Name.CLASS_PATH) == null) {
+                return;
+            }
+            URL jarLocation = jar.toURI().toURL();
+            String classPath = manifest.getMainAttributes().getValue(Attributes.Name.CLASS_PATH);
+            for (String entry : Splitter.on(' ').omitEmptyStrings().split(classPath)) {
+                index(new URL(jarLocation, entry));
+            }
+        }
+
+        private URL urlOf(File file) {
+            try {
+                return file.toURI().toURL();
+            } catch (MalformedURLException e) {
+                complete = false;
+                return null;
+            }
+        }
+
+        private void addIfAbsent(Map<String, URL> resources, String name, URL url) {
+            if (!resources.containsKey(name)) {
+                resources.put(name, url);
+            }
+        }
+    }
+}
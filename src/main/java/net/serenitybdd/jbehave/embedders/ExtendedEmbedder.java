@@ -1,13 +1,17 @@
 package net.serenitybdd.jbehave.embedders;
 
 import net.serenitybdd.jbehave.embedders.monitors.CompositeEmbedderMonitor;
+import net.serenitybdd.jbehave.givenstories.MemoizingStepCollector;
 import org.jbehave.core.configuration.Configuration;
 import org.jbehave.core.embedder.*;
+import org.jbehave.core.embedder.executors.FixedThreadExecutors;
+import org.jbehave.core.failures.BatchFailures;
 import org.jbehave.core.model.Story;
 import org.jbehave.core.steps.CandidateSteps;
 import org.jbehave.core.steps.InjectableStepsFactory;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
@@ -40,6 +44,90 @@ public class ExtendedEmbedder extends Embedder {
         return this.stories.get(path);
     }
 
+    /**
+     * Run the stories with these paths, using the stories registered by the test runner rather than loading and
+     * parsing them again. Any story that has not been registered is loaded as usual.
+     * Failures are handled in the same way as for {@link #runStoriesAsPaths(List)}.
+     */
+    public void runRegisteredStories(List<String> storyPaths) {
+        processSystemProperties();
+        EmbedderControls embedderControls = embedderControls();
+        embedderMonitor().usingControls(embedderControls);
+        if (embedderControls.skip()) {
+            embedderMonitor().storiesSkipped(storyPaths);
+            return;
+        }
+        try {
+            handleFailures(runStories(storyPaths, performableTree()));
+        } finally {
+            if (embedderControls.generateViewAfterStories()) {
+                generateReportsView();
+            }
+        }
+    }
+
+    /**
+     * Run some of the registered stories again in the same JVM, for example after their story files have changed.
+     * Failures are reported to the embedder monitor rather than thrown, so that the stories can be run again later.
+     */
+    public void rerunStories(List<String> storyPaths) {
+        BatchFailures failures = runStories(storyPaths, new PerformableTree());
+        if (!failures.isEmpty()) {
+            embedderMonitor().batchFailed(failures);
+        }
+    }
+
+    /**
+     * Each run uses a new story manager, as JBehave shuts down the executor service of its own story manager
+     * at the end of a run.
+     */
+    private BatchFailures runStories(List<String> storyPaths, PerformableTree performableTree) {
+        EmbedderControls embedderControls = embedderControls();
+        memoizeGivenStoriesForTheThreadsUsed();
+        ExecutorService executorService = hasExecutorService() ? executorService()
+                                                               : new FixedThreadExecutors().create(embedderControls);
+        try {
+            StoryManager storyManager = new StoryManager(configuration(), stepsFactory(), embedderControls,
+                    embedderMonitor(), executorService, performableTree, timeoutParsers());
+            BatchFailures failures = new BatchFailures(embedderControls.verboseFailures());
+            storyManager.runStories(storiesOf(storyPaths, storyManager), metaFilter(), failures);
+            return failures;
+        } finally {
+            if (!hasExecutorService()) {
+                executorService.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * Given stories set up state, such as a logged in browser, that belongs to the thread running them,
+     * so when several threads run the stories each of them runs the memoized given stories itself.
+     */
+    private void memoizeGivenStoriesForTheThreadsUsed() {
+        if (configuration().stepCollector() instanceof MemoizingStepCollector) {
+            ((MemoizingStepCollector) configuration().stepCollector()).memoizeOncePerWorkerThread(embedderControls().threads() > 1);
+        }
+    }
+
+    private List<Story> storiesOf(List<String> storyPaths, StoryManager storyManager) {
+        List<Story> stories = new ArrayList<>();
+        for (String storyPath : storyPaths) {
+            Story story = findStory(storyPath);
+            stories.add((story != null) ? story : storyManager.storyOfPath(storyPath));
+        }
+        return stories;
+    }
+
+    private void handleFailures(BatchFailures failures) {
+        if (!failures.isEmpty()) {
+            if (embedderControls().ignoreFailureInStories()) {
+                embedderMonitor().batchFailed(failures);
+            } else {
+                embedderFailureStrategy().handleFailures(failures);
+            }
+        }
+    }
+
     @Override
     public void mapStoriesAsPaths(List<String> storyPaths) {
         embedder.mapStoriesAsPaths(storyPaths);
@@ -57,6 +145,7 @@ public class ExtendedEmbedder extends Embedder {
 
     @Override
     public void runStoriesAsPaths(List<String> storyPaths) {
+        memoizeGivenStoriesForTheThreadsUsed();
         embedder.runStoriesAsPaths(storyPaths);
     }
 
@@ -0,0 +1,300 @@
+package net.serenitybdd.jbehave.givenstories;
+
+import com.google.common.collect.Lists;
+import org.jbehave.core.annotations.ScenarioType;
+import org.jbehave.core.configuration.Keywords;
+import org.jbehave.core.failures.UUIDExceptionWrapper;
+import org.jbehave.core.model.Lifecycle;
+import org.jbehave.core.model.Meta;
+import org.jbehave.core.model.Scenario;
+import org.jbehave.core.model.Story;
+import org.jbehave.core.reporters.StoryReporter;
+import org.jbehave.core.steps.AbstractStepResult;
+import org.jbehave.core.steps.CandidateSteps;
+import org.jbehave.core.steps.Step;
+import org.jbehave.core.steps.StepCollector;
+import org.jbehave.core.steps.StepCreator;
+import org.jbehave.core.steps.StepMonitor;
+import org.jbehave.core.steps.StepResult;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Runs the scenarios of given stories marked with the <code>@memoize</code> meta only once per JVM
+ * for the same parameters. Later uses of the given story replay the recorded outcome instead:
+ * each step is reported as it was the first time, without being performed again.
+ * <p>
+ * When several threads run the stories, the state a given story sets up, such as the browser a login story
+ * signed in with, belongs to the thread that ran it. The scenarios are then run once per worker thread instead
+ * (see {@link #memoizeOncePerWorkerThread(boolean)}), and a thread only replays the outcomes it recorded itself.
+ * <p>
+ * The first use of a given story is the first one in the order the stories are run. If it did not succeed,
+ * or has not finished yet when a later use starts, the later use performs its steps as usual.
+ */
+public class MemoizingStepCollector implements StepCollector {
+
+    public static final String MEMOIZE = "memoize";
+
+    private static final ConcurrentMap<String, Memo> MEMOS_FOR_THIS_JVM = new ConcurrentHashMap<>();
+
+    private static final ThreadLocal<ConcurrentMap<String, Memo>> MEMOS_FOR_THIS_THREAD = new ThreadLocal<ConcurrentMap<String, Memo>>() {
+        @Override
+        protected ConcurrentMap<String, Memo> initialValue() {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    private static final ThreadLocal<Deque<StoryInProgress>> STORIES_IN_PROGRESS = new ThreadLocal<Deque<StoryInProgress>>() {
+        @Override
+        protected Deque<StoryInProgress> initialValue() {
+            return new ArrayDeque<>();
+        }
+    };
+
+    private final StepCollector stepCollector;
+    private final Keywords keywords;
+    private final ConcurrentMap<String, Memo> memos;
+    private volatile boolean oncePerWorkerThread;
+
+    public MemoizingStepCollector(StepCollector stepCollector, Keywords keywords) {
+        this(stepCollector, keywords, MEMOS_FOR_THIS_JVM);
+    }
+
+    MemoizingStepCollector(StepCollector stepCollector, Keywords keywords, ConcurrentMap<String, Memo> memos) {
+        this.stepCollector = stepCollector;
+        this.keywords = keywords;
+        this.memos = memos;
+    }
+
+    /**
+     * Whether memoized scenarios should run once per worker thread rather than once per JVM.
+     * This should be the case whenever more than one thread runs the stories.
+     */
+    public void memoizeOncePerWorkerThread(boolean oncePerWorkerThread) {
+        this.oncePerWorkerThread = oncePerWorkerThread;
+    }
+
+    @Override
+    public List<Step> collectBeforeOrAfterStoriesSteps(List<CandidateSteps> candidateSteps, Stage stage) {
+        return stepCollector.collectBeforeOrAfterStoriesSteps(candidateSteps, stage);
+    }
+
+    /**
+     * The steps before a story are collected before its given stories and scenarios, and the steps after it
+     * once they have all been collected, so this is where we learn which story the scenario steps belong to.
+     */
+    @Override
+    public List<Step> collectBeforeOrAfterStorySteps(List<CandidateSteps> candidateSteps, Story story, Stage stage, boolean givenStory) {
+        Deque<StoryInProgress> storiesInProgress = STORIES_IN_PROGRESS.get();
+        if (stage == Stage.BEFORE) {
+            if (!givenStory) {
+                storiesInProgress.clear();
+            }
+            storiesInProgress.push(new StoryInProgress(story, givenStory));
+        } else if (!storiesInProgress.isEmpty()) {
+            storiesInProgress.pop();
+        }
+        return stepCollector.collectBeforeOrAfterStorySteps(candidateSteps, story, stage, givenStory);
+    }
+
+    @Override
+    public List<Step> collectBeforeOrAfterScenarioSteps(List<CandidateSteps> candidateSteps, Meta storyAndScenarioMeta, Stage stage, ScenarioType type) {
+        return stepCollector.collectBeforeOrAfterScenarioSteps(candidateSteps, storyAndScenarioMeta, stage, type);
+    }
+
+    @Override
+    public List<Step> collectLifecycleSteps(List<CandidateSteps> candidateSteps, Lifecycle lifecycle, Meta storyAndScenarioMeta, Stage stage) {
+        return stepCollector.collectLifecycleSteps(candidateSteps, lifecycle, storyAndScenarioMeta, stage);
+    }
+
+    @Override
+    public List<Step> collectScenarioSteps(List<CandidateSteps> candidateSteps, Scenario scenario, Map<String, String> parameters) {
+        return memoized(stepCollector.collectScenarioSteps(candidateSteps, scenario, parameters), scenario, parameters);
+    }
+
+    @Override
+    public List<Step> collectScenarioSteps(List<CandidateSteps> candidateSteps, Scenario scenario, Map<String, String> parameters, StepMonitor stepMonitor) {
+        return memoized(stepCollector.collectScenarioSteps(candidateSteps, scenario, parameters, stepMonitor), scenario, parameters);
+    }
+
+    /**
+     * JBehave collects the steps of every story before handing the stories to the threads that run them,
+     * so whether a use of a memoized scenario runs its steps or replays them is only decided when it is performed.
+     */
+    private List<Step> memoized(List<Step> steps, Scenario scenario, Map<String, String> parameters) {
+        StoryInProgress storyInProgress = STORIES_IN_PROGRESS.get().peek();
+        if (storyInProgress == null || !storyInProgress.isMemoized()) {
+            return steps;
+        }
+        MemoizedScenario memoizedScenario = new MemoizedScenario(
+                storyInProgress.story.getPath() + "|" + scenario.getTitle() + "|" + new TreeMap<>(parameters));
+        List<Step> memoizedSteps = Lists.newArrayListWithCapacity(steps.size() + 1);
+        for (Step step : steps) {
+            memoizedSteps.add(new MemoizedStep(step, memoizedScenario));
+        }
+        memoizedSteps.add(new RecordOutcome(memoizedScenario));
+        return memoizedSteps;
+    }
+
+    private ConcurrentMap<String, Memo> memosInScope() {
+        return oncePerWorkerThread ? MEMOS_FOR_THIS_THREAD.get() : memos;
+    }
+
+    private static class StoryInProgress {
+        private final Story story;
+        private final boolean givenStory;
+
+        private StoryInProgress(Story story, boolean givenStory) {
+            this.story = story;
+            this.givenStory = givenStory;
+        }
+
+        private boolean isMemoized() {
+            return givenStory && story.getMeta().hasProperty(MEMOIZE);
+        }
+    }
+
+    /**
+     * Whether the first run of a memoized scenario has succeeded.
+     */
+    static class Memo {
+        private volatile boolean succeeded;
+    }
+
+    /**
+     * One use of a memoized scenario. The first use to be performed in the scope of the memos records the outcome,
+     * and the later ones replay it. The steps of a use are all performed by the same thread.
+     */
+    private class MemoizedScenario {
+        private final String key;
+        private Memo memo;
+        private boolean recording;
+
+        private MemoizedScenario(String key) {
+            this.key = key;
+        }
+
+        private Memo memo() {
+            if (memo == null) {
+                Memo newMemo = new Memo();
+                Memo earlierMemo = memosInScope().putIfAbsent(key, newMemo);
+                recording = (earlierMemo == null);
+                memo = recording ? newMemo : earlierMemo;
+            }
+            return memo;
+        }
+
+        private boolean isRecording() {
+            memo();
+            return recording;
+        }
+    }
+
+    /**
+     * Added after the steps of a memoized scenario, and only performed if all the steps succeeded.
+     * A failure may also come from the steps run before the given story, so it is not replayed.
+     */
+    private static class RecordOutcome implements Step {
+        private final MemoizedScenario memoizedScenario;
+
+        private RecordOutcome(MemoizedScenario memoizedScenario) {
+            this.memoizedScenario = memoizedScenario;
+        }
+
+        @Override
+        public StepResult perform(UUIDExceptionWrapper storyFailureIfItHappened) {
+            if (memoizedScenario.isRecording()) {
+                memoizedScenario.memo().succeeded = true;
+            }
+            return AbstractStepResult.skipped();
+        }
+
+        @Override
+        public StepResult doNotPerform(UUIDExceptionWrapper storyFailure) {
+            return AbstractStepResult.skipped();
+        }
+
+        @Override
+        public String asString(Keywords keywords) {
+            return "";
+        }
+    }
+
+    private class MemoizedStep implements Step {
+        private final Step step;
+        private final MemoizedScenario memoizedScenario;
+
+        private MemoizedStep(Step step, MemoizedScenario memoizedScenario) {
+            this.step = step;
+            this.memoizedScenario = memoizedScenario;
+        }
+
+        @Override
+        public StepResult perform(UUIDExceptionWrapper storyFailureIfItHappened) {
+            if (memoizedScenario.isRecording() || !(step instanceof StepCreator.ParametrisedStep)) {
+                return step.perform(storyFailureIfItHappened);
+            }
+            String stepAsString = step.asString(keywords);
+            StepResult result = memoizedScenario.memo().succeeded ? AbstractStepResult.successful(stepAsString)
+                                                                  : step.perform(storyFailureIfItHappened);
+            return new ReportedAsStarted(stepAsString, result);
+        }
+
+        @Override
+        public StepResult doNotPerform(UUIDExceptionWrapper storyFailure) {
+            return step.doNotPerform(storyFailure);
+        }
+
+        @Override
+        public String asString(Keywords keywords) {
+            return step.asString(keywords);
+        }
+    }
+
+    /**
+     * JBehave only reports the start of the steps it knows how to describe, so replayed steps report it with their result.
+     */
+    private static class ReportedAsStarted implements StepResult {
+        private final String stepAsString;
+        private StepResult result;
+
+        private ReportedAsStarted(String stepAsString, StepResult result) {
+            this.stepAsString = stepAsString;
+            this.result = result;
+        }
+
+        @Override
+        public void describeTo(StoryReporter reporter) {
+            reporter.beforeStep(stepAsString);
+            result.describeTo(reporter);
+        }
+
+        @Override
+        public String parametrisedStep() {
+            return result.parametrisedStep();
+        }
+
+        @Override
+        public StepResult withParameterValues(String parametrisedStep) {
+            result = result.withParameterValues(parametrisedStep);
+            return this;
+        }
+
+        @Override
+        public StepResult withDurationInMillis(long durationInMillis) {
+            result = result.withDurationInMillis(durationInMillis);
+            return this;
+        }
+
+        @Override
+        public UUIDExceptionWrapper getFailure() {
+            return result.getFailure();
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package net.serenitybdd.jbehave.impact;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Optional;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+import org.jbehave.core.io.StoryLoader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Content hashes of story files and compiled step classes, used to tell whether they changed between two runs.
+ * Classes are fingerprinted from their class files, so the classes do not need to be loaded to be compared.
+ * Each story and class is only hashed once by a given instance, as the same step classes and given stories
+ * are shared by many stories.
+ */
+class Fingerprints {
+
+    private static final HashFunction HASH_FUNCTION = Hashing.murmur3_128();
+
+    private final StoryLoader storyLoader;
+    private final ClassLoader classLoader;
+    private final Map<String, Optional<String>> storyHashes = new ConcurrentHashMap<>();
+    private final Map<String, Optional<String>> classHashes = new ConcurrentHashMap<>();
+
+    Fingerprints(StoryLoader storyLoader, ClassLoader classLoader) {
+        this.storyLoader = storyLoader;
+        this.classLoader = classLoader;
+    }
+
+    /**
+     * The hash of the text of a story, or nothing if the story can no longer be loaded.
+     */
+    Optional<String> ofStory(String storyPath) {
+        Optional<String> storyHash = storyHashes.get(storyPath);
+        if (storyHash == null) {
+            storyHash = hashOfStory(storyPath);
+            storyHashes.put(storyPath, storyHash);
+        }
+        return storyHash;
+    }
+
+    /**
+     * The hash of the class file of a class, or nothing if the class is no longer on the classpath.
+     */
+    Optional<String> ofClass(String className) {
+        Optional<String> classHash = classHashes.get(className);
+        if (classHash == null) {
+            classHash = hashOfClass(className);
+            classHashes.put(className, classHash);
+        }
+        return classHash;
+    }
+
+    private Optional<String> hashOfStory(String storyPath) {
+        try {
+            return Optional.of(HASH_FUNCTION.hashString(storyLoader.loadStoryAsText(storyPath), Charsets.UTF_8).toString());
+        } catch (RuntimeException storyNotFound) {
+            return Optional.absent();
+        }
+    }
+
+    private Optional<String> hashOfClass(String className) {
+        URL classFile = classLoader.getResource(className.replace('.', '/') + ".class");
+        if (classFile == null) {
+            return Optional.absent();
+        }
+        try (InputStream classFileContents = classFile.openStream()) {
+            return Optional.of(HASH_FUNCTION.hashBytes(ByteStreams.toByteArray(classFileContents)).toString());
+        } catch (IOException e) {
+            return Optional.absent();
+        }
+    }
+}
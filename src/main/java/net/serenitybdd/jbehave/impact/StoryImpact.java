@@ -0,0 +1,56 @@
+package net.serenitybdd.jbehave.impact;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableMap;
+
+import java.util.Map;
+
+/**
+ * What a story depended on the last time it passed: the hashes of its own story file and of its given stories,
+ * and the hashes of the step classes (and their superclasses) it used, with the step libraries and page objects
+ * held in their fields.
+ */
+public class StoryImpact {
+
+    private final String storyPath;
+    private final long lastRunTime;
+    private final Map<String, String> storyHashes;
+    private final Map<String, String> classHashes;
+
+    public StoryImpact(String storyPath, long lastRunTime, Map<String, String> storyHashes, Map<String, String> classHashes) {
+        this.storyPath = storyPath;
+        this.lastRunTime = lastRunTime;
+        this.storyHashes = ImmutableMap.copyOf(storyHashes);
+        this.classHashes = ImmutableMap.copyOf(classHashes);
+    }
+
+    public String getStoryPath() {
+        return storyPath;
+    }
+
+    public long getLastRunTime() {
+        return lastRunTime;
+    }
+
+    public Map<String, String> getStoryHashes() {
+        return storyHashes;
+    }
+
+    public Map<String, String> getClassHashes() {
+        return classHashes;
+    }
+
+    boolean isUnchangedAccordingTo(Fingerprints fingerprints) {
+        for (Map.Entry<String, String> storyHash : storyHashes.entrySet()) {
+            if (!fingerprints.ofStory(storyHash.getKey()).equals(Optional.of(storyHash.getValue()))) {
+                return false;
+            }
+        }
+        for (Map.Entry<String, String> classHash : classHashes.entrySet()) {
+            if (!fingerprints.ofClass(classHash.getKey()).equals(Optional.of(classHash.getValue()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,186 @@
+package net.serenitybdd.jbehave.impact;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import net.serenitybdd.core.pages.PageObject;
+import net.thucydides.core.annotations.Steps;
+import org.jbehave.core.io.StoryLoader;
+import org.jbehave.core.model.OutcomesTable;
+import org.jbehave.core.model.Story;
+import org.jbehave.core.model.StoryDuration;
+import org.jbehave.core.reporters.NullStoryReporter;
+
+import java.io.File;
+import java.lang.reflect.Field;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Records the step classes and given stories used by each story as it runs, and saves them once the
+ * "AfterStories" steps have run. Along with the step classes and their superclasses, the step libraries and
+ * page objects they hold in their fields are recorded, and those of these libraries and pages in turn, as most
+ * step code lives in them. Only stories that pass are recorded: a story that fails or has pending steps
+ * is forgotten, so that it is always run the next time.
+ * <p>
+ * Step classes are reported by the steps factory through {@link #stepClassUsed(Class)}, on the thread running the story.
+ * This reporter must hear about stories as they happen, so it should be registered with
+ * {@link net.serenitybdd.jbehave.SerenityStoryReporterBuilder#withLiveReporters}, not as an ordinary report format.
+ */
+public class StoryImpactRecorder extends NullStoryReporter {
+
+    private static final String AFTER_STORIES = "AfterStories";
+    private static final String BEFORE_STORIES = "BeforeStories";
+
+    private static final ThreadLocal<RunningStory> CURRENT_STORY = new ThreadLocal<>();
+
+    private final StoryImpacts storyImpacts;
+    private final File impactFile;
+    private final Fingerprints fingerprints;
+    private final Map<Class<?>, Set<Class<?>>> classesUsedByStepClasses = new ConcurrentHashMap<>();
+
+    public StoryImpactRecorder(StoryImpacts storyImpacts, File impactFile, StoryLoader storyLoader, ClassLoader classLoader) {
+        this.storyImpacts = storyImpacts;
+        this.impactFile = impactFile;
+        this.fingerprints = new Fingerprints(storyLoader, classLoader);
+    }
+
+    /**
+     * Note that the story running on this thread, if any story impacts are being recorded, used a step class.
+     */
+    public static void stepClassUsed(Class<?> stepsType) {
+        RunningStory runningStory = CURRENT_STORY.get();
+        if (runningStory != null) {
+            runningStory.stepClasses.add(stepsType);
+        }
+    }
+
+    @Override
+    public void beforeStory(Story story, boolean givenStory) {
+        RunningStory runningStory = CURRENT_STORY.get();
+        if (givenStory && runningStory != null) {
+            runningStory.givenStories.add(story.getPath());
+        } else if (!givenStory) {
+            CURRENT_STORY.set(new RunningStory(story.getPath()));
+        }
+    }
+
+    @Override
+    public void storyNotAllowed(Story story, String filter) {
+        RunningStory runningStory = CURRENT_STORY.get();
+        if (runningStory != null && runningStory.path.equals(story.getPath())) {
+            runningStory.allowed = false;
+        }
+    }
+
+    @Override
+    public void pending(String step) {
+        storyDidNotPass();
+    }
+
+    @Override
+    public void failed(String step, Throwable cause) {
+        storyDidNotPass();
+    }
+
+    @Override
+    public void failedOutcomes(String step, OutcomesTable table) {
+        storyDidNotPass();
+    }
+
+    @Override
+    public void storyCancelled(Story story, StoryDuration storyDuration) {
+        storyDidNotPass();
+    }
+
+    @Override
+    public void afterStory(boolean givenStory) {
+        RunningStory runningStory = CURRENT_STORY.get();
+        if (givenStory || runningStory == null) {
+            return;
+        }
+        CURRENT_STORY.remove();
+        if (AFTER_STORIES.equals(runningStory.path)) {
+            storyImpacts.saveTo(impactFile);
+        } else if (!BEFORE_STORIES.equals(runningStory.path) && runningStory.allowed) {
+            if (runningStory.passed) {
+                storyImpacts.record(impactOf(runningStory));
+            } else {
+                storyImpacts.forget(runningStory.path);
+            }
+        }
+    }
+
+    private void storyDidNotPass() {
+        RunningStory runningStory = CURRENT_STORY.get();
+        if (runningStory != null) {
+            runningStory.passed = false;
+        }
+    }
+
+    private StoryImpact impactOf(RunningStory runningStory) {
+        Map<String, String> storyHashes = Maps.newHashMap();
+        addHash(storyHashes, runningStory.path, fingerprints.ofStory(runningStory.path));
+        for (String givenStory : runningStory.givenStories) {
+            addHash(storyHashes, givenStory, fingerprints.ofStory(givenStory));
+        }
+        Map<String, String> classHashes = Maps.newHashMap();
+        for (Class<?> stepClass : runningStory.stepClasses) {
+            for (Class<?> type : classesUsedBy(stepClass)) {
+                addHash(classHashes, type.getName(), fingerprints.ofClass(type.getName()));
+            }
+        }
+        return new StoryImpact(runningStory.path, runningStory.startTime, storyHashes, classHashes);
+    }
+
+    /**
+     * A step class, its superclasses, and the step libraries and page objects it uses through its fields, with theirs.
+     */
+    private Set<Class<?>> classesUsedBy(Class<?> stepClass) {
+        Set<Class<?>> classesUsed = classesUsedByStepClasses.get(stepClass);
+        if (classesUsed == null) {
+            classesUsed = Sets.newHashSet();
+            addClassesUsedBy(stepClass, classesUsed);
+            classesUsedByStepClasses.put(stepClass, classesUsed);
+        }
+        return classesUsed;
+    }
+
+    private void addClassesUsedBy(Class<?> stepClass, Set<Class<?>> classesUsed) {
+        for (Class<?> type = stepClass; isApplicationClass(type); type = type.getSuperclass()) {
+            if (!classesUsed.add(type)) {
+                return;
+            }
+            for (Field field : type.getDeclaredFields()) {
+                if (field.isAnnotationPresent(Steps.class) || PageObject.class.isAssignableFrom(field.getType())) {
+                    addClassesUsedBy(field.getType(), classesUsed);
+                }
+            }
+        }
+    }
+
+    private boolean isApplicationClass(Class<?> type) {
+        return type != null && type != Object.class && !type.getName().startsWith("java.");
+    }
+
+    /**
+     * Anything that cannot be fingerprinted gets an empty hash, which will never match, so that the story runs next time.
+     */
+    private void addHash(Map<String, String> hashes, String name, Optional<String> hash) {
+        hashes.put(name, hash.or(""));
+    }
+
+    private static class RunningStory {
+        private final String path;
+        private final long startTime = System.currentTimeMillis();
+        private final Set<String> givenStories = Sets.newHashSet();
+        private final Set<Class<?>> stepClasses = Sets.newHashSet();
+        private boolean allowed = true;
+        private boolean passed = true;
+
+        private RunningStory(String path) {
+            this.path = path;
+        }
+    }
+}
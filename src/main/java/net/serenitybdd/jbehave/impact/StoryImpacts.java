@@ -0,0 +1,169 @@
+package net.serenitybdd.jbehave.impact;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.jbehave.core.io.StoryLoader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The step classes and given stories each story depended on the last time it passed, used to only run the stories
+ * that could be affected by a change. A story is run again if it is new, if it did not pass the last time it ran,
+ * or if its story file, one of its given stories, or one of the step classes, step libraries or page objects
+ * it used has changed since. The other stories are carried forward from their last run, which is only logged.
+ * <p>
+ * Stories can be recorded by several threads at once, and the file is merged with the stories recorded by other JVMs
+ * when it is saved, so that it can be shared between the shards of a test suite.
+ */
+public class StoryImpacts {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(StoryImpacts.class);
+
+    private static final int FORMAT_VERSION = 1;
+
+    private final Map<String, StoryImpact> impacts;
+    private final Set<String> forgottenStories = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+    private StoryImpacts(Map<String, StoryImpact> impacts) {
+        this.impacts = impacts;
+    }
+
+    public static StoryImpacts none() {
+        return new StoryImpacts(new ConcurrentHashMap<String, StoryImpact>());
+    }
+
+    /**
+     * The story impacts recorded in a file. A missing, unreadable or outdated file is treated as an empty one.
+     */
+    public static StoryImpacts loadedFrom(File impactFile) {
+        return new StoryImpacts(impactsIn(impactFile));
+    }
+
+    public Optional<StoryImpact> impactOf(String storyPath) {
+        return Optional.fromNullable(impacts.get(storyPath));
+    }
+
+    public void record(StoryImpact impact) {
+        impacts.put(impact.getStoryPath(), impact);
+        forgottenStories.remove(impact.getStoryPath());
+    }
+
+    /**
+     * Forget what a story depended on, so that it will be run the next time, e.g. because it failed.
+     */
+    public void forget(String storyPath) {
+        impacts.remove(storyPath);
+        forgottenStories.add(storyPath);
+    }
+
+    /**
+     * The stories that need to be run, in the order they were given. The stories that are left out are logged
+     * as being carried forward from their last run.
+     */
+    public List<String> storiesAffectedByChanges(List<String> storyPaths, StoryLoader storyLoader, ClassLoader classLoader) {
+        Fingerprints fingerprints = new Fingerprints(storyLoader, classLoader);
+        List<String> affectedStories = Lists.newArrayList();
+        for (String storyPath : storyPaths) {
+            StoryImpact impact = impacts.get(storyPath);
+            if (impact != null && impact.isUnchangedAccordingTo(fingerprints)) {
+                LOGGER.info("Carried forward: {} passed on {} and nothing it depends on has changed since",
+                            storyPath, new Date(impact.getLastRunTime()));
+            } else {
+                affectedStories.add(storyPath);
+            }
+        }
+        LOGGER.info("Running {} of {} stories affected by changes since the last run", affectedStories.size(), storyPaths.size());
+        return affectedStories;
+    }
+
+    /**
+     * Write the story impacts to a file, keeping the stories recorded there in the meantime by other JVMs.
+     * The file is replaced atomically.
+     */
+    public synchronized void saveTo(File impactFile) {
+        Map<String, StoryImpact> allImpacts = impactsIn(impactFile);
+        allImpacts.putAll(impacts);
+        allImpacts.keySet().removeAll(forgottenStories);
+        try {
+            File directory = impactFile.getAbsoluteFile().getParentFile();
+            Files.createDirectories(directory.toPath());
+            File temporaryFile = File.createTempFile(impactFile.getName(), ".tmp", directory);
+            try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporaryFile)))) {
+                writeImpactsTo(output, allImpacts);
+            }
+            Files.move(temporaryFile.toPath(), impactFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOGGER.warn("Could not save the story impacts to {} ({})", impactFile, e.getMessage());
+        }
+    }
+
+    private static void writeImpactsTo(DataOutputStream output, Map<String, StoryImpact> impacts) throws IOException {
+        output.writeInt(FORMAT_VERSION);
+        output.writeInt(impacts.size());
+        for (StoryImpact impact : impacts.values()) {
+            output.writeUTF(impact.getStoryPath());
+            output.writeLong(impact.getLastRunTime());
+            writeHashesTo(output, impact.getStoryHashes());
+            writeHashesTo(output, impact.getClassHashes());
+        }
+    }
+
+    private static void writeHashesTo(DataOutputStream output, Map<String, String> hashes) throws IOException {
+        output.writeInt(hashes.size());
+        for (Map.Entry<String, String> hash : hashes.entrySet()) {
+            output.writeUTF(hash.getKey());
+            output.writeUTF(hash.getValue());
+        }
+    }
+
+    private static Map<String, StoryImpact> impactsIn(File impactFile) {
+        Map<String, StoryImpact> impacts = new ConcurrentHashMap<>();
+        if (!impactFile.isFile()) {
+            return impacts;
+        }
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(impactFile)))) {
+            if (input.readInt() != FORMAT_VERSION) {
+                return impacts;
+            }
+            int storyCount = input.readInt();
+            for (int i = 0; i < storyCount; i++) {
+                String storyPath = input.readUTF();
+                long lastRunTime = input.readLong();
+                Map<String, String> storyHashes = readHashesFrom(input);
+                Map<String, String> classHashes = readHashesFrom(input);
+                impacts.put(storyPath, new StoryImpact(storyPath, lastRunTime, storyHashes, classHashes));
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Ignoring the unreadable story impact file {} ({})", impactFile, e.getMessage());
+            impacts.clear();
+        }
+        return impacts;
+    }
+
+    private static Map<String, String> readHashesFrom(DataInputStream input) throws IOException {
+        int hashCount = input.readInt();
+        Map<String, String> hashes = Maps.newHashMap();
+        for (int i = 0; i < hashCount; i++) {
+            hashes.put(input.readUTF(), input.readUTF());
+        }
+        return hashes;
+    }
+}
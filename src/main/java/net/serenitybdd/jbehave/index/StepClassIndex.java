@@ -0,0 +1,195 @@
+package net.serenitybdd.jbehave.index;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Optional;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+/**
+ * Reads the steps classes listed by the {@link StepClassIndexProcessor} when the classes were compiled.
+ * The index is only used for a package if every classpath entry holding classes of that package has one,
+ * as steps classes compiled without the processor would otherwise be missed. Entries that only hold other
+ * resources in the package, such as stories in a separate resources directory, do not need an index.
+ * <p>
+ * The index also lists the classes compiled without step methods, after a {@link #CLASS_WITHOUT_STEPS} mark.
+ * If an indexed classpath entry holds a class that the index does not know, it was compiled without the
+ * processor since, e.g. by an IDE, so the index is out of date and the classpath is scanned instead.
+ */
+public class StepClassIndex {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(StepClassIndex.class);
+
+    public static final String INDEX_RESOURCE = "META-INF/serenity-jbehave/step-classes";
+
+    /**
+     * Marks the lines of the index naming classes that have no step methods.
+     */
+    static final String CLASS_WITHOUT_STEPS = "-";
+
+    private static final String CLASS_FILE_SUFFIX = ".class";
+
+    private StepClassIndex() {
+    }
+
+    /**
+     * The names of the indexed classes in a package and its subpackages,
+     * or nothing if the classes of this package need to be found by scanning the classpath.
+     */
+    public static Optional<List<String>> classNamesInPackage(String packageName, ClassLoader classLoader) {
+        if (packageName.isEmpty()) {
+            return Optional.absent();
+        }
+        try {
+            Map<String, URL> indexesByRoot = Maps.newLinkedHashMap();
+            for (URL index : Collections.list(classLoader.getResources(INDEX_RESOURCE))) {
+                indexesByRoot.put(rootOf(index, INDEX_RESOURCE), index);
+            }
+            String packagePath = packageName.replace('.', '/');
+            Enumeration<URL> packageDirectories = classLoader.getResources(packagePath);
+            while (packageDirectories.hasMoreElements()) {
+                URL packageDirectory = packageDirectories.nextElement();
+                Optional<Set<String>> compiledClasses = classNamesUnder(packageDirectory, packageName, packagePath);
+                if (!compiledClasses.isPresent()) {
+                    return Optional.absent();
+                }
+                if (compiledClasses.get().isEmpty()) {
+                    continue;
+                }
+                String root = rootOf(packageDirectory, packagePath);
+                if (!indexesByRoot.containsKey(root)) {
+                    return Optional.absent();
+                }
+                if (!knowsAll(indexesByRoot.get(root), compiledClasses.get())) {
+                    LOGGER.info("The steps class index of {} is out of date, so the classpath will be scanned", root);
+                    return Optional.absent();
+                }
+            }
+            List<String> classNames = Lists.newArrayList();
+            for (URL index : indexesByRoot.values()) {
+                List<String> stepClasses = Lists.newArrayList();
+                read(index, stepClasses, Sets.<String>newHashSet());
+                for (String className : stepClasses) {
+                    if (className.startsWith(packageName + ".")) {
+                        classNames.add(className);
+                    }
+                }
+            }
+            return Optional.of(classNames);
+        } catch (IOException e) {
+            LOGGER.debug("Could not read the steps class index ({}), so the classpath will be scanned", e.getMessage());
+            return Optional.absent();
+        }
+    }
+
+    private static boolean knowsAll(URL index, Set<String> compiledClasses) throws IOException {
+        Set<String> stepClasses = Sets.newHashSet();
+        Set<String> otherClasses = Sets.newHashSet();
+        read(index, stepClasses, otherClasses);
+        for (String className : compiledClasses) {
+            if (!stepClasses.contains(className) && !otherClasses.contains(className)) {
+                LOGGER.debug("{} is not in the steps class index", className);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Read the steps classes, and the classes without steps, listed in an index.
+     */
+    static void read(BufferedReader reader, Collection<String> stepClasses, Collection<String> otherClasses) throws IOException {
+        String line;
+        while ((line = reader.readLine()) != null) {
+            String className = line.trim();
+            if (className.startsWith(CLASS_WITHOUT_STEPS)) {
+                otherClasses.add(className.substring(CLASS_WITHOUT_STEPS.length()));
+            } else if (!className.isEmpty() && !className.startsWith("#")) {
+                stepClasses.add(className);
+            }
+        }
+    }
+
+    private static void read(URL index, Collection<String> stepClasses, Collection<String> otherClasses) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(index.openStream(), Charsets.UTF_8))) {
+            read(reader, stepClasses, otherClasses);
+        }
+    }
+
+    /**
+     * The top-level classes in a package directory and its subdirectories, the only ones the processor sees.
+     * Nothing is returned for directories that are neither in the file system nor in a jar.
+     */
+    private static Optional<Set<String>> classNamesUnder(URL packageDirectory, String packageName, String packagePath) throws IOException {
+        Set<String> classNames = Sets.newHashSet();
+        if ("file".equals(packageDirectory.getProtocol())) {
+            try {
+                addClassNamesIn(new File(packageDirectory.toURI()), packageName, classNames);
+                return Optional.of(classNames);
+            } catch (URISyntaxException | IllegalArgumentException e) {
+                return Optional.absent();
+            }
+        }
+        URLConnection connection = packageDirectory.openConnection();
+        if (!(connection instanceof JarURLConnection)) {
+            return Optional.absent();
+        }
+        connection.setUseCaches(false);
+        try (JarFile jar = ((JarURLConnection) connection).getJarFile()) {
+            Enumeration<JarEntry> entries = jar.entries();
+            while (entries.hasMoreElements()) {
+                String entryName = entries.nextElement().getName();
+                if (entryName.startsWith(packagePath + "/") && isTopLevelClass(entryName)) {
+                    classNames.add(entryName.substring(0, entryName.length() - CLASS_FILE_SUFFIX.length()).replace('/', '.'));
+                }
+            }
+            return Optional.of(classNames);
+        }
+    }
+
+    private static void addClassNamesIn(File directory, String packageName, Set<String> classNames) {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            if (file.isDirectory()) {
+                addClassNamesIn(file, packageName + "." + file.getName(), classNames);
+            } else if (isTopLevelClass(file.getName())) {
+                classNames.add(packageName + "." + file.getName().substring(0, file.getName().length() - CLASS_FILE_SUFFIX.length()));
+            }
+        }
+    }
+
+    private static boolean isTopLevelClass(String classFileName) {
+        return classFileName.endsWith(CLASS_FILE_SUFFIX) && !classFileName.contains("$")
+               && !classFileName.endsWith("package-info" + CLASS_FILE_SUFFIX);
+    }
+
+    private static String rootOf(URL resource, String resourcePath) {
+        String url = resource.toExternalForm();
+        if (url.endsWith("/")) {
+            url = url.substring(0, url.length() - 1);
+        }
+        return url.endsWith(resourcePath) ? url.substring(0, url.length() - resourcePath.length()) : url;
+    }
+}
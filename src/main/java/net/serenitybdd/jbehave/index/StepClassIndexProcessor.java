@@ -0,0 +1,133 @@
+package net.serenitybdd.jbehave.index;
+
+import com.google.common.base.Charsets;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Lists the classes that JBehave would take as steps classes in {@link StepClassIndex#INDEX_RESOURCE},
+ * so that the steps classes can be found without scanning the classpath. These are the top-level classes
+ * with a public method, of their own or inherited, carrying a JBehave annotation such as <code>@Given</code>
+ * or <code>@BeforeStory</code>.
+ * <p>
+ * The other classes compiled are listed too, so that classes compiled later without the processor show
+ * that the index is out of date. Incremental compilers only show the processor the classes that changed,
+ * so the classes listed by an earlier compilation are kept. Classes that have since been removed, or no longer
+ * have steps, are left out when the index is read.
+ * <p>
+ * The processor is not registered as a service, so that it does not run in every compilation that has this
+ * library on its classpath. Ask for it where the steps classes are compiled, e.g. with Gradle:
+ * <pre>
+ * compileTestJava {
+ *     options.compilerArgs += ['-processor', 'net.serenitybdd.jbehave.index.StepClassIndexProcessor']
+ * }
+ * </pre>
+ */
+@SupportedAnnotationTypes("*")
+public class StepClassIndexProcessor extends AbstractProcessor {
+
+    private static final String JBEHAVE_ANNOTATIONS = "org.jbehave.core.annotations.";
+
+    private Set<String> stepClasses;
+    private Set<String> otherClasses;
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnvironment) {
+        if (stepClasses == null) {
+            stepClasses = new TreeSet<>();
+            otherClasses = new TreeSet<>();
+            readPreviouslyIndexedClasses();
+        }
+        for (TypeElement type : ElementFilter.typesIn(roundEnvironment.getRootElements())) {
+            String className = processingEnv.getElementUtils().getBinaryName(type).toString();
+            if (type.getKind() == ElementKind.CLASS && hasStepMethods(type)) {
+                stepClasses.add(className);
+                otherClasses.remove(className);
+            } else {
+                otherClasses.add(className);
+                stepClasses.remove(className);
+            }
+        }
+        if (roundEnvironment.processingOver()) {
+            writeIndex();
+        }
+        return false;
+    }
+
+    private boolean hasStepMethods(TypeElement type) {
+        for (Element member : processingEnv.getElementUtils().getAllMembers(type)) {
+            if (member.getKind() == ElementKind.METHOD && member.getModifiers().contains(Modifier.PUBLIC) && hasJBehaveAnnotation(member)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean hasJBehaveAnnotation(Element method) {
+        for (AnnotationMirror annotation : method.getAnnotationMirrors()) {
+            TypeElement annotationType = (TypeElement) annotation.getAnnotationType().asElement();
+            if (annotationType.getQualifiedName().toString().startsWith(JBEHAVE_ANNOTATIONS)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void readPreviouslyIndexedClasses() {
+        try {
+            FileObject index = processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "", StepClassIndex.INDEX_RESOURCE);
+            try (Reader reader = index.openReader(true)) {
+                StepClassIndex.read(new BufferedReader(reader), stepClasses, otherClasses);
+            }
+        } catch (IOException | IllegalArgumentException noEarlierIndex) {
+            // the classes are being compiled for the first time
+        }
+    }
+
+    private void writeIndex() {
+        if (stepClasses.isEmpty() && otherClasses.isEmpty()) {
+            return;
+        }
+        try {
+            FileObject index = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", StepClassIndex.INDEX_RESOURCE);
+            try (Writer writer = new OutputStreamWriter(index.openOutputStream(), Charsets.UTF_8)) {
+                for (String className : stepClasses) {
+                    writer.write(className);
+                    writer.write('\n');
+                }
+                for (String className : otherClasses) {
+                    writer.write(StepClassIndex.CLASS_WITHOUT_STEPS);
+                    writer.write(className);
+                    writer.write('\n');
+                }
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+                    "Could not write the steps class index " + StepClassIndex.INDEX_RESOURCE + ": " + e.getMessage());
+        }
+    }
+}
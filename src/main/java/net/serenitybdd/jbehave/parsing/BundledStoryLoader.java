@@ -0,0 +1,67 @@
+package net.serenitybdd.jbehave.parsing;
+
+import com.google.common.base.Optional;
+import org.jbehave.core.io.StoryLoader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Loads the text of stories from a story bundle, and other stories and resources with another story loader.
+ * Bundled text is only used while the story file on the classpath is the one it was bundled from, going by its
+ * size and last modification time: stories edited since the bundle was written, and stories that are not plain files
+ * on the classpath, are read by the other story loader.
+ */
+public class BundledStoryLoader implements StoryLoader {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BundledStoryLoader.class);
+
+    private final StoryBundle bundle;
+    private final StoryLoader storyLoader;
+    private final ClassLoader classLoader;
+
+    public BundledStoryLoader(StoryBundle bundle, StoryLoader storyLoader) {
+        this(bundle, storyLoader, Thread.currentThread().getContextClassLoader());
+    }
+
+    public BundledStoryLoader(StoryBundle bundle, StoryLoader storyLoader, ClassLoader classLoader) {
+        this.bundle = bundle;
+        this.storyLoader = storyLoader;
+        this.classLoader = classLoader;
+    }
+
+    @Override
+    public String loadStoryAsText(String storyPath) {
+        if (isBundledFromTheCurrentStoryFile(storyPath)) {
+            Optional<String> bundledText = bundle.textOf(storyPath);
+            if (bundledText.isPresent()) {
+                return bundledText.get();
+            }
+        }
+        return storyLoader.loadStoryAsText(storyPath);
+    }
+
+    private boolean isBundledFromTheCurrentStoryFile(String storyPath) {
+        String resourcePath = storyPath.startsWith("/") ? storyPath.substring(1) : storyPath;
+        Optional<StoryBundle.SourceStamp> sourceStamp = StoryBundle.SourceStamp.ofResource(classLoader.getResource(resourcePath));
+        if (sourceStamp.isPresent() && bundle.isUpToDateWith(storyPath, sourceStamp.get())) {
+            return true;
+        }
+        if (bundle.storyPaths().contains(resourcePath)) {
+            LOGGER.debug("{} has changed since the story bundle was written, so it is read from the story file", storyPath);
+        }
+        return false;
+    }
+
+    /**
+     * The story loader reading the stories that are not taken from the bundle, e.g. to forget the text it
+     * cached for stories that have changed.
+     */
+    public StoryLoader getStoryLoader() {
+        return storyLoader;
+    }
+
+    @Override
+    public String loadResourceAsText(String resourcePath) {
+        return storyLoader.loadResourceAsText(resourcePath);
+    }
+}
@@ -0,0 +1,50 @@
+package net.serenitybdd.jbehave.parsing;
+
+import com.google.common.base.Optional;
+import org.jbehave.core.configuration.Keywords;
+import org.jbehave.core.model.ExamplesTableFactory;
+import org.jbehave.core.model.Story;
+import org.jbehave.core.parsers.StoryParser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Takes stories from a story bundle when the bundle holds the same story text, parsed with the same keywords,
+ * and parses any other story with another story parser.
+ */
+public class BundledStoryParser implements StoryParser {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BundledStoryParser.class);
+
+    private final StoryBundle bundle;
+    private final StoryParser parser;
+    private final ExamplesTableFactory tableFactory;
+
+    private BundledStoryParser(StoryBundle bundle, StoryParser parser, ExamplesTableFactory tableFactory) {
+        this.bundle = bundle;
+        this.parser = parser;
+        this.tableFactory = tableFactory;
+    }
+
+    /**
+     * Use the bundled stories if they were parsed with these keywords, and otherwise parse every story with the given parser.
+     */
+    public static StoryParser bundledStoriesOr(StoryParser parser, StoryBundle bundle, Keywords keywords, ExamplesTableFactory tableFactory) {
+        if (!bundle.wasParsedWith(keywords)) {
+            LOGGER.warn("The stories in the story bundle were parsed with other keywords, so they will be parsed again");
+            return parser;
+        }
+        return new BundledStoryParser(bundle, parser, tableFactory);
+    }
+
+    @Override
+    public Story parseStory(String storyAsText) {
+        return parseStory(storyAsText, null);
+    }
+
+    @Override
+    public Story parseStory(String storyAsText, String storyPath) {
+        Optional<Story> bundledStory = bundle.storyOf(storyPath, storyAsText, tableFactory);
+        return bundledStory.isPresent() ? bundledStory.get() : parser.parseStory(storyAsText, storyPath);
+    }
+}
@@ -0,0 +1,124 @@
+package net.serenitybdd.jbehave.parsing;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Optional;
+import com.google.common.hash.Hashing;
+import net.serenitybdd.jbehave.reflection.Extract;
+import org.jbehave.core.configuration.Keywords;
+import org.jbehave.core.model.ExamplesTableFactory;
+import org.jbehave.core.model.Story;
+import org.jbehave.core.parsers.RegexStoryParser;
+import org.jbehave.core.parsers.StoryParser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * A story parser that keeps the stories it parses in a cache directory, so that stories that have not changed
+ * since a previous run do not need to be parsed again. Each story is stored in its own file, named after a hash
+ * of the story text and of the keywords used to parse it, so a story is parsed again as soon as either changes.
+ * <p>
+ * Stories whose examples tables are loaded from separate resources are not cached, as the tables could change
+ * without the story text changing. Unreadable or outdated cache files are ignored and replaced.
+ */
+public class CachingStoryParser implements StoryParser {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CachingStoryParser.class);
+
+    private static final String CACHE_FILE_SUFFIX = ".parsed";
+
+    private final StoryParser parser;
+    private final ParsedStoryFormat format;
+    private final File cacheDirectory;
+    private final String keywordsSignature;
+
+    public CachingStoryParser(StoryParser parser, Keywords keywords, ExamplesTableFactory tableFactory, File cacheDirectory) {
+        this.parser = parser;
+        this.format = new ParsedStoryFormat(tableFactory);
+        this.cacheDirectory = cacheDirectory;
+        this.keywordsSignature = ParsedStoryFormat.signatureOf(keywords);
+    }
+
+    /**
+     * Cache the stories parsed by a parser, if it is a standard {@link RegexStoryParser}.
+     * Other parsers may build their stories in ways that cannot be reproduced from the cache, so they are used as they are.
+     */
+    public static StoryParser cachingStoriesParsedBy(StoryParser parser, File cacheDirectory) {
+        if (parser.getClass() != RegexStoryParser.class) {
+            LOGGER.warn("Parsed stories are only cached for the standard JBehave story parser, not for {}", parser.getClass().getName());
+            return parser;
+        }
+        Keywords keywords = (Keywords) Extract.field("keywords").from(parser);
+        ExamplesTableFactory tableFactory = (ExamplesTableFactory) Extract.field("tableFactory").from(parser);
+        if (keywords == null || tableFactory == null) {
+            return parser;
+        }
+        return new CachingStoryParser(parser, keywords, tableFactory, cacheDirectory);
+    }
+
+    @Override
+    public Story parseStory(String storyAsText) {
+        return parseStory(storyAsText, null);
+    }
+
+    @Override
+    public Story parseStory(String storyAsText, String storyPath) {
+        File cacheFile = cacheFileFor(storyAsText);
+        Optional<Story> cachedStory = storyIn(cacheFile, storyPath);
+        if (cachedStory.isPresent()) {
+            return cachedStory.get();
+        }
+        Story story = parser.parseStory(storyAsText, storyPath);
+        if (ParsedStoryFormat.canBeStored(story, storyAsText)) {
+            save(story, cacheFile);
+        }
+        return story;
+    }
+
+    private File cacheFileFor(String storyAsText) {
+        String hash = Hashing.murmur3_128().newHasher()
+                .putString(keywordsSignature, Charsets.UTF_8)
+                .putString(storyAsText, Charsets.UTF_8)
+                .hash().toString();
+        return new File(cacheDirectory, hash + CACHE_FILE_SUFFIX);
+    }
+
+    private Optional<Story> storyIn(File cacheFile, String storyPath) {
+        if (!cacheFile.isFile()) {
+            return Optional.absent();
+        }
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(cacheFile)))) {
+            if (input.readInt() != ParsedStoryFormat.FORMAT_VERSION) {
+                return Optional.absent();
+            }
+            return Optional.of(format.readStory(input, storyPath));
+        } catch (IOException | RuntimeException e) {
+            LOGGER.debug("Ignoring the unreadable parsed story {} ({})", cacheFile, e.getMessage());
+            return Optional.absent();
+        }
+    }
+
+    private void save(Story story, File cacheFile) {
+        try {
+            Files.createDirectories(cacheDirectory.toPath());
+            File temporaryFile = File.createTempFile(cacheFile.getName(), ".tmp", cacheDirectory);
+            try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporaryFile)))) {
+                output.writeInt(ParsedStoryFormat.FORMAT_VERSION);
+                format.writeStory(output, story);
+            }
+            Files.move(temporaryFile.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOGGER.warn("Could not save the parsed story {} to {} ({})", story.getPath(), cacheFile, e.getMessage());
+        }
+    }
+}
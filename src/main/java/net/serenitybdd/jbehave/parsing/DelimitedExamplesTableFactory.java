@@ -0,0 +1,162 @@
+package net.serenitybdd.jbehave.parsing;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Joiner;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import net.serenitybdd.jbehave.discovery.StoryResourceIndex;
+import org.jbehave.core.configuration.Configuration;
+import org.jbehave.core.configuration.Keywords;
+import org.jbehave.core.io.InvalidStoryResource;
+import org.jbehave.core.io.StoryResourceNotFound;
+import org.jbehave.core.model.ExamplesTable;
+import org.jbehave.core.model.ExamplesTableFactory;
+import org.jbehave.core.model.TableTransformers;
+import org.jbehave.core.steps.ParameterConverters;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Creates examples tables from CSV and TSV files as well as from JBehave tables, e.g.
+ * <pre>
+ * Examples:
+ * data/accounts.csv
+ * </pre>
+ * The first record of the file holds the column headers. Files are read one record at a time and each record
+ * goes straight into a row of the table, rather than converting the whole file into a JBehave table and
+ * parsing that again. CSV values may be quoted, with doubled quotes standing for a quote; TSV values may not.
+ * Values are trimmed, as they are in JBehave tables.
+ */
+public class DelimitedExamplesTableFactory extends ExamplesTableFactory {
+
+    private static final String CSV_SUFFIX = ".csv";
+    private static final String TSV_SUFFIX = ".tsv";
+    private static final char QUOTE = '"';
+
+    private final ClassLoader classLoader;
+    private final ParameterConverters parameterConverters;
+    private final TableTransformers tableTransformers = new TableTransformers();
+
+    public DelimitedExamplesTableFactory(Configuration configuration) {
+        this(configuration, Thread.currentThread().getContextClassLoader());
+    }
+
+    public DelimitedExamplesTableFactory(Configuration configuration, ClassLoader classLoader) {
+        super(configuration);
+        this.classLoader = classLoader;
+        this.parameterConverters = configuration.parameterConverters();
+    }
+
+    @Override
+    public ExamplesTable createExamplesTable(String input) {
+        String resourcePath = (input == null) ? "" : input.trim();
+        if (isTable(resourcePath)) {
+            return super.createExamplesTable(input);
+        }
+        if (resourcePath.toLowerCase().endsWith(CSV_SUFFIX)) {
+            return tableFrom(resourcePath, ',');
+        }
+        if (resourcePath.toLowerCase().endsWith(TSV_SUFFIX)) {
+            return tableFrom(resourcePath, '\t');
+        }
+        return super.createExamplesTable(input);
+    }
+
+    private ExamplesTable tableFrom(String resourcePath, char separator) {
+        URL resource = StoryResourceIndex.on(classLoader).resourceNamed(resourcePath);
+        if (resource == null) {
+            throw new StoryResourceNotFound(resourcePath, classLoader);
+        }
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(resource.openStream(), Charsets.UTF_8))) {
+            List<String> headers = nextRecord(reader, separator);
+            if (headers == null) {
+                return emptyTable("");
+            }
+            List<Map<String, String>> rows = Lists.newArrayList();
+            List<String> values;
+            while ((values = nextRecord(reader, separator)) != null) {
+                Map<String, String> row = Maps.newLinkedHashMap();
+                for (int column = 0; column < headers.size(); column++) {
+                    row.put(headers.get(column), column < values.size() ? values.get(column) : "");
+                }
+                rows.add(row);
+            }
+            if (rows.isEmpty()) {
+                return emptyTable(headerRowOf(headers));
+            }
+            return emptyTable("").withRows(rows);
+        } catch (IOException e) {
+            throw new InvalidStoryResource(resourcePath, e);
+        }
+    }
+
+    private ExamplesTable emptyTable(String tableAsString) {
+        Keywords keywords = keywords();
+        return new ExamplesTable(tableAsString, keywords.examplesTableHeaderSeparator(), keywords.examplesTableValueSeparator(),
+                keywords.examplesTableIgnorableSeparator(), parameterConverters, tableTransformers);
+    }
+
+    private String headerRowOf(List<String> headers) {
+        String separator = keywords().examplesTableHeaderSeparator();
+        return separator + Joiner.on(separator).join(headers) + separator;
+    }
+
+    /**
+     * The values of the next record that is not blank, or null at the end of the file.
+     * A quoted CSV value may run over several lines.
+     */
+    private List<String> nextRecord(BufferedReader reader, char separator) throws IOException {
+        String line;
+        do {
+            line = reader.readLine();
+            if (line == null) {
+                return null;
+            }
+        } while (line.trim().isEmpty());
+
+        List<String> values = Lists.newArrayList();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        int position = 0;
+        while (true) {
+            if (position == line.length()) {
+                if (!quoted) {
+                    break;
+                }
+                line = reader.readLine();
+                if (line == null) {
+                    break;
+                }
+                value.append('\n');
+                position = 0;
+                continue;
+            }
+            char next = line.charAt(position++);
+            if (quoted) {
+                if (next != QUOTE) {
+                    value.append(next);
+                } else if (position < line.length() && line.charAt(position) == QUOTE) {
+                    value.append(QUOTE);
+                    position++;
+                } else {
+                    quoted = false;
+                }
+            } else if (next == separator) {
+                values.add(value.toString().trim());
+                value.setLength(0);
+            } else if (next == QUOTE && separator != '\t' && value.toString().trim().isEmpty()) {
+                value.setLength(0);
+                quoted = true;
+            } else {
+                value.append(next);
+            }
+        }
+        values.add(value.toString().trim());
+        return values;
+    }
+}
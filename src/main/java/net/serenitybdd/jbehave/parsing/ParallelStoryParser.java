@@ -0,0 +1,90 @@
+package net.serenitybdd.jbehave.parsing;
+
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.jbehave.core.configuration.Configuration;
+import org.jbehave.core.embedder.StoryRunner;
+import org.jbehave.core.model.Story;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Loads and parses several stories at the same time, on a pool of at most one thread per processor.
+ * The stories are returned in the same order as their paths, whichever story is parsed first.
+ * The story loader and story parser of the configuration need to be thread-safe, as the standard JBehave ones are.
+ */
+public class ParallelStoryParser {
+
+    private final StoryRunner storyRunner = new StoryRunner();
+    private final Configuration configuration;
+    private final int parallelism;
+
+    public ParallelStoryParser(Configuration configuration) {
+        this(configuration, Runtime.getRuntime().availableProcessors());
+    }
+
+    public ParallelStoryParser(Configuration configuration, int parallelism) {
+        this.configuration = configuration;
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * The parsed stories, in the order of the story paths. If a story cannot be loaded or parsed,
+     * the first such failure in story order is thrown, as it would have been when parsing the stories one at a time.
+     */
+    public List<Story> storiesOf(List<String> storyPaths) {
+        if (storyPaths.isEmpty()) {
+            return Lists.newArrayList();
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, storyPaths.size()),
+                new ThreadFactoryBuilder().setNameFormat("story-parser-%d").setDaemon(true).build());
+        try {
+            List<Future<Story>> parsedStories = Lists.newArrayListWithCapacity(storyPaths.size());
+            for (String storyPath : storyPaths) {
+                parsedStories.add(executor.submit(new ParseStory(storyPath)));
+            }
+            List<Story> stories = Lists.newArrayListWithCapacity(storyPaths.size());
+            for (Future<Story> parsedStory : parsedStories) {
+                stories.add(resultOf(parsedStory));
+            }
+            return stories;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Story resultOf(Future<Story> parsedStory) {
+        try {
+            return parsedStory.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while parsing stories", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private class ParseStory implements Callable<Story> {
+        private final String storyPath;
+
+        private ParseStory(String storyPath) {
+            this.storyPath = storyPath;
+        }
+
+        @Override
+        public Story call() {
+            return storyRunner.storyOfPath(configuration, storyPath);
+        }
+    }
+}
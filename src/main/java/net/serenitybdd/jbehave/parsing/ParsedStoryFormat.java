@@ -0,0 +1,212 @@
+package net.serenitybdd.jbehave.parsing;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.Lists;
+import org.jbehave.core.annotations.AfterScenario.Outcome;
+import org.jbehave.core.configuration.Keywords;
+import org.jbehave.core.i18n.LocalizedKeywords;
+import org.jbehave.core.model.Description;
+import org.jbehave.core.model.ExamplesTable;
+import org.jbehave.core.model.ExamplesTableFactory;
+import org.jbehave.core.model.GivenStories;
+import org.jbehave.core.model.Lifecycle;
+import org.jbehave.core.model.Meta;
+import org.jbehave.core.model.Narrative;
+import org.jbehave.core.model.Scenario;
+import org.jbehave.core.model.Story;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * The binary form of parsed stories, shared by the story cache and the story bundles.
+ * Examples tables are stored as text and created again by the table factory when the story is read.
+ */
+class ParsedStoryFormat {
+
+    static final int FORMAT_VERSION = 1;
+
+    private final ExamplesTableFactory tableFactory;
+
+    ParsedStoryFormat(ExamplesTableFactory tableFactory) {
+        this.tableFactory = tableFactory;
+    }
+
+    /**
+     * Stories parsed with other keywords, or keywords for another locale, need to be parsed again.
+     */
+    static String signatureOf(Keywords keywords) {
+        String locale = (keywords instanceof LocalizedKeywords) ? ((LocalizedKeywords) keywords).getLocale().toString() : "";
+        return locale + ":" + keywords.toString();
+    }
+
+    /**
+     * Stories whose examples tables are loaded from separate resources cannot be stored,
+     * as the tables could change without the story text changing.
+     */
+    static boolean canBeStored(Story story, String storyAsText) {
+        for (Scenario scenario : story.getScenarios()) {
+            if (!storyAsText.contains(scenario.getExamplesTable().asString())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    void writeStory(DataOutput output, Story story) throws IOException {
+        writeText(output, story.getDescription().asString());
+        writeMeta(output, story.getMeta());
+        writeNarrative(output, story.getNarrative());
+        writeText(output, story.getGivenStories().asString());
+        writeLifecycle(output, story.getLifecycle());
+        output.writeInt(story.getScenarios().size());
+        for (Scenario scenario : story.getScenarios()) {
+            writeText(output, scenario.getTitle());
+            writeMeta(output, scenario.getMeta());
+            writeText(output, scenario.getGivenStories().asString());
+            writeText(output, scenario.getExamplesTable().asString());
+            writeSteps(output, scenario.getSteps());
+        }
+    }
+
+    Story readStory(DataInput input, String storyPath) throws IOException {
+        String description = readText(input);
+        Meta meta = readMeta(input);
+        Narrative narrative = readNarrative(input);
+        GivenStories givenStories = new GivenStories(readText(input));
+        Lifecycle lifecycle = readLifecycle(input);
+        int scenarioCount = input.readInt();
+        List<Scenario> scenarios = Lists.newArrayListWithCapacity(scenarioCount);
+        for (int i = 0; i < scenarioCount; i++) {
+            scenarios.add(readScenario(input));
+        }
+        Story story = new Story(storyPath,
+                                description.isEmpty() ? Description.EMPTY : new Description(description),
+                                meta, narrative, givenStories, lifecycle, scenarios);
+        if (storyPath != null) {
+            story.namedAs(new File(storyPath).getName());
+        }
+        return story;
+    }
+
+    private Scenario readScenario(DataInput input) throws IOException {
+        String title = readText(input);
+        Meta meta = readMeta(input);
+        GivenStories givenStories = new GivenStories(readText(input));
+        ExamplesTable examplesTable = tableFactory.createExamplesTable(readText(input));
+        if (givenStories.requireParameters()) {
+            givenStories.useExamplesTable(examplesTable);
+        }
+        List<String> steps = readSteps(input);
+        return new Scenario(title, meta, givenStories, examplesTable, steps);
+    }
+
+    private void writeMeta(DataOutput output, Meta meta) throws IOException {
+        output.writeInt(meta.getPropertyNames().size());
+        for (String name : meta.getPropertyNames()) {
+            writeText(output, name);
+            writeText(output, meta.getProperty(name));
+        }
+    }
+
+    private Meta readMeta(DataInput input) throws IOException {
+        int propertyCount = input.readInt();
+        if (propertyCount == 0) {
+            return Meta.EMPTY;
+        }
+        Properties properties = new Properties();
+        for (int i = 0; i < propertyCount; i++) {
+            properties.setProperty(readText(input), readText(input));
+        }
+        return new Meta(properties);
+    }
+
+    private void writeNarrative(DataOutput output, Narrative narrative) throws IOException {
+        output.writeBoolean(narrative == Narrative.EMPTY);
+        if (narrative != Narrative.EMPTY) {
+            writeText(output, narrative.inOrderTo());
+            writeText(output, narrative.asA());
+            writeText(output, narrative.iWantTo());
+            writeText(output, narrative.soThat());
+        }
+    }
+
+    private Narrative readNarrative(DataInput input) throws IOException {
+        if (input.readBoolean()) {
+            return Narrative.EMPTY;
+        }
+        return new Narrative(readText(input), readText(input), readText(input), readText(input));
+    }
+
+    /**
+     * The after steps are grouped by outcome, which is how JBehave looks them up when running a scenario.
+     * Lifecycles with only before steps have an empty group of after steps with no outcome, which is left out.
+     */
+    private void writeLifecycle(DataOutput output, Lifecycle lifecycle) throws IOException {
+        output.writeBoolean(lifecycle.isEmpty());
+        if (lifecycle.isEmpty()) {
+            return;
+        }
+        writeSteps(output, lifecycle.getBeforeSteps());
+        List<Outcome> outcomes = Lists.newArrayList(lifecycle.getOutcomes());
+        outcomes.remove(null);
+        output.writeInt(outcomes.size());
+        for (Outcome outcome : outcomes) {
+            writeText(output, outcome.name());
+            writeText(output, lifecycle.getMetaFilter(outcome).asString());
+            writeSteps(output, lifecycle.getAfterSteps(outcome));
+        }
+    }
+
+    private Lifecycle readLifecycle(DataInput input) throws IOException {
+        if (input.readBoolean()) {
+            return Lifecycle.EMPTY;
+        }
+        Lifecycle.Steps beforeSteps = new Lifecycle.Steps(readSteps(input));
+        int outcomeCount = input.readInt();
+        Lifecycle.Steps[] afterSteps = new Lifecycle.Steps[outcomeCount];
+        for (int i = 0; i < outcomeCount; i++) {
+            Outcome outcome = Outcome.valueOf(readText(input));
+            String metaFilter = readText(input);
+            afterSteps[i] = new Lifecycle.Steps(outcome,
+                                                metaFilter.isEmpty() ? null : metaFilter,
+                                                readSteps(input));
+        }
+        return new Lifecycle(beforeSteps, afterSteps);
+    }
+
+    private void writeSteps(DataOutput output, List<String> steps) throws IOException {
+        output.writeInt(steps.size());
+        for (String step : steps) {
+            writeText(output, step);
+        }
+    }
+
+    private List<String> readSteps(DataInput input) throws IOException {
+        int stepCount = input.readInt();
+        List<String> steps = Lists.newArrayListWithCapacity(stepCount);
+        for (int i = 0; i < stepCount; i++) {
+            steps.add(readText(input));
+        }
+        return steps;
+    }
+
+    /**
+     * Story text can be longer than {@link DataOutput#writeUTF(String)} allows, e.g. for large examples tables.
+     */
+    static void writeText(DataOutput output, String text) throws IOException {
+        byte[] bytes = text.getBytes(Charsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    static String readText(DataInput input) throws IOException {
+        byte[] bytes = new byte[input.readInt()];
+        input.readFully(bytes);
+        return new String(bytes, Charsets.UTF_8);
+    }
+}
@@ -0,0 +1,311 @@
+package net.serenitybdd.jbehave.parsing;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Optional;
+import com.google.common.collect.Maps;
+import com.google.common.hash.Hashing;
+import org.jbehave.core.configuration.Keywords;
+import org.jbehave.core.model.ExamplesTableFactory;
+import org.jbehave.core.model.Story;
+import org.jbehave.core.parsers.StoryParser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A single file holding the text of many stories, and the stories parsed from them, so that a test run
+ * does not need to read and parse each story file. The bundle is mapped into memory when it is opened,
+ * but only its index is read straight away: story texts and parsed stories are read when they are asked for.
+ * <p>
+ * The file starts with the format version, the signature of the keywords the stories were parsed with
+ * and the index, which gives the position of the text and of the parsed story for each story path,
+ * along with a hash of the text and the {@link SourceStamp} of the story file it was read from.
+ * Stories that cannot be stored, such as those with examples tables in separate resources, only have
+ * their text in the bundle.
+ */
+public class StoryBundle {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(StoryBundle.class);
+
+    private static final int FORMAT_VERSION = 2;
+    private static final int NOT_PARSED = -1;
+
+    private final ByteBuffer contents;
+    private final String keywordsSignature;
+    private final Map<String, Entry> entries;
+
+    private StoryBundle(ByteBuffer contents, String keywordsSignature, Map<String, Entry> entries) {
+        this.contents = contents;
+        this.keywordsSignature = keywordsSignature;
+        this.entries = entries;
+    }
+
+    /**
+     * Map a bundle written by {@link #write(File, Map, Keywords, StoryParser)} into memory and read its index.
+     */
+    public static StoryBundle open(File bundleFile) throws IOException {
+        ByteBuffer contents;
+        try (FileChannel channel = FileChannel.open(bundleFile.toPath(), StandardOpenOption.READ)) {
+            contents = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        DataInputStream input = inputAt(contents, 0);
+        int version = input.readInt();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Unsupported story bundle format " + version + " in " + bundleFile);
+        }
+        String keywordsSignature = ParsedStoryFormat.readText(input);
+        int storyCount = input.readInt();
+        Map<String, Entry> entries = Maps.newHashMapWithExpectedSize(storyCount);
+        for (int i = 0; i < storyCount; i++) {
+            String storyPath = ParsedStoryFormat.readText(input);
+            long textHash = input.readLong();
+            SourceStamp sourceStamp = new SourceStamp(input.readLong(), input.readLong());
+            entries.put(storyPath, new Entry(textHash, sourceStamp, input.readInt(), input.readInt()));
+        }
+        return new StoryBundle(contents, keywordsSignature, entries);
+    }
+
+    /**
+     * Write the stories with the given paths and texts to a bundle, parsing each of them with the given parser.
+     * Stories that cannot be parsed are only stored as text, and will be parsed when they are run.
+     * As the story files they come from are not known, their text is never taken from the bundle.
+     */
+    public static void write(File bundleFile, Map<String, String> storyTexts, Keywords keywords, StoryParser parser) throws IOException {
+        write(bundleFile, storyTexts, Collections.<String, SourceStamp>emptyMap(), keywords, parser);
+    }
+
+    /**
+     * Write the stories with the given paths and texts to a bundle, along with the stamps of the story files
+     * they were read from, so that stories whose files have changed since are read from their files again.
+     */
+    public static void write(File bundleFile, Map<String, String> storyTexts, Map<String, SourceStamp> sourceStamps,
+                             Keywords keywords, StoryParser parser) throws IOException {
+        ParsedStoryFormat format = new ParsedStoryFormat(new ExamplesTableFactory(keywords));
+        ByteArrayOutputStream data = new ByteArrayOutputStream();
+        DataOutputStream dataOutput = new DataOutputStream(data);
+        Map<String, Entry> entries = Maps.newLinkedHashMap();
+        for (Map.Entry<String, String> story : storyTexts.entrySet()) {
+            String storyPath = relative(story.getKey());
+            String storyAsText = story.getValue();
+            int textPosition = dataOutput.size();
+            ParsedStoryFormat.writeText(dataOutput, storyAsText);
+            int storyPosition = NOT_PARSED;
+            Optional<Story> parsedStory = parsed(parser, storyAsText, storyPath);
+            if (parsedStory.isPresent()) {
+                storyPosition = dataOutput.size();
+                format.writeStory(dataOutput, parsedStory.get());
+            }
+            SourceStamp sourceStamp = sourceStamps.containsKey(story.getKey()) ? sourceStamps.get(story.getKey()) : SourceStamp.UNKNOWN;
+            entries.put(storyPath, new Entry(hashOf(storyAsText), sourceStamp, textPosition, storyPosition));
+        }
+        dataOutput.flush();
+
+        ByteArrayOutputStream index = new ByteArrayOutputStream();
+        DataOutputStream indexOutput = new DataOutputStream(index);
+        indexOutput.writeInt(FORMAT_VERSION);
+        ParsedStoryFormat.writeText(indexOutput, ParsedStoryFormat.signatureOf(keywords));
+        indexOutput.writeInt(entries.size());
+        int indexSize = indexOutput.size();
+        for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+            indexSize += 4 + entry.getKey().getBytes(Charsets.UTF_8).length + 8 + 8 + 8 + 4 + 4;
+        }
+        for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+            Entry position = entry.getValue();
+            ParsedStoryFormat.writeText(indexOutput, entry.getKey());
+            indexOutput.writeLong(position.textHash);
+            indexOutput.writeLong(position.sourceStamp.size);
+            indexOutput.writeLong(position.sourceStamp.lastModified);
+            indexOutput.writeInt(indexSize + position.textPosition);
+            indexOutput.writeInt(position.storyPosition == NOT_PARSED ? NOT_PARSED : indexSize + position.storyPosition);
+        }
+        indexOutput.flush();
+
+        File directory = bundleFile.getAbsoluteFile().getParentFile();
+        Files.createDirectories(directory.toPath());
+        File temporaryFile = File.createTempFile(bundleFile.getName(), ".tmp", directory);
+        try (BufferedOutputStream output = new BufferedOutputStream(new FileOutputStream(temporaryFile))) {
+            index.writeTo(output);
+            data.writeTo(output);
+        }
+        Files.move(temporaryFile.toPath(), bundleFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static Optional<Story> parsed(StoryParser parser, String storyAsText, String storyPath) {
+        try {
+            Story story = parser.parseStory(storyAsText, storyPath);
+            return ParsedStoryFormat.canBeStored(story, storyAsText) ? Optional.of(story) : Optional.<Story>absent();
+        } catch (RuntimeException e) {
+            LOGGER.warn("Only the text of {} is bundled, as it could not be parsed ({})", storyPath, e.getMessage());
+            return Optional.absent();
+        }
+    }
+
+    public Set<String> storyPaths() {
+        return Collections.unmodifiableSet(entries.keySet());
+    }
+
+    /**
+     * Were the stories in this bundle parsed with these keywords?
+     */
+    public boolean wasParsedWith(Keywords keywords) {
+        return keywordsSignature.equals(ParsedStoryFormat.signatureOf(keywords));
+    }
+
+    /**
+     * Was the story with this path bundled from a story file with the given stamp?
+     */
+    public boolean isUpToDateWith(String storyPath, SourceStamp sourceStamp) {
+        Entry entry = entries.get(relative(storyPath));
+        return entry != null && entry.sourceStamp.isKnown() && entry.sourceStamp.equals(sourceStamp);
+    }
+
+    public Optional<String> textOf(String storyPath) {
+        Entry entry = entries.get(relative(storyPath));
+        if (entry == null) {
+            return Optional.absent();
+        }
+        try {
+            return Optional.of(ParsedStoryFormat.readText(inputAt(contents, entry.textPosition)));
+        } catch (IOException e) {
+            LOGGER.debug("Could not read the text of {} from the story bundle ({})", storyPath, e.getMessage());
+            return Optional.absent();
+        }
+    }
+
+    /**
+     * The bundled story with this path, provided that it was parsed from the same text.
+     */
+    public Optional<Story> storyOf(String storyPath, String storyAsText, ExamplesTableFactory tableFactory) {
+        Entry entry = (storyPath == null) ? null : entries.get(relative(storyPath));
+        if (entry == null || entry.storyPosition == NOT_PARSED || entry.textHash != hashOf(storyAsText)) {
+            return Optional.absent();
+        }
+        try {
+            return Optional.of(new ParsedStoryFormat(tableFactory).readStory(inputAt(contents, entry.storyPosition), storyPath));
+        } catch (IOException | RuntimeException e) {
+            LOGGER.debug("Could not read the parsed story {} from the story bundle ({})", storyPath, e.getMessage());
+            return Optional.absent();
+        }
+    }
+
+    private static String relative(String storyPath) {
+        return storyPath.startsWith("/") ? storyPath.substring(1) : storyPath;
+    }
+
+    private static long hashOf(String storyAsText) {
+        return Hashing.murmur3_128().hashString(storyAsText, Charsets.UTF_8).asLong();
+    }
+
+    private static DataInputStream inputAt(ByteBuffer contents, int position) {
+        ByteBuffer view = contents.duplicate();
+        view.position(position);
+        return new DataInputStream(new ByteBufferInputStream(view));
+    }
+
+    /**
+     * The size and last modification time of a story file, used to tell whether it changed since it was bundled.
+     */
+    public static final class SourceStamp {
+        static final SourceStamp UNKNOWN = new SourceStamp(-1, -1);
+
+        private final long size;
+        private final long lastModified;
+
+        private SourceStamp(long size, long lastModified) {
+            this.size = size;
+            this.lastModified = lastModified;
+        }
+
+        public static SourceStamp of(File storyFile) {
+            return new SourceStamp(storyFile.length(), storyFile.lastModified());
+        }
+
+        /**
+         * The stamp of a story resource, if it is a file: stories in jars or elsewhere have no stamp.
+         */
+        public static Optional<SourceStamp> ofResource(URL storyResource) {
+            if (storyResource == null || !"file".equals(storyResource.getProtocol())) {
+                return Optional.absent();
+            }
+            try {
+                File storyFile = new File(storyResource.toURI());
+                return storyFile.isFile() ? Optional.of(of(storyFile)) : Optional.<SourceStamp>absent();
+            } catch (URISyntaxException | IllegalArgumentException e) {
+                return Optional.absent();
+            }
+        }
+
+        private boolean isKnown() {
+            return size >= 0;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof SourceStamp)) {
+                return false;
+            }
+            SourceStamp otherStamp = (SourceStamp) other;
+            return size == otherStamp.size && lastModified == otherStamp.lastModified;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Long.valueOf(size).hashCode() + Long.valueOf(lastModified).hashCode();
+        }
+    }
+
+    private static class Entry {
+        private final long textHash;
+        private final SourceStamp sourceStamp;
+        private final int textPosition;
+        private final int storyPosition;
+
+        private Entry(long textHash, SourceStamp sourceStamp, int textPosition, int storyPosition) {
+            this.textHash = textHash;
+            this.sourceStamp = sourceStamp;
+            this.textPosition = textPosition;
+            this.storyPosition = storyPosition;
+        }
+    }
+
+    private static class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer bytes;
+
+        private ByteBufferInputStream(ByteBuffer bytes) {
+            this.bytes = bytes;
+        }
+
+        @Override
+        public int read() {
+            return bytes.hasRemaining() ? bytes.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) {
+            if (!bytes.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(length, bytes.remaining());
+            bytes.get(buffer, offset, count);
+            return count;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package net.serenitybdd.jbehave.parsing;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.Maps;
+import org.jbehave.core.configuration.Configuration;
+import org.jbehave.core.configuration.MostUsefulConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+
+/**
+ * Writes the stories found under one or more resource directories to a story bundle, e.g. as part of a build:
+ * <pre>
+ * java net.serenitybdd.jbehave.parsing.StoryBundleCompiler build/stories.bundle build/resources/test
+ * </pre>
+ * Stories are named by their path relative to the resource directory they are in, as they are on the classpath,
+ * and are parsed with the default JBehave keywords.
+ */
+public class StoryBundleCompiler {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(StoryBundleCompiler.class);
+
+    private static final String STORY_SUFFIX = ".story";
+
+    private final Configuration configuration;
+
+    public StoryBundleCompiler(Configuration configuration) {
+        this.configuration = configuration;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: StoryBundleCompiler <bundle file> <resource directory>...");
+            System.exit(1);
+        }
+        File[] resourceDirectories = new File[args.length - 1];
+        for (int i = 1; i < args.length; i++) {
+            resourceDirectories[i - 1] = new File(args[i]);
+        }
+        new StoryBundleCompiler(new MostUsefulConfiguration()).compile(new File(args[0]), resourceDirectories);
+    }
+
+    /**
+     * The stamps of the story files are bundled with them, so that the bundled text of stories edited after
+     * the bundle was written is not used.
+     */
+    public void compile(File bundleFile, File... resourceDirectories) throws IOException {
+        Map<String, String> storyTexts = Maps.newTreeMap();
+        Map<String, StoryBundle.SourceStamp> sourceStamps = Maps.newHashMap();
+        for (File resourceDirectory : resourceDirectories) {
+            if (resourceDirectory.isDirectory()) {
+                readStoriesIn(resourceDirectory.toPath(), storyTexts, sourceStamps);
+            }
+        }
+        StoryBundle.write(bundleFile, storyTexts, sourceStamps, configuration.keywords(), configuration.storyParser());
+        LOGGER.info("Bundled {} stories in {}", storyTexts.size(), bundleFile);
+    }
+
+    private void readStoriesIn(final Path resourceDirectory, final Map<String, String> storyTexts,
+                               final Map<String, StoryBundle.SourceStamp> sourceStamps) throws IOException {
+        Files.walkFileTree(resourceDirectory, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) throws IOException {
+                if (file.getFileName().toString().endsWith(STORY_SUFFIX)) {
+                    String storyPath = resourceDirectory.relativize(file).toString().replace(File.separatorChar, '/');
+                    sourceStamps.put(storyPath, StoryBundle.SourceStamp.of(file.toFile()));
+                    storyTexts.put(storyPath, new String(Files.readAllBytes(file), Charsets.UTF_8));
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+}
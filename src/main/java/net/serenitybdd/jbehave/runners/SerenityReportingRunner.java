@@ -2,14 +2,23 @@ package net.serenitybdd.jbehave.runners;
 
 import com.google.common.base.Optional;
 import com.google.common.base.Splitter;
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import de.codecentric.jbehave.junit.monitoring.JUnitDescriptionGenerator;
 import de.codecentric.jbehave.junit.monitoring.JUnitScenarioReporter;
 import net.serenitybdd.jbehave.SerenityJBehaveSystemProperties;
+import net.serenitybdd.jbehave.SerenityStepFactory;
 import net.serenitybdd.jbehave.SerenityStories;
+import net.serenitybdd.jbehave.UTF8StoryLoader;
 import net.serenitybdd.jbehave.annotations.Metafilter;
 import net.serenitybdd.jbehave.embedders.ExtendedEmbedder;
 import net.serenitybdd.jbehave.embedders.monitors.ReportingEmbedderMonitor;
+import net.serenitybdd.jbehave.parsing.BundledStoryLoader;
+import net.serenitybdd.jbehave.parsing.ParallelStoryParser;
+import net.serenitybdd.jbehave.watch.AffectedStoryFinder;
+import net.serenitybdd.jbehave.watch.ReloadingClassLoader;
+import net.serenitybdd.jbehave.watch.StoryChangeWatcher;
+import net.serenitybdd.jbehave.watch.StoryChanges;
 import net.thucydides.core.guice.Injectors;
 import net.thucydides.core.steps.StepEventBus;
 import net.thucydides.core.util.EnvironmentVariables;
@@ -19,6 +28,8 @@ import org.jbehave.core.ConfigurableEmbedder;
 import org.jbehave.core.configuration.Configuration;
 import org.jbehave.core.embedder.Embedder;
 import org.jbehave.core.embedder.StoryRunner;
+import org.jbehave.core.io.CodeLocations;
+import org.jbehave.core.io.StoryLoader;
 import org.jbehave.core.io.StoryPathResolver;
 import org.jbehave.core.junit.JUnitStories;
 import org.jbehave.core.junit.JUnitStory;
@@ -34,8 +45,11 @@ import org.junit.runner.notification.RunNotifier;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
+import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.net.URL;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -48,6 +62,8 @@ public class SerenityReportingRunner extends Runner {
     private static final Logger logger = LoggerFactory.getLogger(SerenityReportingRunner.class);
 
 	private List<Description> storyDescriptions;
+	private List<Story> describedStories;
+	private boolean stepsDescribed;
 	private ExtendedEmbedder configuredEmbedder;
 	private List<String> storyPaths;
 	private Configuration configuration;
@@ -143,11 +159,13 @@ public class SerenityReportingRunner extends Runner {
 
     private int testCount = 0;
 
+    /**
+     * The number of tests counted while describing the stories. When the step descriptions are deferred,
+     * this is an estimate until the stories are run.
+     */
 	@Override
 	public int testCount() {
-        if (testCount == 0) {
-            testCount = countStories();
-        }
+        getDescriptions();
         return testCount;
     }
 
@@ -164,6 +182,7 @@ public class SerenityReportingRunner extends Runner {
             getConfiguredEmbedder().useMetaFilters(getMetaFilters());
         }
 
+        describeSteps();
         JUnitScenarioReporter junitReporter = new JUnitScenarioReporter(notifier, testCount(), getDescription(),
                 getConfiguredEmbedder().configuration().keywords());
 		// tell the reporter how to handle pending steps
@@ -172,18 +191,127 @@ public class SerenityReportingRunner extends Runner {
 		addToStoryReporterFormats(junitReporter);
 
 		try {
-            getConfiguredEmbedder().runStoriesAsPaths(getStoryPaths());
+            getConfiguredEmbedder().runRegisteredStories(getStoryPaths());
 		} catch (Throwable e) {
-			throw new RuntimeException(e);
+            if (!watchingStories()) {
+                throw new RuntimeException(e);
+            }
+            LOGGER.error("Stories failed", e);
 		} finally {
             if (usingUniqueBrowser()) {
                 ThucydidesWebDriverSupport.closeAllDrivers();
             }
             getConfiguredEmbedder().generateCrossReference();
 		}
+        if (watchingStories()) {
+            rerunStoriesAsTheyChange();
+        }
         shutdownTestSuite();
     }
 
+    /**
+     * Keep the parsed stories and the story index from the first run, and run the affected stories again
+     * whenever story files or step classes change, until the thread is interrupted.
+     */
+    private void rerunStoriesAsTheyChange() {
+        ClassLoader originalClassLoader = Thread.currentThread().getContextClassLoader();
+        List<URL> classpathDirectories = classpathDirectories();
+        try (StoryChangeWatcher watcher = StoryChangeWatcher.watching(filesAt(classpathDirectories))) {
+            LOGGER.info("Watching {} for changes to stories and step classes", classpathDirectories);
+            while (!Thread.currentThread().isInterrupted()) {
+                rerunStoriesAffectedBy(watcher.waitForChanges(), classpathDirectories, originalClassLoader);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            LOGGER.error("Could not watch the classpath for changes", e);
+        } finally {
+            Thread.currentThread().setContextClassLoader(originalClassLoader);
+        }
+    }
+
+    private void rerunStoriesAffectedBy(StoryChanges changes, List<URL> classpathDirectories, ClassLoader originalClassLoader) {
+        forgetTheTextOfStoriesIn(changes);
+        List<CandidateSteps> stepsBeforeTheChanges = getCandidateSteps();
+        if (changes.includeClasses()) {
+            reloadStepClasses(new ReloadingClassLoader(classpathDirectories, originalClassLoader));
+        }
+        List<Story> watchedStories = watchedStoriesAfter(changes);
+        List<CandidateSteps> stepsBeforeAndAfterTheChanges = Lists.newArrayList(Iterables.concat(stepsBeforeTheChanges, getCandidateSteps()));
+        List<String> affectedStoryPaths = new AffectedStoryFinder(stepsBeforeAndAfterTheChanges).storiesAffectedBy(changes, watchedStories);
+        if (affectedStoryPaths.isEmpty()) {
+            LOGGER.info("No stories affected by changes to {}", changes);
+            return;
+        }
+        LOGGER.info("Running {} again after changes to {}", affectedStoryPaths, changes);
+        getConfiguredEmbedder().rerunStories(affectedStoryPaths);
+        if (usingUniqueBrowser()) {
+            ThucydidesWebDriverSupport.closeAllDrivers();
+        }
+    }
+
+    /**
+     * Changed stories are not read from a story bundle, so the loader wrapped by a bundled story loader
+     * is the one holding their earlier text.
+     */
+    private void forgetTheTextOfStoriesIn(StoryChanges changes) {
+        StoryLoader storyLoader = getConfiguration().storyLoader();
+        if (storyLoader instanceof BundledStoryLoader) {
+            storyLoader = ((BundledStoryLoader) storyLoader).getStoryLoader();
+        }
+        if (storyLoader instanceof UTF8StoryLoader) {
+            ((UTF8StoryLoader) storyLoader).forget(changes.getStoryPaths());
+        }
+    }
+
+    private void reloadStepClasses(ClassLoader reloadingClassLoader) {
+        SerenityStepFactory.resetAllContexts();
+        Thread.currentThread().setContextClassLoader(reloadingClassLoader);
+        getConfiguredEmbedder().useStepsFactory(configurableEmbedder.stepsFactory());
+        candidateSteps = null;
+    }
+
+    private List<Story> watchedStoriesAfter(StoryChanges changes) {
+        StoryRunner storyRunner = new StoryRunner();
+        List<Story> watchedStories = Lists.newArrayList();
+        for (String storyPath : getStoryPaths()) {
+            if (changes.includeStory(storyPath)) {
+                try {
+                    this.extendedEmbedder.registerStory(storyPath, storyRunner.storyOfPath(getConfiguration(), storyPath));
+                } catch (RuntimeException e) {
+                    LOGGER.warn("Could not reload the story " + storyPath, e);
+                }
+            }
+            Story story = this.extendedEmbedder.findStory(storyPath);
+            if (story != null) {
+                watchedStories.add(story);
+            }
+        }
+        return watchedStories;
+    }
+
+    private List<URL> classpathDirectories() {
+        List<URL> classpathDirectories = Lists.newArrayList();
+        for (URL classpathRoot : ((SerenityStories) configurableEmbedder).getClasspathRoots()) {
+            if ("file".equals(classpathRoot.getProtocol()) && new File(CodeLocations.getPathFromURL(classpathRoot)).isDirectory()) {
+                classpathDirectories.add(classpathRoot);
+            }
+        }
+        return classpathDirectories;
+    }
+
+    private List<File> filesAt(List<URL> classpathDirectories) {
+        List<File> files = Lists.newArrayList();
+        for (URL classpathDirectory : classpathDirectories) {
+            files.add(new File(CodeLocations.getPathFromURL(classpathDirectory)));
+        }
+        return files;
+    }
+
+    private boolean watchingStories() {
+        return environmentVariables.getPropertyAsBoolean(SerenityJBehaveSystemProperties.WATCH_STORIES.getName(), false);
+    }
+
     /**
      * Override this method to add custom configuration to the JBehave embedder object.
      * @param configuredEmbedder
@@ -269,37 +397,66 @@ public class SerenityReportingRunner extends Runner {
 	}
 
 	private List<Description> buildDescriptionFromStories() {
-		JUnitDescriptionGenerator descriptionGenerator = new JUnitDescriptionGenerator(getCandidateSteps(), getConfiguration());
-        StoryRunner storyRunner = new StoryRunner();
 		List<Description> storyDescriptions = new ArrayList<>();
 
 		addSuite(storyDescriptions, "BeforeStories");
-		addStories(storyDescriptions, storyRunner, descriptionGenerator);
+		addStories(storyDescriptions);
 		addSuite(storyDescriptions, "AfterStories");
 
 		return storyDescriptions;
 	}
 
-    private int countStories() {
-        JUnitDescriptionGenerator descriptionGenerator = new JUnitDescriptionGenerator(getCandidateSteps(), getConfiguration());
-        return descriptionGenerator.getTestCases() + beforeAndAfterStorySteps();
-    }
-
     private int beforeAndAfterStorySteps() {
         return 2;
     }
 
-    private void addStories(List<Description> storyDescriptions,
-			StoryRunner storyRunner, JUnitDescriptionGenerator gen) {
-
-        for (String storyPath : getStoryPaths()) {
-            Story parseStory = storyRunner.storyOfPath(getConfiguration(), storyPath);
-            this.extendedEmbedder.registerStory(storyPath,parseStory);
-            Description descr = gen.createDescriptionFrom(parseStory);
-            storyDescriptions.add(descr);
-		}
+    /**
+     * The stories are parsed in parallel, but the descriptions are numbered as they are created,
+     * so they are still created one story at a time, in story order.
+     * Unless the step descriptions are deferred, the steps of every story are matched against the step candidates here.
+     */
+    private void addStories(List<Description> storyDescriptions) {
+        List<String> storyPaths = getStoryPaths();
+        describedStories = new ParallelStoryParser(getConfiguration()).storiesOf(storyPaths);
+        for (int i = 0; i < storyPaths.size(); i++) {
+            this.extendedEmbedder.registerStory(storyPaths.get(i), describedStories.get(i));
+        }
+        if (deferringStepDescriptions()) {
+            StoryDescriptionSkeleton skeleton = new StoryDescriptionSkeleton(getConfiguration());
+            for (Story story : describedStories) {
+                storyDescriptions.add(skeleton.createDescriptionFrom(story));
+            }
+            testCount = skeleton.getEstimatedTestCases() + beforeAndAfterStorySteps();
+        } else {
+            JUnitDescriptionGenerator descriptionGenerator = new JUnitDescriptionGenerator(getCandidateSteps(), getConfiguration());
+            for (Story story : describedStories) {
+                storyDescriptions.add(descriptionGenerator.createDescriptionFrom(story));
+            }
+            testCount = descriptionGenerator.getTestCases() + beforeAndAfterStorySteps();
+            stepsDescribed = true;
+        }
 	}
 
+    /**
+     * Add the step descriptions deferred when the stories were first described, just before the stories run.
+     */
+    private void describeSteps() {
+        List<Description> descriptions = getDescriptions();
+        if (stepsDescribed) {
+            return;
+        }
+        JUnitDescriptionGenerator descriptionGenerator = new JUnitDescriptionGenerator(getCandidateSteps(), getConfiguration());
+        for (int i = 0; i < describedStories.size(); i++) {
+            StoryDescriptionSkeleton.complete(descriptions.get(i + 1), descriptionGenerator.createDescriptionFrom(describedStories.get(i)));
+        }
+        testCount = descriptionGenerator.getTestCases() + beforeAndAfterStorySteps();
+        stepsDescribed = true;
+    }
+
+    private boolean deferringStepDescriptions() {
+        return environmentVariables.getPropertyAsBoolean(SerenityJBehaveSystemProperties.DEFER_STEP_DESCRIPTIONS.getName(), false);
+    }
+
 	private void addSuite(List<Description> storyDescriptions, String name) {
 		storyDescriptions.add(Description.createTestDescription(Object.class,
 				name));
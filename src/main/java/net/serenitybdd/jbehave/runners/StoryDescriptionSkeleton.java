@@ -0,0 +1,106 @@
+package net.serenitybdd.jbehave.runners;
+
+import de.codecentric.jbehave.junit.monitoring.JUnitDescriptionGenerator;
+import org.jbehave.core.configuration.Configuration;
+import org.jbehave.core.configuration.Keywords;
+import org.jbehave.core.model.ExamplesTable;
+import org.jbehave.core.model.Scenario;
+import org.jbehave.core.model.Story;
+import org.jbehave.core.steps.CandidateSteps;
+import org.junit.runner.Description;
+
+import java.lang.annotation.Annotation;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Describes stories down to their scenarios, given stories and example rows, without matching the steps
+ * against the step candidates. The step descriptions are added later, with {@link #complete(Description, Description)},
+ * from the full descriptions created by a {@link JUnitDescriptionGenerator}.
+ * <p>
+ * The names follow the same rules as the full descriptions, and the number of tests is estimated by counting
+ * each step that starts with a keyword as one test, as the full descriptions do for all but composite steps.
+ */
+public class StoryDescriptionSkeleton {
+
+    private final Keywords keywords;
+    private final JUnitDescriptionGenerator names;
+    private int estimatedTestCases;
+
+    public StoryDescriptionSkeleton(Configuration configuration) {
+        this.keywords = configuration.keywords();
+        this.names = new JUnitDescriptionGenerator(Collections.<CandidateSteps>emptyList(), configuration);
+    }
+
+    public Description createDescriptionFrom(Story story) {
+        Description storyDescription = Description.createSuiteDescription(names.getJunitSafeString(story.getName()));
+        for (Scenario scenario : story.getScenarios()) {
+            storyDescription.addChild(createDescriptionFrom(scenario));
+        }
+        return storyDescription;
+    }
+
+    private Description createDescriptionFrom(Scenario scenario) {
+        Description scenarioDescription = Description.createSuiteDescription(keywords.scenario() + " " + names.getJunitSafeString(scenario.getTitle()));
+        for (String givenStoryPath : scenario.getGivenStories().getPaths()) {
+            scenarioDescription.addChild(Description.createSuiteDescription(names.getJunitSafeString(fileNameOf(givenStoryPath))));
+            estimatedTestCases++;
+        }
+        int steps = stepsStartingWithAKeywordIn(scenario.getSteps());
+        if (hasExamples(scenario)) {
+            for (Map<String, String> row : scenario.getExamplesTable().getRows()) {
+                scenarioDescription.addChild(Description.createSuiteDescription(keywords.examplesTableRow() + " " + row, (Annotation[]) null));
+                estimatedTestCases += steps;
+            }
+        } else {
+            estimatedTestCases += steps;
+        }
+        return scenarioDescription;
+    }
+
+    /**
+     * The number of tests in the stories described so far, not counting the steps that composite steps are made of.
+     */
+    public int getEstimatedTestCases() {
+        return estimatedTestCases;
+    }
+
+    /**
+     * Add the step descriptions of a full story description to the skeleton of the same story.
+     * Descriptions of given stories and example rows appear in the same order in both, before any steps.
+     */
+    public static void complete(Description skeleton, Description fullDescription) {
+        List<Description> skeletonChildren = skeleton.getChildren();
+        List<Description> fullChildren = fullDescription.getChildren();
+        for (int i = 0; i < fullChildren.size(); i++) {
+            if (i < skeletonChildren.size()) {
+                complete(skeletonChildren.get(i), fullChildren.get(i));
+            } else {
+                skeleton.addChild(fullChildren.get(i));
+            }
+        }
+    }
+
+    private boolean hasExamples(Scenario scenario) {
+        ExamplesTable examplesTable = scenario.getExamplesTable();
+        return examplesTable != null && examplesTable.getRowCount() > 0 && !scenario.getGivenStories().requireParameters();
+    }
+
+    private int stepsStartingWithAKeywordIn(List<String> steps) {
+        int count = 0;
+        for (String step : steps) {
+            try {
+                keywords.stepTypeFor(step);
+                count++;
+            } catch (Keywords.StartingWordNotFound notAStep) {
+                // not reported as a test by the full descriptions either
+            }
+        }
+        return count;
+    }
+
+    private String fileNameOf(String storyPath) {
+        return storyPath.substring(storyPath.lastIndexOf("/") + 1).split("#")[0];
+    }
+}
@@ -0,0 +1,79 @@
+package net.serenitybdd.jbehave.scheduling;
+
+import org.jbehave.core.model.Story;
+import org.jbehave.core.reporters.NullStoryReporter;
+
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Records how long each story takes to run, from the start of the story to the end of its last scenario,
+ * and saves the durations once the "AfterStories" steps have run.
+ * Given stories count towards the duration of the story that uses them, and are not recorded separately.
+ * <p>
+ * This reporter must hear about stories as they happen, so it should be registered with
+ * {@link net.serenitybdd.jbehave.SerenityStoryReporterBuilder#withLiveReporters}, not as an ordinary report format.
+ */
+public class StoryDurationRecorder extends NullStoryReporter {
+
+    private static final String BEFORE_STORIES = "BeforeStories";
+    private static final String AFTER_STORIES = "AfterStories";
+
+    private final StoryDurations storyDurations;
+    private final File durationsFile;
+
+    private final ThreadLocal<Deque<RunningStory>> runningStories = new ThreadLocal<Deque<RunningStory>>() {
+        @Override
+        protected Deque<RunningStory> initialValue() {
+            return new ArrayDeque<>();
+        }
+    };
+
+    public StoryDurationRecorder(StoryDurations storyDurations, File durationsFile) {
+        this.storyDurations = storyDurations;
+        this.durationsFile = durationsFile;
+    }
+
+    @Override
+    public void beforeStory(Story story, boolean givenStory) {
+        runningStories.get().push(new RunningStory(story.getPath(), givenStory));
+    }
+
+    @Override
+    public void storyNotAllowed(Story story, String filter) {
+        RunningStory runningStory = runningStories.get().peek();
+        if (runningStory != null) {
+            runningStory.allowed = false;
+        }
+    }
+
+    @Override
+    public void afterStory(boolean givenStory) {
+        RunningStory runningStory = runningStories.get().poll();
+        if (runningStory == null) {
+            return;
+        }
+        if (AFTER_STORIES.equals(runningStory.path)) {
+            storyDurations.saveTo(durationsFile);
+        } else if (runningStory.shouldBeRecorded()) {
+            storyDurations.record(runningStory.path, System.currentTimeMillis() - runningStory.startTime);
+        }
+    }
+
+    private static class RunningStory {
+        private final String path;
+        private final boolean givenStory;
+        private final long startTime = System.currentTimeMillis();
+        private boolean allowed = true;
+
+        private RunningStory(String path, boolean givenStory) {
+            this.path = path;
+            this.givenStory = givenStory;
+        }
+
+        private boolean shouldBeRecorded() {
+            return allowed && !givenStory && !BEFORE_STORIES.equals(path);
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package net.serenitybdd.jbehave.scheduling;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * How long each story took to run, in milliseconds, as recorded by previous test runs.
+ * Durations are kept in a plain properties file, one story path per line, so that the same file can be
+ * shared between build agents, or checked in alongside the stories.
+ * Durations can be recorded by several threads at once.
+ */
+public class StoryDurations {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(StoryDurations.class);
+
+    private final Map<String, Long> durations;
+
+    private StoryDurations(Map<String, Long> durations) {
+        this.durations = durations;
+    }
+
+    /**
+     * No recorded durations at all.
+     */
+    public static StoryDurations none() {
+        return new StoryDurations(new ConcurrentHashMap<String, Long>());
+    }
+
+    /**
+     * The durations recorded in the given file. A missing or unreadable file is treated as an empty one.
+     */
+    public static StoryDurations loadedFrom(File durationsFile) {
+        return new StoryDurations(durationsIn(durationsFile));
+    }
+
+    public Optional<Long> durationOf(String storyPath) {
+        return Optional.fromNullable(durations.get(storyPath));
+    }
+
+    public boolean isEmpty() {
+        return durations.isEmpty();
+    }
+
+    /**
+     * The average of the recorded durations, used for stories that have never been timed.
+     */
+    public long averageDuration() {
+        if (durations.isEmpty()) {
+            return 0;
+        }
+        long total = 0;
+        for (Long duration : durations.values()) {
+            total += duration;
+        }
+        return total / durations.size();
+    }
+
+    /**
+     * How long each story is expected to take: its last recorded duration, or the average duration if it was never timed.
+     * Every story counts for at least a millisecond.
+     */
+    public Map<String, Long> estimatedDurationsOf(Collection<String> storyPaths) {
+        long averageDuration = averageDuration();
+        Map<String, Long> estimatedDurations = Maps.newHashMap();
+        for (String storyPath : storyPaths) {
+            estimatedDurations.put(storyPath, Math.max(1, durationOf(storyPath).or(averageDuration)));
+        }
+        return estimatedDurations;
+    }
+
+    /**
+     * The stories ordered from the longest to the quickest, and by path for stories expected to take the same time.
+     * Starting the longest stories first keeps the total run time down when stories run in parallel.
+     */
+    public List<String> longestFirst(List<String> storyPaths) {
+        final Map<String, Long> estimatedDurations = estimatedDurationsOf(storyPaths);
+        List<String> longestFirst = Lists.newArrayList(storyPaths);
+        Collections.sort(longestFirst, new Comparator<String>() {
+            @Override
+            public int compare(String first, String second) {
+                int byDuration = estimatedDurations.get(second).compareTo(estimatedDurations.get(first));
+                return (byDuration != 0) ? byDuration : first.compareTo(second);
+            }
+        });
+        return longestFirst;
+    }
+
+    public void record(String storyPath, long durationInMillis) {
+        durations.put(storyPath, durationInMillis);
+    }
+
+    /**
+     * Write the durations to a file, keeping any durations recorded there in the meantime by other JVMs
+     * for stories that did not run in this one. The file is replaced atomically.
+     */
+    public synchronized void saveTo(File durationsFile) {
+        Map<String, Long> allDurations = durationsIn(durationsFile);
+        allDurations.putAll(durations);
+        Properties properties = new Properties();
+        for (Map.Entry<String, Long> duration : allDurations.entrySet()) {
+            properties.setProperty(duration.getKey(), Long.toString(duration.getValue()));
+        }
+        try {
+            File directory = durationsFile.getAbsoluteFile().getParentFile();
+            Files.createDirectories(directory.toPath());
+            File temporaryFile = File.createTempFile(durationsFile.getName(), ".tmp", directory);
+            try (BufferedWriter writer = Files.newBufferedWriter(temporaryFile.toPath(), StandardCharsets.UTF_8)) {
+                properties.store(writer, "Story durations in milliseconds");
+            }
+            Files.move(temporaryFile.toPath(), durationsFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOGGER.warn("Could not save the story durations to {} ({})", durationsFile, e.getMessage());
+        }
+    }
+
+    private static Map<String, Long> durationsIn(File durationsFile) {
+        Map<String, Long> durations = new ConcurrentHashMap<>();
+        if (!durationsFile.isFile()) {
+            return durations;
+        }
+        Properties properties = new Properties();
+        try (BufferedReader reader = Files.newBufferedReader(durationsFile.toPath(), StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        } catch (IOException e) {
+            LOGGER.warn("Could not read the story durations in {} ({})", durationsFile, e.getMessage());
+            return durations;
+        }
+        for (String storyPath : properties.stringPropertyNames()) {
+            try {
+                durations.put(storyPath, Long.parseLong(properties.getProperty(storyPath).trim()));
+            } catch (NumberFormatException e) {
+                LOGGER.warn("Ignoring the invalid duration recorded for {} in {}", storyPath, durationsFile);
+            }
+        }
+        return durations;
+    }
+}
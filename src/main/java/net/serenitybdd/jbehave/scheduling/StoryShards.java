@@ -0,0 +1,85 @@
+package net.serenitybdd.jbehave.scheduling;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.hash.Hashing;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Splits a set of stories into disjoint shards, so that a test suite can be spread over several JVMs or machines.
+ * Every JVM works out the same split independently, as long as it is given the same stories and the same durations.
+ * <p>
+ * When story durations have been recorded, the stories are handed out longest first, each to the shard
+ * with the least work so far, so that the shards take about the same time to run. Stories that have not
+ * been timed yet count as an average story. Without any recorded durations, each story is placed by a
+ * stable hash of its path, so that adding or removing a story does not move the others around.
+ */
+public class StoryShards {
+
+    private final int shardCount;
+    private final StoryDurations storyDurations;
+
+    public StoryShards(int shardCount, StoryDurations storyDurations) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("The number of story shards must be at least 1, not " + shardCount);
+        }
+        this.shardCount = shardCount;
+        this.storyDurations = storyDurations;
+    }
+
+    /**
+     * The stories to be run in one shard, in the order in which they were given.
+     *
+     * @param shardIndex the shard, counting from 0
+     */
+    public List<String> storiesInShard(int shardIndex, List<String> storyPaths) {
+        if (shardIndex < 0 || shardIndex >= shardCount) {
+            throw new IllegalArgumentException("The story shard index must be between 0 and " + (shardCount - 1) + ", not " + shardIndex);
+        }
+        int[] shards = shardsFor(storyPaths);
+        List<String> storiesInShard = Lists.newArrayList();
+        for (int i = 0; i < storyPaths.size(); i++) {
+            if (shards[i] == shardIndex) {
+                storiesInShard.add(storyPaths.get(i));
+            }
+        }
+        return storiesInShard;
+    }
+
+    private int[] shardsFor(List<String> storyPaths) {
+        return (storyDurations.isEmpty()) ? shardsByHash(storyPaths) : shardsByDuration(storyPaths);
+    }
+
+    private int[] shardsByHash(List<String> storyPaths) {
+        int[] shards = new int[storyPaths.size()];
+        for (int i = 0; i < storyPaths.size(); i++) {
+            shards[i] = Hashing.consistentHash(Hashing.murmur3_32().hashString(storyPaths.get(i), Charsets.UTF_8), shardCount);
+        }
+        return shards;
+    }
+
+    private int[] shardsByDuration(List<String> storyPaths) {
+        Map<String, Integer> positions = Maps.newHashMap();
+        for (int i = 0; i < storyPaths.size(); i++) {
+            positions.put(storyPaths.get(i), i);
+        }
+        Map<String, Long> estimatedDurations = storyDurations.estimatedDurationsOf(storyPaths);
+
+        int[] shards = new int[storyPaths.size()];
+        long[] shardDurations = new long[shardCount];
+        for (String storyPath : storyDurations.longestFirst(storyPaths)) {
+            int leastBusyShard = 0;
+            for (int shard = 1; shard < shardCount; shard++) {
+                if (shardDurations[shard] < shardDurations[leastBusyShard]) {
+                    leastBusyShard = shard;
+                }
+            }
+            shards[positions.get(storyPath)] = leastBusyShard;
+            shardDurations[leastBusyShard] += estimatedDurations.get(storyPath);
+        }
+        return shards;
+    }
+}
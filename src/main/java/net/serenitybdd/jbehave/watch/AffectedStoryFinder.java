@@ -0,0 +1,165 @@
+package net.serenitybdd.jbehave.watch;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import net.serenitybdd.core.pages.PageObject;
+import net.thucydides.core.annotations.Steps;
+import org.jbehave.core.model.GivenStories;
+import org.jbehave.core.model.Scenario;
+import org.jbehave.core.model.Story;
+import org.jbehave.core.steps.CandidateSteps;
+import org.jbehave.core.steps.StepCandidate;
+
+import java.lang.reflect.Field;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Works out which of the stories being watched need to run again after a change.
+ * A story is affected if its own file changed, if one of its given stories changed, or if one of its steps
+ * is implemented by a step class that changed. A step class counts as changed when it, one of its superclasses,
+ * or one of the step libraries and page objects it holds in its fields (and theirs in turn) changed.
+ * When a changed class is used by none of the step classes, such as a helper class called from step code,
+ * there is no telling which stories use it, so every story is run again.
+ */
+public class AffectedStoryFinder {
+
+    private final List<StepCandidate> stepCandidates = Lists.newArrayList();
+    private final Map<Class<?>, Set<String>> classesUsedByStepTypes = Maps.newHashMap();
+
+    /**
+     * @param candidateSteps the steps to consider when a class changes, usually both before and after the classes were reloaded,
+     *                       so that steps moved from one class to another are taken into account
+     */
+    public AffectedStoryFinder(Collection<CandidateSteps> candidateSteps) {
+        for (CandidateSteps steps : candidateSteps) {
+            stepCandidates.addAll(steps.listCandidates());
+        }
+        for (StepCandidate candidate : stepCandidates) {
+            if (!classesUsedByStepTypes.containsKey(candidate.getStepsType())) {
+                Set<String> classesUsed = Sets.newHashSet();
+                addClassesUsedBy(candidate.getStepsType(), classesUsed);
+                classesUsedByStepTypes.put(candidate.getStepsType(), classesUsed);
+            }
+        }
+    }
+
+    /**
+     * The paths of the stories affected by the changes, in the order the stories are given.
+     */
+    public List<String> storiesAffectedBy(StoryChanges changes, Collection<Story> stories) {
+        boolean allStoriesAffected = !unusedClassesIn(changes.getClassNames()).isEmpty();
+        Set<String> changedStepTypes = stepTypesUsing(changes.getClassNames());
+        List<String> affectedStories = Lists.newArrayList();
+        for (Story story : stories) {
+            if (allStoriesAffected
+                    || changes.includeStory(story.getPath())
+                    || usesAChangedGivenStory(story, changes)
+                    || usesAChangedStepClass(story, changedStepTypes)) {
+                affectedStories.add(story.getPath());
+            }
+        }
+        return affectedStories;
+    }
+
+    private Set<String> stepTypesUsing(Set<String> changedClassNames) {
+        Set<String> stepTypes = Sets.newHashSet();
+        for (Map.Entry<Class<?>, Set<String>> stepType : classesUsedByStepTypes.entrySet()) {
+            for (String changedClassName : changedClassNames) {
+                if (uses(stepType.getValue(), changedClassName)) {
+                    stepTypes.add(stepType.getKey().getName());
+                }
+            }
+        }
+        return stepTypes;
+    }
+
+    private Set<String> unusedClassesIn(Set<String> changedClassNames) {
+        Set<String> unusedClasses = Sets.newHashSet(changedClassNames);
+        for (Set<String> classesUsed : classesUsedByStepTypes.values()) {
+            for (String changedClassName : changedClassNames) {
+                if (uses(classesUsed, changedClassName)) {
+                    unusedClasses.remove(changedClassName);
+                }
+            }
+        }
+        return unusedClasses;
+    }
+
+    /**
+     * Nested and anonymous classes, such as the runnables and comparators of a step class, belong to their enclosing class.
+     */
+    private boolean uses(Set<String> classesUsed, String className) {
+        String name = className;
+        while (!classesUsed.contains(name)) {
+            int nesting = name.lastIndexOf('$');
+            if (nesting < 0) {
+                return false;
+            }
+            name = name.substring(0, nesting);
+        }
+        return true;
+    }
+
+    private void addClassesUsedBy(Class<?> stepType, Set<String> classesUsed) {
+        for (Class<?> type = stepType; isApplicationClass(type); type = type.getSuperclass()) {
+            if (!classesUsed.add(type.getName())) {
+                return;
+            }
+            for (Field field : type.getDeclaredFields()) {
+                if (field.isAnnotationPresent(Steps.class) || PageObject.class.isAssignableFrom(field.getType())) {
+                    addClassesUsedBy(field.getType(), classesUsed);
+                }
+            }
+        }
+    }
+
+    private boolean isApplicationClass(Class<?> type) {
+        return type != null && type != Object.class && !type.getName().startsWith("java.");
+    }
+
+    private boolean usesAChangedGivenStory(Story story, StoryChanges changes) {
+        if (containsAChangedStory(story.getGivenStories(), changes)) {
+            return true;
+        }
+        for (Scenario scenario : story.getScenarios()) {
+            if (containsAChangedStory(scenario.getGivenStories(), changes)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean containsAChangedStory(GivenStories givenStories, StoryChanges changes) {
+        for (String givenStoryPath : givenStories.getPaths()) {
+            if (changes.includeStory(givenStoryPath)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean usesAChangedStepClass(Story story, Set<String> changedStepTypes) {
+        if (changedStepTypes.isEmpty()) {
+            return false;
+        }
+        for (Scenario scenario : story.getScenarios()) {
+            String previousNonAndStep = null;
+            for (String step : scenario.getSteps()) {
+                for (StepCandidate candidate : stepCandidates) {
+                    if (changedStepTypes.contains(candidate.getStepsType().getName())
+                            && candidate.matches(step, previousNonAndStep)) {
+                        return true;
+                    }
+                }
+                if (stepCandidates.isEmpty() || !stepCandidates.get(0).isAndStep(step)) {
+                    previousNonAndStep = step;
+                }
+            }
+        }
+        return false;
+    }
+}
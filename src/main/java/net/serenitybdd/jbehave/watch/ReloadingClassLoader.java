@@ -0,0 +1,42 @@
+package net.serenitybdd.jbehave.watch;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Collection;
+
+/**
+ * A class loader that loads the classes in the given classpath directories again, rather than asking its parent first,
+ * so that step classes recompiled while stories are being watched can be used without restarting the JVM.
+ * Classes in jar files, and the JDK classes, still come from the parent class loader.
+ */
+public class ReloadingClassLoader extends URLClassLoader {
+
+    static {
+        ClassLoader.registerAsParallelCapable();
+    }
+
+    public ReloadingClassLoader(Collection<URL> classpathDirectories, ClassLoader parent) {
+        super(classpathDirectories.toArray(new URL[classpathDirectories.size()]), parent);
+    }
+
+    @Override
+    protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+        synchronized (getClassLoadingLock(name)) {
+            Class<?> loadedClass = findLoadedClass(name);
+            if (loadedClass == null && !name.startsWith("java.")) {
+                try {
+                    loadedClass = findClass(name);
+                } catch (ClassNotFoundException notInAWatchedDirectory) {
+                    loadedClass = null;
+                }
+            }
+            if (loadedClass == null) {
+                return super.loadClass(name, resolve);
+            }
+            if (resolve) {
+                resolveClass(loadedClass);
+            }
+            return loadedClass;
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package net.serenitybdd.jbehave.watch;
+
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+/**
+ * Watches classpath directories for changes to story files and compiled classes, using a {@link WatchService}.
+ * Every directory under each classpath root is registered, including directories created while the watcher is running.
+ * <p>
+ * Compilers and IDEs usually write several files in quick succession, so changes are collected until the
+ * directories have been quiet for a short while, and then reported together.
+ */
+public class StoryChangeWatcher implements Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(StoryChangeWatcher.class);
+
+    private static final String STORY_SUFFIX = ".story";
+    private static final String CLASS_SUFFIX = ".class";
+    private static final long DEFAULT_QUIET_PERIOD_IN_MILLIS = 300;
+
+    private final WatchService watchService;
+    private final Map<WatchKey, WatchedDirectory> watchedDirectories = Maps.newHashMap();
+    private final long quietPeriodInMillis;
+
+    private StoryChangeWatcher(long quietPeriodInMillis) throws IOException {
+        this.watchService = FileSystems.getDefault().newWatchService();
+        this.quietPeriodInMillis = quietPeriodInMillis;
+    }
+
+    public static StoryChangeWatcher watching(Collection<File> classpathDirectories) throws IOException {
+        return watching(classpathDirectories, DEFAULT_QUIET_PERIOD_IN_MILLIS);
+    }
+
+    public static StoryChangeWatcher watching(Collection<File> classpathDirectories, long quietPeriodInMillis) throws IOException {
+        StoryChangeWatcher watcher = new StoryChangeWatcher(quietPeriodInMillis);
+        for (File classpathDirectory : classpathDirectories) {
+            if (classpathDirectory.isDirectory()) {
+                watcher.registerTree(classpathDirectory.toPath(), classpathDirectory.toPath());
+            }
+        }
+        return watcher;
+    }
+
+    /**
+     * Wait until something changes in one of the watched directories, and for things to settle down afterwards.
+     */
+    public StoryChanges waitForChanges() throws InterruptedException {
+        return changesStartingWith(watchService.take());
+    }
+
+    /**
+     * Changes reported within the given time, or no changes at all if nothing happened.
+     */
+    public StoryChanges waitForChanges(long timeout, TimeUnit unit) throws InterruptedException {
+        return changesStartingWith(watchService.poll(timeout, unit));
+    }
+
+    private StoryChanges changesStartingWith(WatchKey firstKey) throws InterruptedException {
+        Set<String> storyPaths = Sets.newTreeSet();
+        Set<String> classNames = Sets.newTreeSet();
+        WatchKey key = firstKey;
+        while (key != null) {
+            collectChangesFrom(key, storyPaths, classNames);
+            key = watchService.poll(quietPeriodInMillis, TimeUnit.MILLISECONDS);
+        }
+        return new StoryChanges(storyPaths, classNames);
+    }
+
+    private void collectChangesFrom(WatchKey key, Set<String> storyPaths, Set<String> classNames) {
+        WatchedDirectory directory = watchedDirectories.get(key);
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == OVERFLOW || directory == null) {
+                continue;
+            }
+            Path changedPath = directory.path.resolve((Path) event.context());
+            if (event.kind() == ENTRY_CREATE && Files.isDirectory(changedPath)) {
+                registerTree(directory.classpathRoot, changedPath);
+                continue;
+            }
+            String relativePath = relativePathOf(directory.classpathRoot, changedPath);
+            if (relativePath.endsWith(STORY_SUFFIX)) {
+                storyPaths.add(relativePath);
+            } else if (relativePath.endsWith(CLASS_SUFFIX)) {
+                classNames.add(relativePath.substring(0, relativePath.length() - CLASS_SUFFIX.length()).replace('/', '.'));
+            }
+        }
+        if (!key.reset()) {
+            watchedDirectories.remove(key);
+        }
+    }
+
+    private void registerTree(final Path classpathRoot, Path directory) {
+        try {
+            Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path subdirectory, BasicFileAttributes attributes) throws IOException {
+                    WatchKey key = subdirectory.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+                    watchedDirectories.put(key, new WatchedDirectory(classpathRoot, subdirectory));
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            LOGGER.warn("Could not watch {} for changes: {}", directory, e.getMessage());
+        }
+    }
+
+    private String relativePathOf(Path classpathRoot, Path file) {
+        return classpathRoot.relativize(file).toString().replace(File.separatorChar, '/');
+    }
+
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+    }
+
+    private static class WatchedDirectory {
+        private final Path classpathRoot;
+        private final Path path;
+
+        private WatchedDirectory(Path classpathRoot, Path path) {
+            this.classpathRoot = classpathRoot;
+            this.path = path;
+        }
+    }
+}
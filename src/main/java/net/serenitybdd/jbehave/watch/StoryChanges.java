@@ -0,0 +1,48 @@
+package net.serenitybdd.jbehave.watch;
+
+import com.google.common.collect.ImmutableSet;
+
+import java.util.Set;
+
+/**
+ * The story files and compiled classes that changed on the classpath since the last time it was checked.
+ * Story paths are relative to their classpath root, using forward slashes, and classes are identified by their binary names.
+ */
+public class StoryChanges {
+
+    private final Set<String> storyPaths;
+    private final Set<String> classNames;
+
+    public StoryChanges(Set<String> storyPaths, Set<String> classNames) {
+        this.storyPaths = ImmutableSet.copyOf(storyPaths);
+        this.classNames = ImmutableSet.copyOf(classNames);
+    }
+
+    public Set<String> getStoryPaths() {
+        return storyPaths;
+    }
+
+    public Set<String> getClassNames() {
+        return classNames;
+    }
+
+    /**
+     * Did the story with this path change? Story paths starting with a slash are also recognized.
+     */
+    public boolean includeStory(String storyPath) {
+        return storyPaths.contains(storyPath.startsWith("/") ? storyPath.substring(1) : storyPath);
+    }
+
+    public boolean includeClasses() {
+        return !classNames.isEmpty();
+    }
+
+    public boolean isEmpty() {
+        return storyPaths.isEmpty() && classNames.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "stories " + storyPaths + ", classes " + classNames;
+    }
+}
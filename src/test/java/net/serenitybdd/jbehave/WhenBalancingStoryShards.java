@@ -0,0 +1,88 @@
+package net.serenitybdd.jbehave;
+
+import com.google.common.collect.ImmutableList;
+import net.thucydides.core.util.MockEnvironmentVariables;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.List;
+
+import static net.serenitybdd.jbehave.SerenityJBehaveSystemProperties.STORY_DURATIONS_FILE;
+import static net.serenitybdd.jbehave.SerenityJBehaveSystemProperties.STORY_DURATIONS_OUTPUT_FILE;
+import static net.serenitybdd.jbehave.SerenityJBehaveSystemProperties.STORY_SHARD_COUNT;
+import static net.serenitybdd.jbehave.SerenityJBehaveSystemProperties.STORY_SHARD_INDEX;
+import static org.fest.assertions.Assertions.assertThat;
+
+public class WhenBalancingStoryShards {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    MockEnvironmentVariables environmentVariables = new MockEnvironmentVariables();
+    File durationsFile;
+
+    List<String> storyPaths = ImmutableList.of("stories/medium.story", "stories/quick_1.story",
+                                               "stories/quick_2.story", "stories/slow.story");
+
+    @Before
+    public void recordEarlierDurations() throws IOException {
+        durationsFile = temporaryFolder.newFile("story-durations.properties");
+        writeDurations("stories/slow.story=10000\n" +
+                       "stories/medium.story=5000\n" +
+                       "stories/quick_1.story=4000\n" +
+                       "stories/quick_2.story=1000\n");
+        environmentVariables.setProperty(STORY_DURATIONS_FILE.getName(), durationsFile.getPath());
+    }
+
+    @Test
+    public void shards_should_stay_the_same_when_the_durations_file_changes_during_the_run() throws IOException {
+        inShard(0, 2);
+        SerenityStories stories = new SerenityStories(environmentVariables) {};
+        List<String> shardBefore = stories.storiesInThisShard(storyPaths);
+
+        writeDurations("stories/quick_2.story=90000\n");
+
+        assertThat(stories.storiesInThisShard(storyPaths)).isEqualTo(shardBefore).containsExactly("stories/slow.story");
+    }
+
+    @Test
+    public void the_durations_file_should_be_updated_when_the_stories_are_not_sharded() {
+        SerenityStories stories = new SerenityStories(environmentVariables) {};
+
+        assertThat(stories.storyDurationsOutputFile().get()).isEqualTo(durationsFile);
+    }
+
+    @Test
+    public void the_durations_file_should_not_be_rewritten_by_a_shard() {
+        inShard(1, 2);
+        SerenityStories stories = new SerenityStories(environmentVariables) {};
+
+        assertThat(stories.storyDurationsOutputFile().isPresent()).isFalse();
+    }
+
+    @Test
+    public void shards_should_save_their_durations_to_the_output_file() {
+        inShard(1, 2);
+        File outputFile = new File(temporaryFolder.getRoot(), "story-durations-shard-1.properties");
+        environmentVariables.setProperty(STORY_DURATIONS_OUTPUT_FILE.getName(), outputFile.getPath());
+        SerenityStories stories = new SerenityStories(environmentVariables) {};
+
+        assertThat(stories.storyDurationsOutputFile().get()).isEqualTo(outputFile);
+    }
+
+    private void inShard(int shardIndex, int shardCount) {
+        environmentVariables.setProperty(STORY_SHARD_INDEX.getName(), Integer.toString(shardIndex));
+        environmentVariables.setProperty(STORY_SHARD_COUNT.getName(), Integer.toString(shardCount));
+    }
+
+    private void writeDurations(String contents) throws IOException {
+        try (FileWriter writer = new FileWriter(durationsFile)) {
+            writer.write(contents);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package net.serenitybdd.jbehave;
+
+import ch.lambdaj.function.convert.PropertyExtractor;
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
+import net.thucydides.core.util.MockEnvironmentVariables;
+import org.jbehave.core.annotations.Given;
+import org.jbehave.core.annotations.When;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.util.List;
+
+import static ch.lambdaj.Lambda.convert;
+import static org.fest.assertions.Assertions.assertThat;
+
+public class WhenCachingClassMetadata {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    File sources;
+    File classes;
+    File cacheDirectory;
+
+    @Before
+    public void compileSampleClasses() throws IOException {
+        sources = temporaryFolder.newFolder("sources");
+        classes = temporaryFolder.newFolder("classes");
+        cacheDirectory = new File(temporaryFolder.getRoot(), "cache");
+
+        compile("com/acme/steps/AccountSteps.java",
+                "package com.acme.steps;\n" +
+                "public class AccountSteps {\n" +
+                "    @org.jbehave.core.annotations.Given(\"an account\")\n" +
+                "    public void anAccount() {}\n" +
+                "}\n");
+    }
+
+    @Test
+    public void cached_metadata_should_find_the_same_classes_as_a_scan() throws IOException {
+        List<String> scannedClasses = annotatedClasses(ClassFinder.loadClasses().withClassLoader(classLoader()));
+
+        annotatedClasses(ClassFinder.loadClasses().withClassLoader(classLoader()).withMetadataCacheIn(cacheDirectory));
+        List<String> cachedClasses = annotatedClasses(ClassFinder.loadClasses().withClassLoader(classLoader()).withMetadataCacheIn(cacheDirectory));
+
+        assertThat(cachedClasses).isEqualTo(scannedClasses).containsOnly("com.acme.steps.AccountSteps");
+    }
+
+    @Test
+    public void the_metadata_of_an_unchanged_package_should_be_reused() throws IOException {
+        annotatedClasses(ClassFinder.loadClasses().withClassLoader(classLoader()).withMetadataCacheIn(cacheDirectory));
+        File cacheFile = cacheDirectory.listFiles()[0];
+        long firstModified = cacheFile.lastModified();
+
+        annotatedClasses(ClassFinder.loadClasses().withClassLoader(classLoader()).withMetadataCacheIn(cacheDirectory));
+
+        assertThat(cacheDirectory.listFiles()).containsOnly(cacheFile);
+        assertThat(cacheFile.lastModified()).isEqualTo(firstModified);
+    }
+
+    @Test
+    public void the_package_should_be_scanned_again_when_its_classes_change() throws IOException {
+        annotatedClasses(ClassFinder.loadClasses().withClassLoader(classLoader()).withMetadataCacheIn(cacheDirectory));
+
+        compile("com/acme/steps/TransferSteps.java",
+                "package com.acme.steps;\n" +
+                "public class TransferSteps {\n" +
+                "    @org.jbehave.core.annotations.When(\"I transfer money\")\n" +
+                "    public void transfer() {}\n" +
+                "}\n");
+        List<String> cachedClasses = annotatedClasses(ClassFinder.loadClasses().withClassLoader(classLoader()).withMetadataCacheIn(cacheDirectory));
+
+        assertThat(cachedClasses).containsOnly("com.acme.steps.AccountSteps", "com.acme.steps.TransferSteps");
+    }
+
+    @Test
+    public void unreadable_cache_files_should_be_ignored() throws IOException {
+        annotatedClasses(ClassFinder.loadClasses().withClassLoader(classLoader()).withMetadataCacheIn(cacheDirectory));
+        Files.write(cacheDirectory.listFiles()[0].toPath(), "garbage".getBytes(Charsets.UTF_8));
+
+        List<String> cachedClasses = annotatedClasses(ClassFinder.loadClasses().withClassLoader(classLoader()).withMetadataCacheIn(cacheDirectory));
+
+        assertThat(cachedClasses).containsOnly("com.acme.steps.AccountSteps");
+    }
+
+    @Test
+    public void the_cache_directory_should_be_taken_from_the_environment() throws IOException {
+        MockEnvironmentVariables environmentVariables = new MockEnvironmentVariables();
+        environmentVariables.setProperty("class.metadata.cache.directory", cacheDirectory.getPath());
+
+        annotatedClasses(ClassFinder.loadClasses().withMetadataCacheFrom(environmentVariables).withClassLoader(classLoader()));
+
+        assertThat(cacheDirectory.listFiles()).hasSize(1);
+    }
+
+    @Test
+    public void nothing_should_be_cached_if_no_cache_directory_is_configured() throws IOException {
+        annotatedClasses(ClassFinder.loadClasses().withMetadataCacheFrom(new MockEnvironmentVariables()).withClassLoader(classLoader()));
+
+        assertThat(cacheDirectory.exists()).isFalse();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<String> annotatedClasses(ClassFinder classFinder) {
+        List<Class<?>> classes = classFinder.annotatedWith(Given.class, When.class).fromPackage("com.acme");
+        return convert(classes, new PropertyExtractor("name"));
+    }
+
+    private ClassLoader classLoader() throws IOException {
+        return new URLClassLoader(new URL[]{classes.toURI().toURL()}, getClass().getClassLoader());
+    }
+
+    private void compile(String sourceFile, String source) throws IOException {
+        File file = new File(sources, sourceFile);
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), source.getBytes(Charsets.UTF_8));
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        List<String> arguments = ImmutableList.of("-d", classes.getPath(), "-classpath", System.getProperty("java.class.path"),
+                                                  "-proc:none", file.getPath());
+        assertThat(compiler.run(null, null, null, arguments.toArray(new String[arguments.size()]))).isEqualTo(0);
+    }
+}
@@ -0,0 +1,84 @@
+package net.serenitybdd.jbehave;
+
+import net.thucydides.core.annotations.Managed;
+import net.thucydides.core.annotations.ManagedPages;
+import net.thucydides.core.annotations.Steps;
+import net.thucydides.core.pages.Pages;
+import net.thucydides.core.util.EnvironmentVariables;
+import org.junit.Test;
+import org.openqa.selenium.WebDriver;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class WhenFindingThreadBoundFields {
+
+    public static class PlainSteps {
+    }
+
+    public static class LibrarySteps {
+    }
+
+    public static class StepsUsingLibraries {
+        @Steps
+        LibrarySteps library;
+    }
+
+    public static class StepsWithPages {
+        @ManagedPages(defaultUrl = "http://www.google.com")
+        Pages pages;
+    }
+
+    public static class StepsWithADriver {
+        @Managed
+        WebDriver driver;
+    }
+
+    public static class SearchPage extends net.serenitybdd.core.pages.PageObject {
+    }
+
+    public static class LegacySearchPage extends net.thucydides.core.pages.PageObject {
+    }
+
+    public static class StepsUsingAPageObject {
+        SearchPage searchPage;
+    }
+
+    public static class StepsUsingALegacyPageObject {
+        LegacySearchPage searchPage;
+    }
+
+    public static class StepsThatArePages extends net.serenitybdd.core.pages.PageObject {
+    }
+
+    public static class StepsUsingTheEnvironment {
+        EnvironmentVariables environmentVariables;
+    }
+
+    @Test
+    public void steps_classes_without_injected_fields_should_not_be_bound_to_a_thread() {
+        assertThat(ThreadBoundFields.in(PlainSteps.class)).isFalse();
+    }
+
+    @Test
+    public void step_libraries_should_be_bound_to_the_thread_running_the_story() {
+        assertThat(ThreadBoundFields.in(StepsUsingLibraries.class)).isTrue();
+    }
+
+    @Test
+    public void managed_drivers_and_pages_should_be_bound_to_the_thread_running_the_story() {
+        assertThat(ThreadBoundFields.in(StepsWithADriver.class)).isTrue();
+        assertThat(ThreadBoundFields.in(StepsWithPages.class)).isTrue();
+    }
+
+    @Test
+    public void page_objects_should_be_bound_to_the_thread_running_the_story() {
+        assertThat(ThreadBoundFields.in(StepsUsingAPageObject.class)).isTrue();
+        assertThat(ThreadBoundFields.in(StepsUsingALegacyPageObject.class)).isTrue();
+        assertThat(ThreadBoundFields.in(StepsThatArePages.class)).isTrue();
+    }
+
+    @Test
+    public void environment_variables_should_not_be_bound_to_a_thread() {
+        assertThat(ThreadBoundFields.in(StepsUsingTheEnvironment.class)).isFalse();
+    }
+}
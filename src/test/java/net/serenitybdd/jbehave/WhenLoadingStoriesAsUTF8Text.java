@@ -0,0 +1,118 @@
+package net.serenitybdd.jbehave;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableList;
+import org.jbehave.core.io.StoryResourceNotFound;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class WhenLoadingStoriesAsUTF8Text {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    static final String STORY_IN_A_JAR = "Scenario: Gr\u00fc\u00dfe aus dem Jar\nGiven a packaged step";
+    static final String STORY_WITH_ACCENTS = "Scenario: Ordering a caf\u00e9 cr\u00e8me \u2014 \u20ac3\nGiven a step";
+
+    File stories;
+    File jar;
+    UTF8StoryLoader storyLoader;
+
+    @Before
+    public void setupClasspath() throws IOException {
+        stories = temporaryFolder.newFolder("classes");
+        new File(stories, "stories").mkdirs();
+        jar = new File(temporaryFolder.getRoot(), "stories.jar");
+        try (JarOutputStream output = new JarOutputStream(new FileOutputStream(jar))) {
+            output.putNextEntry(new JarEntry("packaged/given.story"));
+            output.write(STORY_IN_A_JAR.getBytes(Charsets.UTF_8));
+            output.closeEntry();
+        }
+        ClassLoader classLoader = new URLClassLoader(new URL[]{stories.toURI().toURL(), jar.toURI().toURL()}, null);
+        storyLoader = new UTF8StoryLoader(classLoader, 1024 * 1024);
+    }
+
+    @Test
+    public void stories_should_be_read_as_utf8() throws IOException {
+        write("stories/coffee.story", STORY_WITH_ACCENTS);
+
+        assertThat(storyLoader.loadStoryAsText("stories/coffee.story")).isEqualTo(STORY_WITH_ACCENTS);
+    }
+
+    @Test
+    public void stories_in_jar_files_should_be_read_as_utf8() {
+        assertThat(storyLoader.loadStoryAsText("packaged/given.story")).isEqualTo(STORY_IN_A_JAR);
+    }
+
+    @Test
+    public void large_stories_should_be_read_in_full() throws IOException {
+        String largeStory = "Scenario: a large table\nGiven a table:\n" + Strings.repeat("|\u00e4|b|c|\n", 100000);
+        write("stories/large.story", largeStory);
+
+        assertThat(storyLoader.loadStoryAsText("stories/large.story")).isEqualTo(largeStory);
+    }
+
+    @Test
+    public void empty_stories_should_be_read_as_empty_text() throws IOException {
+        write("stories/empty.story", "");
+
+        assertThat(storyLoader.loadStoryAsText("stories/empty.story")).isEmpty();
+    }
+
+    @Test
+    public void stories_that_have_already_been_loaded_should_not_be_read_again() throws IOException {
+        write("stories/given.story", "Scenario: first version");
+        storyLoader.loadStoryAsText("stories/given.story");
+
+        write("stories/given.story", "Scenario: second version");
+
+        assertThat(storyLoader.loadStoryAsText("stories/given.story")).isEqualTo("Scenario: first version");
+    }
+
+    @Test
+    public void forgotten_stories_should_be_read_again() throws IOException {
+        write("stories/given.story", "Scenario: first version");
+        storyLoader.loadStoryAsText("stories/given.story");
+        storyLoader.loadStoryAsText("/stories/given.story");
+
+        write("stories/given.story", "Scenario: second version");
+        storyLoader.forget(ImmutableList.of("stories/given.story"));
+
+        assertThat(storyLoader.loadStoryAsText("stories/given.story")).isEqualTo("Scenario: second version");
+        assertThat(storyLoader.loadStoryAsText("/stories/given.story")).isEqualTo("Scenario: second version");
+    }
+
+    @Test
+    public void the_cache_should_not_hold_more_text_than_it_is_allowed_to() throws IOException {
+        storyLoader = new UTF8StoryLoader(new URLClassLoader(new URL[]{stories.toURI().toURL()}, null), 100);
+        write("stories/given.story", "Scenario: " + Strings.repeat("long title ", 10));
+        storyLoader.loadStoryAsText("stories/given.story");
+
+        write("stories/given.story", "Scenario: short");
+
+        assertThat(storyLoader.loadStoryAsText("stories/given.story")).isEqualTo("Scenario: short");
+    }
+
+    @Test(expected = StoryResourceNotFound.class)
+    public void missing_stories_should_not_be_found() {
+        storyLoader.loadStoryAsText("stories/missing.story");
+    }
+
+    private void write(String storyPath, String text) throws IOException {
+        Files.write(new File(stories, storyPath).toPath(), text.getBytes(Charsets.UTF_8));
+    }
+}
@@ -0,0 +1,232 @@
+package net.serenitybdd.jbehave;
+
+import ch.lambdaj.function.convert.PropertyExtractor;
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.jar.JarOutputStream;
+import java.util.zip.ZipEntry;
+
+import static ch.lambdaj.Lambda.convert;
+import static org.fest.assertions.Assertions.assertThat;
+
+public class WhenScanningClassFilesForSteps {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    File sources;
+    File classes;
+
+    @Before
+    public void compileSampleClasses() throws IOException {
+        sources = temporaryFolder.newFolder("sources");
+        classes = temporaryFolder.newFolder("classes");
+
+        write("com/acme/model/Audited.java",
+              "package com.acme.model;\n" +
+              "@java.lang.annotation.Retention(java.lang.annotation.RetentionPolicy.RUNTIME)\n" +
+              "public @interface Audited {\n" +
+              "    String[] tags() default {};\n" +
+              "    java.lang.annotation.ElementType kind() default java.lang.annotation.ElementType.METHOD;\n" +
+              "    Deprecated[] notes() default {};\n" +
+              "    long level() default 0;\n" +
+              "}\n");
+        write("com/acme/model/Account.java",
+              "package com.acme.model;\n" +
+              "public class Account {\n" +
+              "    public static final double RATE = 0.5;\n" +
+              "    @Audited(tags = {\"deposit\", \"money\"}, kind = java.lang.annotation.ElementType.TYPE, level = 3L)\n" +
+              "    public void deposit() {}\n" +
+              "}\n");
+        write("com/acme/steps/AccountSteps.java",
+              "package com.acme.steps;\n" +
+              "public class AccountSteps {\n" +
+              "    @com.acme.model.Audited(tags = {\"given\"}, notes = {@Deprecated})\n" +
+              "    @org.jbehave.core.annotations.Given(\"an account\")\n" +
+              "    public void anAccount() {}\n" +
+              "    public static class Nested {}\n" +
+              "}\n");
+        write("com/acme/steps/MoreAccountSteps.java",
+              "package com.acme.steps;\n" +
+              "public class MoreAccountSteps extends AccountSteps {}\n");
+        write("com/acme/steps/HiddenSteps.java",
+              "package com.acme.steps;\n" +
+              "public class HiddenSteps {\n" +
+              "    @org.jbehave.core.annotations.Given(\"a hidden step\")\n" +
+              "    void aHiddenStep() {}\n" +
+              "}\n");
+
+        compile("com/acme/model/Audited.java", "com/acme/model/Account.java", "com/acme/steps/AccountSteps.java",
+                "com/acme/steps/MoreAccountSteps.java", "com/acme/steps/HiddenSteps.java");
+    }
+
+    @Test
+    public void only_classes_with_public_step_methods_should_be_found() throws IOException {
+        RecordingClassLoader classLoader = new RecordingClassLoader(classes);
+
+        List<Class<?>> stepClasses = ClassFinder.loadClasses().withClassLoader(classLoader).containingSteps().fromPackage("com.acme");
+
+        assertThat(namesOf(stepClasses)).containsOnly("com.acme.steps.AccountSteps", "com.acme.steps.MoreAccountSteps");
+    }
+
+    @Test
+    public void classes_without_step_methods_should_not_be_loaded() throws IOException {
+        RecordingClassLoader classLoader = new RecordingClassLoader(classes);
+
+        ClassFinder.loadClasses().withClassLoader(classLoader).containingSteps().fromPackage("com.acme");
+
+        assertThat(classLoader.loadedClasses).containsOnly("com.acme.steps.AccountSteps", "com.acme.steps.MoreAccountSteps");
+    }
+
+    @Test
+    public void classes_with_step_methods_should_be_found_in_jars() throws IOException {
+        RecordingClassLoader classLoader = new RecordingClassLoader(jarOf(classes));
+
+        List<Class<?>> stepClasses = ClassFinder.loadClasses().withClassLoader(classLoader).containingSteps().fromPackage("com.acme");
+
+        assertThat(namesOf(stepClasses)).containsOnly("com.acme.steps.AccountSteps", "com.acme.steps.MoreAccountSteps");
+        assertThat(classLoader.loadedClasses).containsOnly("com.acme.steps.AccountSteps", "com.acme.steps.MoreAccountSteps");
+    }
+
+    @Test
+    public void only_the_classes_of_the_package_should_be_read_from_jars() throws IOException {
+        RecordingClassLoader classLoader = new RecordingClassLoader(jarOf(classes));
+
+        List<Class<?>> allClasses = ClassFinder.loadClasses().withClassLoader(classLoader).fromPackage("com.acme.steps");
+
+        assertThat(namesOf(allClasses)).containsOnly("com.acme.steps.AccountSteps", "com.acme.steps.MoreAccountSteps",
+                                                     "com.acme.steps.HiddenSteps");
+    }
+
+    @Test
+    public void classes_should_be_found_in_jars_whose_path_has_spaces() throws IOException {
+        File jar = jarOf(classes, new File(temporaryFolder.newFolder("my libs"), "acme steps.jar"));
+        RecordingClassLoader classLoader = new RecordingClassLoader(jar);
+
+        List<Class<?>> allClasses = ClassFinder.loadClasses().withClassLoader(classLoader).fromPackage("com.acme.steps");
+        List<Class<?>> stepClasses = ClassFinder.loadClasses().withClassLoader(classLoader).containingSteps().fromPackage("com.acme");
+
+        assertThat(namesOf(allClasses)).containsOnly("com.acme.steps.AccountSteps", "com.acme.steps.MoreAccountSteps",
+                                                     "com.acme.steps.HiddenSteps");
+        assertThat(namesOf(stepClasses)).containsOnly("com.acme.steps.AccountSteps", "com.acme.steps.MoreAccountSteps");
+    }
+
+    @Test
+    public void every_classpath_root_holding_the_package_should_be_scanned() throws IOException {
+        File otherClasses = temporaryFolder.newFolder("other-classes");
+        write("com/acme/steps/TransferSteps.java",
+              "package com.acme.steps;\n" +
+              "public class TransferSteps {\n" +
+              "    @org.jbehave.core.annotations.When(\"I transfer money\")\n" +
+              "    public void transfer() {}\n" +
+              "}\n");
+        compileInto(otherClasses, "com/acme/steps/TransferSteps.java");
+        RecordingClassLoader classLoader = new RecordingClassLoader(classes, jarOf(otherClasses));
+
+        List<Class<?>> stepClasses = ClassFinder.loadClasses().withClassLoader(classLoader).containingSteps().fromPackage("com.acme");
+
+        assertThat(namesOf(stepClasses)).containsOnly("com.acme.steps.AccountSteps", "com.acme.steps.MoreAccountSteps",
+                                                      "com.acme.steps.TransferSteps");
+    }
+
+    @Test
+    public void class_files_that_cannot_be_read_should_be_loaded_and_checked_as_before() {
+        StepClassFileScanner scanner = new StepClassFileScanner(getClass().getClassLoader());
+
+        assertThat(scanner.hasStepMethods(new byte[]{(byte) 0xCA, (byte) 0xFE})).isTrue();
+    }
+
+    private List<String> namesOf(List<Class<?>> classes) {
+        return convert(classes, new PropertyExtractor("name"));
+    }
+
+    private void compile(String... sourceFiles) throws IOException {
+        compileInto(classes, sourceFiles);
+    }
+
+    private void compileInto(File outputDirectory, String... sourceFiles) throws IOException {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, Charsets.UTF_8)) {
+            List<File> files = Lists.newArrayList();
+            for (String sourceFile : sourceFiles) {
+                files.add(new File(sources, sourceFile));
+            }
+            Iterable<? extends JavaFileObject> compilationUnits = fileManager.getJavaFileObjectsFromFiles(files);
+            List<String> options = ImmutableList.of("-d", outputDirectory.getPath(),
+                                                    "-classpath", System.getProperty("java.class.path"),
+                                                    "-proc:none");
+            assertThat(compiler.getTask(null, fileManager, null, options, null, compilationUnits).call()).isTrue();
+        }
+    }
+
+    private void write(String sourceFile, String source) throws IOException {
+        File file = new File(sources, sourceFile);
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), source.getBytes(Charsets.UTF_8));
+    }
+
+    private File jarOf(File directory) throws IOException {
+        return jarOf(directory, new File(temporaryFolder.getRoot(), directory.getName() + ".jar"));
+    }
+
+    private File jarOf(File directory, File jar) throws IOException {
+        try (JarOutputStream out = new JarOutputStream(new FileOutputStream(jar))) {
+            addToJar(out, directory, "");
+        }
+        return jar;
+    }
+
+    private void addToJar(JarOutputStream out, File directory, String prefix) throws IOException {
+        for (File file : directory.listFiles()) {
+            if (file.isDirectory()) {
+                out.putNextEntry(new ZipEntry(prefix + file.getName() + "/"));
+                addToJar(out, file, prefix + file.getName() + "/");
+            } else {
+                out.putNextEntry(new ZipEntry(prefix + file.getName()));
+                out.write(Files.readAllBytes(file.toPath()));
+            }
+            out.closeEntry();
+        }
+    }
+
+    static class RecordingClassLoader extends URLClassLoader {
+        final List<String> loadedClasses = Lists.newArrayList();
+
+        RecordingClassLoader(File... roots) throws IOException {
+            super(urlsOf(roots), WhenScanningClassFilesForSteps.class.getClassLoader());
+        }
+
+        private static URL[] urlsOf(File... roots) throws IOException {
+            URL[] urls = new URL[roots.length];
+            for (int i = 0; i < roots.length; i++) {
+                urls[i] = roots[i].toURI().toURL();
+            }
+            return urls;
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            if (name.startsWith("com.acme.") && !loadedClasses.contains(name)) {
+                loadedClasses.add(name);
+            }
+            return super.loadClass(name, resolve);
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package net.serenitybdd.jbehave;
+
+import net.serenitybdd.jbehave.annotations.ScopedTo;
+import net.serenitybdd.jbehave.annotations.StepScope;
+import net.thucydides.core.annotations.Steps;
+import org.jbehave.core.configuration.MostUsefulConfiguration;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class WhenScopingStepLibraries {
+
+    public static class UnscopedSteps {}
+
+    @ScopedTo(StepScope.SCENARIO)
+    public static class ScenarioSteps {}
+
+    @ScopedTo(StepScope.STORY)
+    public static class StorySteps {}
+
+    @ScopedTo(StepScope.THREAD)
+    public static class ThreadSteps {}
+
+    @ScopedTo(StepScope.JVM)
+    public static class JvmSteps {}
+
+    @ScopedTo(StepScope.JVM)
+    public static class JvmStepsUsingLibraries {
+        @Steps
+        UnscopedSteps library;
+    }
+
+    static class CountingInjector implements SerenityStepContext.StepLibraryInjector {
+        final AtomicInteger injections = new AtomicInteger();
+
+        @Override
+        public void injectInto(Object stepLibrary) {
+            injections.incrementAndGet();
+        }
+    }
+
+    SerenityStepContext context = new SerenityStepContext();
+    CountingInjector injector = new CountingInjector();
+
+    @After
+    public void forgetSharedSteps() {
+        SerenityStepContext.resetJvmScopedSteps();
+    }
+
+    @Test
+    public void step_libraries_without_a_scope_should_be_kept_for_a_scenario_when_steps_are_reset_each_scenario() {
+        Object steps = context.newInstanceOf(UnscopedSteps.class);
+        assertThat(context.newInstanceOf(UnscopedSteps.class)).isSameAs(steps);
+
+        context.resetScenario(true);
+
+        assertThat(context.newInstanceOf(UnscopedSteps.class)).isNotSameAs(steps);
+    }
+
+    @Test
+    public void step_libraries_without_a_scope_should_be_kept_for_a_story_otherwise() {
+        Object steps = context.newInstanceOf(UnscopedSteps.class);
+
+        context.resetScenario(false);
+        assertThat(context.newInstanceOf(UnscopedSteps.class)).isSameAs(steps);
+
+        context.resetStory();
+        assertThat(context.newInstanceOf(UnscopedSteps.class)).isNotSameAs(steps);
+    }
+
+    @Test
+    public void scenario_scoped_step_libraries_should_be_created_for_each_scenario() {
+        Object steps = context.newInstanceOf(ScenarioSteps.class);
+
+        context.resetScenario(false);
+
+        assertThat(context.newInstanceOf(ScenarioSteps.class)).isNotSameAs(steps);
+    }
+
+    @Test
+    public void story_scoped_step_libraries_should_be_kept_for_the_whole_story() {
+        Object steps = context.newInstanceOf(StorySteps.class);
+
+        context.resetScenario(true);
+        assertThat(context.newInstanceOf(StorySteps.class)).isSameAs(steps);
+
+        context.resetStory();
+        assertThat(context.newInstanceOf(StorySteps.class)).isNotSameAs(steps);
+    }
+
+    @Test
+    public void thread_scoped_step_libraries_should_be_kept_from_one_story_to_the_next() {
+        Object steps = context.newInstanceOf(ThreadSteps.class);
+
+        context.resetStory();
+        assertThat(context.newInstanceOf(ThreadSteps.class)).isSameAs(steps);
+        assertThat(new SerenityStepContext().newInstanceOf(ThreadSteps.class)).isNotSameAs(steps);
+
+        SerenityStepContext contextOfAnotherThread = new SerenityStepContext();
+        assertThat(contextOfAnotherThread.newInstanceOf(ThreadSteps.class)).isNotSameAs(steps);
+    }
+
+    @Test
+    public void jvm_scoped_step_libraries_should_be_shared_by_all_threads() throws InterruptedException {
+        Object steps = context.newInstanceOf(JvmSteps.class);
+        final AtomicReference<Object> stepsInAnotherThread = new AtomicReference<>();
+
+        Thread otherThread = new Thread() {
+            @Override
+            public void run() {
+                stepsInAnotherThread.set(new SerenityStepContext().newInstanceOf(JvmSteps.class));
+            }
+        };
+        otherThread.start();
+        otherThread.join();
+        context.resetStory();
+
+        assertThat(stepsInAnotherThread.get()).isSameAs(steps);
+        assertThat(context.newInstanceOf(JvmSteps.class)).isSameAs(steps);
+    }
+
+    @Test
+    public void the_step_libraries_of_threads_that_have_died_should_be_dropped() throws InterruptedException {
+        final SerenityStepFactory stepFactory = SerenityStepFactory.withStepsFromPackage("net.serenitybdd.jbehave.steps",
+                                                                                        new MostUsefulConfiguration());
+        Thread poolThread = new Thread() {
+            @Override
+            public void run() {
+                stepFactory.getContext().newInstanceOf(ThreadSteps.class);
+            }
+        };
+        poolThread.start();
+        poolThread.join();
+        assertThat(SerenityStepFactory.hasContextFor(poolThread)).isTrue();
+
+        SerenityStepFactory.resetContext();
+
+        assertThat(SerenityStepFactory.hasContextFor(poolThread)).isFalse();
+    }
+
+    @Test
+    public void the_step_libraries_of_every_thread_should_be_dropped_when_the_step_classes_are_reloaded() {
+        SerenityStepFactory stepFactory = SerenityStepFactory.withStepsFromPackage("net.serenitybdd.jbehave.steps",
+                                                                                  new MostUsefulConfiguration());
+        Object jvmSteps = stepFactory.getContext().newInstanceOf(JvmSteps.class);
+
+        SerenityStepFactory.resetAllContexts();
+
+        assertThat(SerenityStepFactory.hasContextFor(Thread.currentThread())).isFalse();
+        assertThat(stepFactory.getContext().newInstanceOf(JvmSteps.class)).isNotSameAs(jvmSteps);
+    }
+
+    @Test
+    public void step_libraries_should_be_injected_each_time_they_are_used() {
+        context.newInstanceOf(UnscopedSteps.class, injector);
+        context.newInstanceOf(UnscopedSteps.class, injector);
+
+        assertThat(injector.injections.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void thread_scoped_step_libraries_should_be_injected_once_per_story() {
+        context.newInstanceOf(ThreadSteps.class, injector);
+        context.newInstanceOf(ThreadSteps.class, injector);
+        assertThat(injector.injections.get()).isEqualTo(1);
+
+        context.resetStory();
+        context.newInstanceOf(ThreadSteps.class, injector);
+        assertThat(injector.injections.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void jvm_scoped_step_libraries_should_only_be_injected_when_they_are_created() {
+        context.newInstanceOf(JvmSteps.class, injector);
+        context.newInstanceOf(JvmSteps.class, injector);
+        new SerenityStepContext().newInstanceOf(JvmSteps.class, injector);
+
+        assertThat(injector.injections.get()).isEqualTo(1);
+    }
+
+    @Test(expected = SerenityStepInitializationError.class)
+    public void step_libraries_with_fields_belonging_to_a_thread_should_not_be_scoped_to_the_jvm() {
+        SerenityStepFactory.withStepsFromPackage("net.serenitybdd.jbehave.steps", new MostUsefulConfiguration())
+                           .createInstanceOfType(JvmStepsUsingLibraries.class);
+    }
+}
@@ -0,0 +1,135 @@
+package net.serenitybdd.jbehave;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import net.serenitybdd.jbehave.steps.SomeNormalSteps;
+import net.serenitybdd.jbehave.steps.StorySteps;
+import org.junit.Test;
+
+import java.lang.ref.WeakReference;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class WhenSharingStepTypes {
+
+    StepTypesRegistry registry = new StepTypesRegistry();
+    ClassLoader classLoader = getClass().getClassLoader();
+    CountingFinder finder = new CountingFinder(SomeNormalSteps.class, StorySteps.class);
+
+    @Test
+    public void the_step_types_of_a_root_package_should_only_be_found_once() {
+        registry.stepTypesUnder("net.serenitybdd.jbehave.steps", classLoader, finder);
+        List<Class<?>> stepTypes = registry.stepTypesUnder("net.serenitybdd.jbehave.steps", classLoader, finder);
+
+        assertThat(stepTypes).containsExactly(SomeNormalSteps.class, StorySteps.class);
+        assertThat(finder.calls.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void each_root_package_and_class_loader_should_have_its_own_step_types() {
+        registry.stepTypesUnder("net.serenitybdd.jbehave.steps", classLoader, finder);
+        registry.stepTypesUnder("net.serenitybdd.jbehave", classLoader, finder);
+        registry.stepTypesUnder("net.serenitybdd.jbehave.steps", new URLClassLoader(new URL[0], classLoader), finder);
+
+        assertThat(finder.calls.get()).isEqualTo(3);
+    }
+
+    @Test
+    public void invalidated_step_types_should_be_found_again() {
+        registry.stepTypesUnder("net.serenitybdd.jbehave.steps", classLoader, finder);
+        registry.stepTypesUnder("net.serenitybdd.jbehave", classLoader, finder);
+
+        registry.invalidate("net.serenitybdd.jbehave.steps");
+        registry.stepTypesUnder("net.serenitybdd.jbehave.steps", classLoader, finder);
+        registry.stepTypesUnder("net.serenitybdd.jbehave", classLoader, finder);
+        assertThat(finder.calls.get()).isEqualTo(3);
+
+        registry.invalidateAll();
+        registry.stepTypesUnder("net.serenitybdd.jbehave", classLoader, finder);
+        assertThat(finder.calls.get()).isEqualTo(4);
+    }
+
+    @Test
+    public void runners_asking_for_the_same_step_types_at_the_same_time_should_share_them() throws InterruptedException {
+        final CountDownLatch start = new CountDownLatch(1);
+        List<Thread> runners = Lists.newArrayList();
+        for (int i = 0; i < 8; i++) {
+            Thread runner = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    registry.stepTypesUnder("net.serenitybdd.jbehave.steps", classLoader, finder);
+                }
+            };
+            runner.start();
+            runners.add(runner);
+        }
+        start.countDown();
+        for (Thread runner : runners) {
+            runner.join();
+        }
+
+        assertThat(finder.calls.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void class_loaders_that_are_no_longer_used_should_be_garbage_collected() throws Exception {
+        WeakReference<ClassLoader> droppedClassLoader = stepTypesFoundWithAClassLoaderThatIsThenDropped();
+
+        for (int attempt = 0; attempt < 50 && droppedClassLoader.get() != null; attempt++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+
+        assertThat(droppedClassLoader.get()).isNull();
+    }
+
+    private WeakReference<ClassLoader> stepTypesFoundWithAClassLoaderThatIsThenDropped() throws Exception {
+        URL testClasses = CountingFinder.class.getProtectionDomain().getCodeSource().getLocation();
+        final URLClassLoader reloadingClassLoader = new URLClassLoader(new URL[]{testClasses}, null);
+        List<Class<?>> stepTypes = registry.stepTypesUnder("net.serenitybdd.jbehave", reloadingClassLoader, new Callable<List<Class<?>>>() {
+            @Override
+            public List<Class<?>> call() throws Exception {
+                return ImmutableList.<Class<?>>of(reloadingClassLoader.loadClass(CountingFinder.class.getName()));
+            }
+        });
+        assertThat(stepTypes.get(0).getClassLoader()).isSameAs(reloadingClassLoader);
+        return new WeakReference<ClassLoader>(reloadingClassLoader);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void failures_to_find_the_step_types_should_be_reported_to_the_runner() {
+        registry.stepTypesUnder("net.serenitybdd.jbehave.steps", classLoader, new Callable<List<Class<?>>>() {
+            @Override
+            public List<Class<?>> call() {
+                throw new IllegalStateException("cannot scan the classpath");
+            }
+        });
+    }
+
+    static class CountingFinder implements Callable<List<Class<?>>> {
+        final AtomicInteger calls = new AtomicInteger();
+        final List<Class<?>> stepTypes;
+
+        CountingFinder(Class<?>... stepTypes) {
+            this.stepTypes = ImmutableList.copyOf(stepTypes);
+        }
+
+        @Override
+        public List<Class<?>> call() throws Exception {
+            calls.incrementAndGet();
+            Thread.sleep(20);
+            return stepTypes;
+        }
+    }
+}
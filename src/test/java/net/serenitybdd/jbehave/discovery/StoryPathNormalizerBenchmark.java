@@ -0,0 +1,64 @@
+package net.serenitybdd.jbehave.discovery;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+
+import java.util.List;
+
+/**
+ * Times {@link StoryPathNormalizer#normalize} on 50000 story paths, and on half and twice as many, so that its
+ * O(n log n) growth can be checked: doubling the number of paths should a little more than double the time,
+ * where comparing every path with every other one would quadruple it. Run it with the storyPathBenchmark task,
+ * or pass the number of paths to time as arguments.
+ */
+public class StoryPathNormalizerBenchmark {
+
+    private static final int WARMUP_RUNS = 5;
+    private static final int MEASURED_RUNS = 10;
+
+    public static void main(String[] args) {
+        int[] pathCounts = (args.length == 0) ? new int[]{25000, 50000, 100000} : pathCountsIn(args);
+        StoryPathNormalizer normalizer = new StoryPathNormalizer(ImmutableList.of("Given", "Precondition"));
+        double previousMillis = 0;
+        int previousCount = 0;
+        for (int pathCount : pathCounts) {
+            List<String> storyPaths = storyPaths(pathCount);
+            for (int run = 0; run < WARMUP_RUNS; run++) {
+                normalizer.normalize(storyPaths);
+            }
+            long start = System.nanoTime();
+            for (int run = 0; run < MEASURED_RUNS; run++) {
+                normalizer.normalize(storyPaths);
+            }
+            double millis = (System.nanoTime() - start) / 1e6 / MEASURED_RUNS;
+            if (previousCount == 0) {
+                System.out.printf("%7d paths: %8.2f ms%n", pathCount, millis);
+            } else {
+                System.out.printf("%7d paths: %8.2f ms (x%.2f for x%.2f paths)%n",
+                                  pathCount, millis, millis / previousMillis, (double) pathCount / previousCount);
+            }
+            previousMillis = millis;
+            previousCount = pathCount;
+        }
+    }
+
+    /**
+     * Half of the paths are shorter versions of the other half, as when stories are found from several classpath roots.
+     */
+    private static List<String> storyPaths(int pathCount) {
+        List<String> storyPaths = Lists.newArrayListWithCapacity(pathCount);
+        for (int i = 0; i < pathCount / 2; i++) {
+            storyPaths.add("stories/feature" + (i % 100) + "/story" + i + ".story");
+            storyPaths.add("feature" + (i % 100) + "/story" + i + ".story");
+        }
+        return storyPaths;
+    }
+
+    private static int[] pathCountsIn(String[] args) {
+        int[] pathCounts = new int[args.length];
+        for (int i = 0; i < args.length; i++) {
+            pathCounts[i] = Integer.parseInt(args[i]);
+        }
+        return pathCounts;
+    }
+}
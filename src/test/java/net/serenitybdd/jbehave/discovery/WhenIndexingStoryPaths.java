@@ -0,0 +1,97 @@
+package net.serenitybdd.jbehave.discovery;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.util.List;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class WhenIndexingStoryPaths {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    File storyRoot;
+    File indexFile;
+
+    @Before
+    public void setupStories() throws IOException {
+        storyRoot = temporaryFolder.newFolder("stories-root");
+        new File(storyRoot, "stories/samples").mkdirs();
+        new File(storyRoot, "stories/samples/some_behavior.story").createNewFile();
+        new File(storyRoot, "stories/other_behavior.story").createNewFile();
+        indexFile = new File(temporaryFolder.getRoot(), "index/stories.idx");
+    }
+
+    @Test
+    public void should_find_stories_on_the_first_scan() throws Exception {
+        StoryPathIndex index = StoryPathIndex.storedIn(indexFile);
+
+        List<String> storyPaths = index.findPaths(rootUrl(), StoryPathMatcher.including("**/*.story"));
+
+        assertThat(storyPaths).containsOnly("stories/samples/some_behavior.story", "stories/other_behavior.story");
+        assertThat(index.getScannedRoots()).isEqualTo(1);
+    }
+
+    @Test
+    public void should_reuse_the_stories_of_an_unchanged_root_in_a_later_run() throws Exception {
+        StoryPathIndex firstRun = StoryPathIndex.storedIn(indexFile);
+        firstRun.findPaths(rootUrl(), StoryPathMatcher.including("**/*.story"));
+        firstRun.save();
+
+        StoryPathIndex secondRun = StoryPathIndex.storedIn(indexFile);
+        List<String> storyPaths = secondRun.findPaths(rootUrl(), StoryPathMatcher.including("**/*.story"));
+
+        assertThat(storyPaths).containsOnly("stories/samples/some_behavior.story", "stories/other_behavior.story");
+        assertThat(secondRun.getScannedRoots()).isEqualTo(0);
+        assertThat(secondRun.getReusedRoots()).isEqualTo(1);
+    }
+
+    @Test
+    public void should_rescan_a_root_when_a_story_is_added() throws Exception {
+        StoryPathIndex firstRun = StoryPathIndex.storedIn(indexFile);
+        firstRun.findPaths(rootUrl(), StoryPathMatcher.including("**/*.story"));
+        firstRun.save();
+
+        File samples = new File(storyRoot, "stories/samples");
+        new File(samples, "new_behavior.story").createNewFile();
+        samples.setLastModified(samples.lastModified() + 2000);
+
+        StoryPathIndex secondRun = StoryPathIndex.storedIn(indexFile);
+        List<String> storyPaths = secondRun.findPaths(rootUrl(), StoryPathMatcher.including("**/*.story"));
+
+        assertThat(storyPaths).contains("stories/samples/new_behavior.story");
+        assertThat(secondRun.getScannedRoots()).isEqualTo(1);
+    }
+
+    @Test
+    public void should_index_each_path_expression_separately() throws Exception {
+        StoryPathIndex index = StoryPathIndex.inMemory();
+
+        index.findPaths(rootUrl(), StoryPathMatcher.including("**/*.story"));
+        List<String> storyPaths = index.findPaths(rootUrl(), StoryPathMatcher.including("**/samples/*.story"));
+
+        assertThat(storyPaths).containsOnly("stories/samples/some_behavior.story");
+    }
+
+    @Test
+    public void should_ignore_an_unreadable_index_file() throws Exception {
+        indexFile.getParentFile().mkdirs();
+        Files.write(indexFile.toPath(), "not an index".getBytes("UTF-8"));
+
+        StoryPathIndex index = StoryPathIndex.storedIn(indexFile);
+
+        assertThat(index.findPaths(rootUrl(), StoryPathMatcher.including("**/*.story"))).hasSize(2);
+    }
+
+    private URL rootUrl() throws Exception {
+        return storyRoot.toURI().toURL();
+    }
+}
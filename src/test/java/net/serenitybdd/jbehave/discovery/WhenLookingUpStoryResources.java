@@ -0,0 +1,69 @@
+package net.serenitybdd.jbehave.discovery;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class WhenLookingUpStoryResources {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    StoryResourceIndex index;
+
+    @Before
+    public void setupClasspath() throws IOException {
+        File classes = temporaryFolder.newFolder("classes");
+        new File(classes, "stories").mkdirs();
+        new File(classes, "stories/directory_behavior.story").createNewFile();
+        new File(classes, "stories/shared_behavior.story").createNewFile();
+
+        File jar = new File(temporaryFolder.getRoot(), "stories.jar");
+        try (ZipOutputStream jarContents = new ZipOutputStream(new FileOutputStream(jar))) {
+            jarContents.putNextEntry(new ZipEntry("stories/packaged_behavior.story"));
+            jarContents.putNextEntry(new ZipEntry("stories/shared_behavior.story"));
+        }
+
+        URLClassLoader classLoader = new URLClassLoader(new URL[]{classes.toURI().toURL(), jar.toURI().toURL()}, null);
+        index = StoryResourceIndex.on(classLoader);
+    }
+
+    @Test
+    public void should_find_stories_in_directories_and_jars() {
+        assertThat(index.resourceNamed("stories/directory_behavior.story").getProtocol()).isEqualTo("file");
+        assertThat(index.resourceNamed("stories/packaged_behavior.story").getProtocol()).isEqualTo("jar");
+    }
+
+    @Test
+    public void should_use_the_first_classpath_entry_containing_a_story() {
+        assertThat(index.resourceNamed("stories/shared_behavior.story").getProtocol()).isEqualTo("file");
+    }
+
+    @Test
+    public void should_only_find_names_with_a_leading_slash_in_directories() {
+        assertThat(index.resourceNamed("/stories/directory_behavior.story")).isNotNull();
+        assertThat(index.resourceNamed("/stories/packaged_behavior.story")).isNull();
+    }
+
+    @Test
+    public void should_not_find_stories_that_are_not_on_the_classpath() {
+        assertThat(index.resourceNamed("stories/missing_behavior.story")).isNull();
+    }
+
+    @Test
+    public void should_know_which_story_names_are_on_the_classpath() {
+        assertThat(index.mightContainStoriesNamed("Packaged_Behavior.story")).isTrue();
+        assertThat(index.mightContainStoriesNamed("missing_behavior.story")).isFalse();
+    }
+}
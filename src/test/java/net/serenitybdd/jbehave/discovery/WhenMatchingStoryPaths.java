@@ -0,0 +1,84 @@
+package net.serenitybdd.jbehave.discovery;
+
+import com.google.common.collect.ImmutableList;
+import org.codehaus.plexus.util.SelectorUtils;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class WhenMatchingStoryPaths {
+
+    @Test
+    public void should_match_stories_at_any_depth() {
+        StoryPathMatcher matcher = StoryPathMatcher.including("**/*.story");
+
+        assertThat(matcher.matches("top_level.story")).isTrue();
+        assertThat(matcher.matches("stories/samples/some_behavior.story")).isTrue();
+        assertThat(matcher.matches("stories/samples/notes.txt")).isFalse();
+    }
+
+    @Test
+    public void should_match_any_of_several_path_expressions() {
+        StoryPathMatcher matcher = StoryPathMatcher.including("stories/*.story", "**/legacy/**/*.txt,extra/");
+
+        assertThat(matcher.matches("stories/some_behavior.story")).isTrue();
+        assertThat(matcher.matches("stories/samples/some_behavior.story")).isFalse();
+        assertThat(matcher.matches("old/legacy/a/b/notes.txt")).isTrue();
+        assertThat(matcher.matches("extra/anything/at/all.json")).isTrue();
+    }
+
+    @Test
+    public void should_reject_excluded_paths() {
+        StoryPathMatcher matcher = StoryPathMatcher.including("**/*.story")
+                                                   .excluding(ImmutableList.of("**/drafts/**", "**/*_wip.story"));
+
+        assertThat(matcher.matches("stories/some_behavior.story")).isTrue();
+        assertThat(matcher.matches("stories/some_behavior_wip.story")).isFalse();
+    }
+
+    @Test
+    public void should_not_descend_into_excluded_directories() {
+        StoryPathMatcher matcher = StoryPathMatcher.including("**/*.story")
+                                                   .excluding(ImmutableList.of("**/drafts/**"));
+
+        StoryPathMatcher.State stories = matcher.enterDirectory(matcher.start(), "stories");
+        StoryPathMatcher.State drafts = matcher.enterDirectory(stories, "drafts");
+
+        assertThat(matcher.shouldDescendInto(stories)).isTrue();
+        assertThat(matcher.shouldDescendInto(drafts)).isFalse();
+    }
+
+    @Test
+    public void should_not_descend_into_directories_no_pattern_can_match() {
+        StoryPathMatcher matcher = StoryPathMatcher.including("stories/samples/*.story");
+
+        StoryPathMatcher.State net = matcher.enterDirectory(matcher.start(), "net");
+        StoryPathMatcher.State samples = matcher.enterDirectory(matcher.enterDirectory(matcher.start(), "stories"), "samples");
+
+        assertThat(matcher.shouldDescendInto(net)).isFalse();
+        assertThat(matcher.shouldDescendInto(samples)).isTrue();
+    }
+
+    @Test
+    public void should_never_match_absolute_patterns_against_relative_paths() {
+        assertThat(StoryPathMatcher.including("/stories/some_behavior.story").matches("stories/some_behavior.story")).isFalse();
+    }
+
+    @Test
+    public void should_agree_with_the_ant_style_matching_used_by_jbehave() {
+        List<String> patterns = ImmutableList.of("**/*.story", "stories/**", "*.story", "**/samples/*", "a/**/b/*.story",
+                                                 "**/s?mples/**/*behavior.story", "stories/samples/some_behavior.story");
+        List<String> paths = ImmutableList.of("top_level.story", "stories/samples/some_behavior.story", "a/b/c.story",
+                                              "a/x/y/b/c.story", "stories/other.txt", "x/simples/y/z_behavior.story");
+
+        for (String pattern : patterns) {
+            for (String path : paths) {
+                assertThat(StoryPathMatcher.including(pattern).matches(path))
+                        .as(pattern + " against " + path)
+                        .isEqualTo(SelectorUtils.matchPath(pattern, path, "/", true));
+            }
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package net.serenitybdd.jbehave.discovery;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class WhenNormalizingStoryPaths {
+
+    StoryPathNormalizer normalizer = new StoryPathNormalizer(ImmutableList.of("Given", "Precondition"));
+
+    @Test
+    public void should_sort_story_paths() {
+        List<String> storyPaths = normalizer.normalize(ImmutableList.of("stories/b.story", "stories/a.story"));
+
+        assertThat(storyPaths).containsExactly("stories/a.story", "stories/b.story");
+    }
+
+    @Test
+    public void should_remove_shorter_versions_of_the_same_story_path() {
+        List<String> storyPaths = normalizer.normalize(ImmutableList.of("stories/samples/a.story",
+                                                                        "samples/a.story",
+                                                                        "a.story",
+                                                                        "b.story"));
+
+        assertThat(storyPaths).containsExactly("b.story", "stories/samples/a.story");
+    }
+
+    @Test
+    public void should_only_compare_whole_path_segments() {
+        List<String> storyPaths = normalizer.normalize(ImmutableList.of("stories/my_a.story", "a.story"));
+
+        assertThat(storyPaths).containsExactly("a.story", "stories/my_a.story");
+    }
+
+    @Test
+    public void should_treat_backslashes_as_path_separators() {
+        List<String> storyPaths = normalizer.normalize(ImmutableList.of("stories\\a.story", "a.story"));
+
+        assertThat(storyPaths).containsExactly("stories\\a.story");
+    }
+
+    @Test
+    public void should_remove_given_stories_and_preconditions_whatever_their_case() {
+        List<String> storyPaths = normalizer.normalize(ImmutableList.of("GivenALoggedInUser.story",
+                                                                        "/preconditionSomeData.story",
+                                                                        "stories/a.story"));
+
+        assertThat(storyPaths).containsExactly("stories/a.story");
+    }
+
+    @Test
+    public void should_keep_the_longest_path_of_each_of_25000_stories() {
+        List<String> storyPaths = Lists.newArrayList();
+        for (int i = 0; i < 25000; i++) {
+            storyPaths.add("stories/feature" + (i % 100) + "/story" + i + ".story");
+            storyPaths.add("feature" + (i % 100) + "/story" + i + ".story");
+        }
+
+        List<String> normalizedPaths = normalizer.normalize(storyPaths);
+
+        assertThat(normalizedPaths).hasSize(25000)
+                                   .contains("stories/feature0/story0.story", "stories/feature99/story24999.story")
+                                   .excludes("feature0/story0.story", "feature99/story24999.story");
+    }
+}
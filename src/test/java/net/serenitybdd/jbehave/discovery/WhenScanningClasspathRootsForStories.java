@@ -0,0 +1,87 @@
+package net.serenitybdd.jbehave.discovery;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class WhenScanningClasspathRootsForStories {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    File directoryRoot;
+    File jarRoot;
+
+    @Before
+    public void setupClasspathRoots() throws IOException {
+        directoryRoot = temporaryFolder.newFolder("classes");
+        new File(directoryRoot, "stories/samples").mkdirs();
+        new File(directoryRoot, "stories/samples/some_behavior.story").createNewFile();
+        new File(directoryRoot, "stories/samples/notes.txt").createNewFile();
+        new File(directoryRoot, "top_level.story").createNewFile();
+
+        jarRoot = new File(temporaryFolder.getRoot(), "stories.jar");
+        try (ZipOutputStream jar = new ZipOutputStream(new FileOutputStream(jarRoot))) {
+            jar.putNextEntry(new ZipEntry("stories/"));
+            jar.putNextEntry(new ZipEntry("stories/packaged_behavior.story"));
+            jar.putNextEntry(new ZipEntry("net/serenitybdd/SomeClass.class"));
+        }
+    }
+
+    @Test
+    public void should_find_stories_in_a_directory() throws Exception {
+        List<String> storyPaths = new StoryFileScanner().findPaths(urlOf(directoryRoot), StoryPathMatcher.including("**/*.story"));
+
+        assertThat(storyPaths).containsOnly("stories/samples/some_behavior.story", "top_level.story");
+    }
+
+    @Test
+    public void should_find_stories_in_a_jar_file() throws Exception {
+        List<String> storyPaths = new StoryFileScanner().findPaths(urlOf(jarRoot), StoryPathMatcher.including("**/*.story"));
+
+        assertThat(storyPaths).containsOnly("stories/packaged_behavior.story");
+    }
+
+    @Test
+    public void should_accept_several_comma_separated_patterns() throws Exception {
+        List<String> storyPaths = new StoryFileScanner().findPaths(urlOf(directoryRoot), StoryPathMatcher.including("top_level.story,**/*.txt"));
+
+        assertThat(storyPaths).containsOnly("top_level.story", "stories/samples/notes.txt");
+    }
+
+    @Test
+    public void should_find_nothing_in_a_missing_classpath_root() throws Exception {
+        List<String> storyPaths = new StoryFileScanner().findPaths(urlOf(new File(directoryRoot, "missing")), StoryPathMatcher.including("**/*.story"));
+
+        assertThat(storyPaths).isEmpty();
+    }
+
+    @Test
+    public void should_merge_the_stories_found_in_several_classpath_roots() throws Exception {
+        ParallelStoryFinder finder = new ParallelStoryFinder(StoryPathIndex.inMemory(), 4);
+
+        Set<String> storyPaths = finder.findPaths(ImmutableList.of(urlOf(directoryRoot), urlOf(jarRoot)),
+                                                  StoryPathMatcher.including("**/*.story"));
+
+        assertThat(storyPaths).containsOnly("stories/samples/some_behavior.story",
+                                            "top_level.story",
+                                            "stories/packaged_behavior.story");
+    }
+
+    private URL urlOf(File file) throws Exception {
+        return file.toURI().toURL();
+    }
+}
@@ -0,0 +1,90 @@
+package net.serenitybdd.jbehave.embedders;
+
+import com.google.common.collect.ImmutableList;
+import org.jbehave.core.annotations.Given;
+import org.jbehave.core.configuration.Configuration;
+import org.jbehave.core.configuration.MostUsefulConfiguration;
+import org.jbehave.core.embedder.Embedder;
+import org.jbehave.core.io.StoryLoader;
+import org.jbehave.core.model.Story;
+import org.jbehave.core.reporters.StoryReporterBuilder;
+import org.jbehave.core.steps.InstanceStepsFactory;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class WhenRunningRegisteredStories {
+
+    public static class AccountSteps {
+        final List<String> accounts = new CopyOnWriteArrayList<>();
+
+        @Given("an account called $name")
+        public void anAccountCalled(String name) {
+            accounts.add(name);
+        }
+    }
+
+    AccountSteps steps = new AccountSteps();
+    List<String> loadedStories = new CopyOnWriteArrayList<>();
+    ExtendedEmbedder embedder;
+
+    StoryLoader storyLoader = new StoryLoader() {
+        @Override
+        public String loadStoryAsText(String storyPath) {
+            loadedStories.add(storyPath);
+            return "Scenario: loaded\nGiven an account called loaded";
+        }
+
+        @Override
+        public String loadResourceAsText(String resourcePath) {
+            return loadStoryAsText(resourcePath);
+        }
+    };
+
+    @Before
+    public void setupEmbedder() {
+        Configuration configuration = new MostUsefulConfiguration()
+                .useStoryLoader(storyLoader)
+                .useStoryReporterBuilder(new StoryReporterBuilder());
+        embedder = new ExtendedEmbedder(new Embedder());
+        embedder.useConfiguration(configuration);
+        embedder.useStepsFactory(new InstanceStepsFactory(configuration, steps));
+        embedder.embedderControls().doGenerateViewAfterStories(false);
+    }
+
+    @Test
+    public void registered_stories_should_be_run_without_being_loaded_again() {
+        embedder.registerStory("stories/registered.story", storyOf("stories/registered.story", "Scenario: registered\nGiven an account called registered"));
+
+        embedder.runRegisteredStories(ImmutableList.of("stories/registered.story"));
+
+        assertThat(steps.accounts).containsExactly("registered");
+        assertThat(loadedStories).isEmpty();
+    }
+
+    @Test
+    public void stories_that_were_not_registered_should_be_loaded() {
+        embedder.runRegisteredStories(ImmutableList.of("stories/unregistered.story"));
+
+        assertThat(steps.accounts).containsExactly("loaded");
+        assertThat(loadedStories).containsExactly("stories/unregistered.story");
+    }
+
+    @Test
+    public void registered_stories_can_be_run_again() {
+        embedder.registerStory("stories/registered.story", storyOf("stories/registered.story", "Scenario: registered\nGiven an account called registered"));
+
+        embedder.runRegisteredStories(ImmutableList.of("stories/registered.story"));
+        embedder.rerunStories(ImmutableList.of("stories/registered.story"));
+
+        assertThat(steps.accounts).containsExactly("registered", "registered");
+    }
+
+    private Story storyOf(String storyPath, String storyAsText) {
+        return embedder.configuration().storyParser().parseStory(storyAsText, storyPath);
+    }
+}
@@ -0,0 +1,164 @@
+package net.serenitybdd.jbehave.givenstories;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import net.serenitybdd.jbehave.embedders.ExtendedEmbedder;
+import org.jbehave.core.annotations.Given;
+import org.jbehave.core.annotations.Then;
+import org.jbehave.core.configuration.Configuration;
+import org.jbehave.core.configuration.MostUsefulConfiguration;
+import org.jbehave.core.embedder.Embedder;
+import org.jbehave.core.io.StoryLoader;
+import org.jbehave.core.reporters.NullStoryReporter;
+import org.jbehave.core.reporters.StoryReporterBuilder;
+import org.jbehave.core.steps.InstanceStepsFactory;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class WhenMemoizingGivenStories {
+
+    public static class LoginSteps {
+        int logins;
+        int checks;
+
+        @Given("I log in as $user")
+        public void logIn(String user) {
+            logins++;
+            if (user.equals("nobody")) {
+                throw new IllegalStateException("no such user");
+            }
+        }
+
+        @Then("I should see my account")
+        public void checkAccount() {
+            checks++;
+        }
+    }
+
+    public static class ThreadRecordingSteps {
+        final List<String> loginThreads = Collections.synchronizedList(Lists.<String>newArrayList());
+        final Set<String> checkThreads = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+        @Given("I log in as $user")
+        public void logIn(String user) {
+            loginThreads.add(Thread.currentThread().getName());
+        }
+
+        @Then("I should see my account")
+        public void checkAccount() {
+            checkThreads.add(Thread.currentThread().getName());
+        }
+    }
+
+    static final Map<String, String> STORIES = ImmutableMap.<String, String>builder()
+            .put("stories/login.story", "Meta:\n@memoize\n\nScenario: Logging in\nGiven I log in as joe\n")
+            .put("stories/failing-login.story", "Meta:\n@memoize\n\nScenario: Logging in\nGiven I log in as nobody\n")
+            .put("stories/plain-login.story", "Scenario: Logging in\nGiven I log in as joe\n")
+            .put("stories/first.story", "GivenStories: stories/login.story\n\nScenario: First\nThen I should see my account\n")
+            .put("stories/second.story", "GivenStories: stories/login.story\n\nScenario: Second\nThen I should see my account\n")
+            .put("stories/third.story", "GivenStories: stories/login.story\n\nScenario: Third\nThen I should see my account\n")
+            .put("stories/fourth.story", "GivenStories: stories/login.story\n\nScenario: Fourth\nThen I should see my account\n")
+            .put("stories/first-failing.story", "GivenStories: stories/failing-login.story\n\nScenario: First\nThen I should see my account\n")
+            .put("stories/second-failing.story", "GivenStories: stories/failing-login.story\n\nScenario: Second\nThen I should see my account\n")
+            .put("stories/first-plain.story", "GivenStories: stories/plain-login.story\n\nScenario: First\nThen I should see my account\n")
+            .put("stories/second-plain.story", "GivenStories: stories/plain-login.story\n\nScenario: Second\nThen I should see my account\n")
+            .build();
+
+    LoginSteps steps = new LoginSteps();
+    List<String> reportedSteps = Lists.newArrayList();
+
+    @Test
+    public void a_memoized_given_story_should_only_run_once() {
+        run("stories/first.story", "stories/second.story");
+
+        assertThat(steps.logins).isEqualTo(1);
+        assertThat(steps.checks).isEqualTo(2);
+    }
+
+    @Test
+    public void the_steps_of_a_memoized_given_story_should_still_be_reported() {
+        run("stories/first.story", "stories/second.story");
+
+        assertThat(reportedSteps).containsExactly(
+                "successful: Given I log in as joe", "successful: Then I should see my account",
+                "successful: Given I log in as joe", "successful: Then I should see my account");
+    }
+
+    @Test
+    public void a_memoized_given_story_that_failed_should_run_again() {
+        run("stories/first-failing.story", "stories/second-failing.story");
+
+        assertThat(steps.logins).isEqualTo(2);
+    }
+
+    @Test
+    public void given_stories_should_not_be_memoized_unless_they_ask_to_be() {
+        run("stories/first-plain.story", "stories/second-plain.story");
+
+        assertThat(steps.logins).isEqualTo(2);
+    }
+
+    @Test
+    public void each_worker_thread_should_run_a_memoized_given_story_itself_when_several_threads_run_the_stories() {
+        ThreadRecordingSteps threadRecordingSteps = new ThreadRecordingSteps();
+        ExtendedEmbedder embedder = new ExtendedEmbedder(new Embedder());
+        embedder.embedderControls().useThreads(2);
+
+        run(embedder, threadRecordingSteps, "stories/first.story", "stories/second.story", "stories/third.story", "stories/fourth.story");
+
+        assertThat(threadRecordingSteps.checkThreads).hasSize(2);
+        assertThat(threadRecordingSteps.loginThreads).containsOnly(threadRecordingSteps.checkThreads.toArray());
+        assertThat(threadRecordingSteps.loginThreads).hasSize(2);
+    }
+
+    private void run(String... storyPaths) {
+        run(new Embedder(), steps, storyPaths);
+    }
+
+    private void run(Embedder embedder, Object steps, String... storyPaths) {
+        Configuration configuration = new MostUsefulConfiguration()
+                .useStoryLoader(new StoryLoader() {
+                    @Override
+                    public String loadStoryAsText(String storyPath) {
+                        return STORIES.get(storyPath);
+                    }
+
+                    @Override
+                    public String loadResourceAsText(String resourcePath) {
+                        return loadStoryAsText(resourcePath);
+                    }
+                })
+                .useStoryReporterBuilder(new StoryReporterBuilder().withReporters(new StepRecorder()));
+        configuration.useStepCollector(new MemoizingStepCollector(configuration.stepCollector(), configuration.keywords(),
+                                                                  new ConcurrentHashMap<String, MemoizingStepCollector.Memo>()));
+
+        embedder.useConfiguration(configuration);
+        embedder.useCandidateSteps(new InstanceStepsFactory(configuration, steps).createCandidateSteps());
+        embedder.embedderControls().doIgnoreFailureInStories(true).doGenerateViewAfterStories(false);
+        embedder.runStoriesAsPaths(ImmutableList.copyOf(storyPaths));
+    }
+
+    class StepRecorder extends NullStoryReporter {
+        @Override
+        public void successful(String step) {
+            reportedSteps.add("successful: " + withoutParameterMarkers(step));
+        }
+
+        @Override
+        public void failed(String step, Throwable cause) {
+            reportedSteps.add("failed: " + withoutParameterMarkers(step));
+        }
+
+        private String withoutParameterMarkers(String step) {
+            return step.replaceAll("[^\\p{ASCII}]", "");
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package net.serenitybdd.jbehave.impact;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
+import net.serenitybdd.core.pages.PageObject;
+import net.thucydides.core.annotations.Steps;
+import org.jbehave.core.io.StoryLoader;
+import org.jbehave.core.io.StoryResourceNotFound;
+import org.jbehave.core.model.Story;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Map;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class WhenSelectingImpactedStories {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    public static class BaseSteps {}
+
+    public static class AccountSteps extends BaseSteps {}
+
+    public static class LoginPage extends PageObject {}
+
+    public static class LoginSteps {
+        LoginPage loginPage;
+    }
+
+    public static class StepsUsingALibrary {
+        @Steps
+        LoginSteps loginSteps;
+    }
+
+    File impactFile;
+    File classes;
+    ClassLoader classLoader;
+    Map<String, String> storyTexts = Maps.newHashMap();
+
+    StoryLoader storyLoader = new StoryLoader() {
+        @Override
+        public String loadStoryAsText(String storyPath) {
+            if (!storyTexts.containsKey(storyPath)) {
+                throw new StoryResourceNotFound(storyPath, (ClassLoader) null);
+            }
+            return storyTexts.get(storyPath);
+        }
+
+        @Override
+        public String loadResourceAsText(String resourcePath) {
+            return loadStoryAsText(resourcePath);
+        }
+    };
+
+    @Before
+    public void setupStoriesAndClasses() throws IOException {
+        impactFile = new File(temporaryFolder.getRoot(), "story-impact.bin");
+        classes = temporaryFolder.newFolder("classes");
+        new File(classes, "com/acme").mkdirs();
+        writeClassFile("com.acme.AccountSteps", "version 1");
+        classLoader = new URLClassLoader(new URL[]{classes.toURI().toURL()}, null);
+
+        storyTexts.put("stories/account.story", "Scenario: log in");
+        storyTexts.put("stories/report.story", "Scenario: report");
+        storyTexts.put("stories/login.story", "Scenario: a given story");
+    }
+
+    @Test
+    public void stories_that_never_passed_should_be_run() {
+        List<String> storiesToRun = StoryImpacts.none().storiesAffectedByChanges(allStories(), storyLoader, classLoader);
+
+        assertThat(storiesToRun).isEqualTo(allStories());
+    }
+
+    @Test
+    public void unchanged_stories_should_be_carried_forward() {
+        recordPassingStories();
+
+        List<String> storiesToRun = StoryImpacts.loadedFrom(impactFile).storiesAffectedByChanges(allStories(), storyLoader, classLoader);
+
+        assertThat(storiesToRun).isEmpty();
+    }
+
+    @Test
+    public void stories_should_be_run_when_their_story_file_changes() {
+        recordPassingStories();
+        storyTexts.put("stories/account.story", "Scenario: log in again");
+
+        List<String> storiesToRun = StoryImpacts.loadedFrom(impactFile).storiesAffectedByChanges(allStories(), storyLoader, classLoader);
+
+        assertThat(storiesToRun).containsOnly("stories/account.story");
+    }
+
+    @Test
+    public void stories_should_be_run_when_one_of_their_given_stories_changes() {
+        recordPassingStories();
+        storyTexts.put("stories/login.story", "Scenario: a changed given story");
+
+        List<String> storiesToRun = StoryImpacts.loadedFrom(impactFile).storiesAffectedByChanges(allStories(), storyLoader, classLoader);
+
+        assertThat(storiesToRun).containsOnly("stories/report.story");
+    }
+
+    @Test
+    public void stories_should_be_run_when_a_step_class_they_used_changes() throws IOException {
+        StoryImpacts impacts = StoryImpacts.none();
+        Fingerprints fingerprints = new Fingerprints(storyLoader, classLoader);
+        Map<String, String> storyHashes = Maps.newHashMap();
+        storyHashes.put("stories/account.story", fingerprints.ofStory("stories/account.story").get());
+        Map<String, String> classHashes = Maps.newHashMap();
+        classHashes.put("com.acme.AccountSteps", fingerprints.ofClass("com.acme.AccountSteps").get());
+        impacts.record(new StoryImpact("stories/account.story", System.currentTimeMillis(), storyHashes, classHashes));
+        impacts.saveTo(impactFile);
+
+        writeClassFile("com.acme.AccountSteps", "version 2");
+        List<String> storiesToRun = StoryImpacts.loadedFrom(impactFile)
+                .storiesAffectedByChanges(ImmutableList.of("stories/account.story"), storyLoader, classLoader);
+
+        assertThat(storiesToRun).containsOnly("stories/account.story");
+    }
+
+    @Test
+    public void stories_should_be_run_again_after_failing() {
+        recordPassingStories();
+        StoryImpacts impacts = StoryImpacts.loadedFrom(impactFile);
+        StoryImpactRecorder recorder = new StoryImpactRecorder(impacts, impactFile, storyLoader, getClass().getClassLoader());
+
+        recorder.beforeStory(new Story("stories/account.story"), false);
+        recorder.failed("When I log in", new AssertionError());
+        recorder.afterStory(false);
+        endTheRun(recorder);
+
+        List<String> storiesToRun = StoryImpacts.loadedFrom(impactFile).storiesAffectedByChanges(allStories(), storyLoader, classLoader);
+        assertThat(storiesToRun).containsOnly("stories/account.story");
+    }
+
+    @Test
+    public void should_record_the_step_classes_and_their_superclasses_used_by_each_story() {
+        StoryImpacts impacts = StoryImpacts.none();
+        StoryImpactRecorder recorder = new StoryImpactRecorder(impacts, impactFile, storyLoader, getClass().getClassLoader());
+
+        recorder.beforeStory(new Story("stories/account.story"), false);
+        StoryImpactRecorder.stepClassUsed(AccountSteps.class);
+        recorder.afterStory(false);
+
+        assertThat(impacts.impactOf("stories/account.story").get().getClassHashes().keySet())
+                .containsOnly(AccountSteps.class.getName(), BaseSteps.class.getName());
+    }
+
+    @Test
+    public void should_record_the_step_libraries_and_page_objects_used_by_the_step_classes() {
+        StoryImpacts impacts = StoryImpacts.none();
+        StoryImpactRecorder recorder = new StoryImpactRecorder(impacts, impactFile, storyLoader, getClass().getClassLoader());
+
+        recorder.beforeStory(new Story("stories/account.story"), false);
+        StoryImpactRecorder.stepClassUsed(StepsUsingALibrary.class);
+        recorder.afterStory(false);
+
+        assertThat(impacts.impactOf("stories/account.story").get().getClassHashes().keySet())
+                .contains(StepsUsingALibrary.class.getName(), LoginSteps.class.getName(), LoginPage.class.getName());
+    }
+
+    @Test
+    public void stories_should_be_run_when_a_step_library_they_used_changes() throws IOException {
+        StoryImpacts impacts = StoryImpacts.none();
+        StoryImpactRecorder recorder = new StoryImpactRecorder(impacts, impactFile, storyLoader, getClass().getClassLoader());
+        recorder.beforeStory(new Story("stories/account.story"), false);
+        StoryImpactRecorder.stepClassUsed(StepsUsingALibrary.class);
+        recorder.afterStory(false);
+        endTheRun(recorder);
+
+        File compiledClasses = temporaryFolder.newFolder("compiled-classes");
+        for (String className : impacts.impactOf("stories/account.story").get().getClassHashes().keySet()) {
+            copyClassFile(className, compiledClasses);
+        }
+        ClassLoader unchangedClasses = new URLClassLoader(new URL[]{compiledClasses.toURI().toURL()}, null);
+        assertThat(StoryImpacts.loadedFrom(impactFile)
+                .storiesAffectedByChanges(ImmutableList.of("stories/account.story"), storyLoader, unchangedClasses)).isEmpty();
+
+        try (FileOutputStream classFile = new FileOutputStream(new File(compiledClasses, LoginSteps.class.getName().replace('.', '/') + ".class"))) {
+            classFile.write("a changed step library".getBytes("UTF-8"));
+        }
+        ClassLoader changedClasses = new URLClassLoader(new URL[]{compiledClasses.toURI().toURL()}, null);
+        List<String> storiesToRun = StoryImpacts.loadedFrom(impactFile)
+                .storiesAffectedByChanges(ImmutableList.of("stories/account.story"), storyLoader, changedClasses);
+
+        assertThat(storiesToRun).containsOnly("stories/account.story");
+    }
+
+    private void copyClassFile(String className, File directory) throws IOException {
+        String classFileName = className.replace('.', '/') + ".class";
+        File classFile = new File(directory, classFileName);
+        classFile.getParentFile().mkdirs();
+        try (InputStream contents = getClass().getClassLoader().getResourceAsStream(classFileName)) {
+            Files.copy(contents, classFile.toPath());
+        }
+    }
+
+    private void recordPassingStories() {
+        StoryImpactRecorder recorder = new StoryImpactRecorder(StoryImpacts.none(), impactFile, storyLoader, classLoader);
+        recorder.beforeStory(new Story("stories/account.story"), false);
+        recorder.afterStory(false);
+        recorder.beforeStory(new Story("stories/report.story"), false);
+        recorder.beforeStory(new Story("stories/login.story"), true);
+        recorder.afterStory(true);
+        recorder.afterStory(false);
+        endTheRun(recorder);
+    }
+
+    private void endTheRun(StoryImpactRecorder recorder) {
+        recorder.beforeStory(new Story("AfterStories"), false);
+        recorder.afterStory(false);
+    }
+
+    private List<String> allStories() {
+        return ImmutableList.of("stories/account.story", "stories/report.story");
+    }
+
+    private void writeClassFile(String className, String contents) throws IOException {
+        try (FileOutputStream classFile = new FileOutputStream(new File(classes, className.replace('.', '/') + ".class"))) {
+            classFile.write(contents.getBytes("UTF-8"));
+        }
+    }
+}
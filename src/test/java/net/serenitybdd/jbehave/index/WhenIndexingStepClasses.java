@@ -0,0 +1,219 @@
+package net.serenitybdd.jbehave.index;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class WhenIndexingStepClasses {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    File sources;
+    File classes;
+
+    @Before
+    public void setupDirectories() throws IOException {
+        sources = temporaryFolder.newFolder("sources");
+        classes = temporaryFolder.newFolder("classes");
+    }
+
+    @Test
+    public void classes_with_jbehave_annotated_methods_should_be_indexed() throws IOException {
+        write("com/acme/steps/AccountSteps.java",
+              "package com.acme.steps;\n" +
+              "public class AccountSteps {\n" +
+              "    @org.jbehave.core.annotations.Given(\"an account\")\n" +
+              "    public void anAccount() {}\n" +
+              "}\n");
+        write("com/acme/steps/Hooks.java",
+              "package com.acme.steps;\n" +
+              "public class Hooks {\n" +
+              "    @org.jbehave.core.annotations.BeforeStory\n" +
+              "    public void setUp() {}\n" +
+              "}\n");
+        write("com/acme/steps/MoreAccountSteps.java",
+              "package com.acme.steps;\n" +
+              "public class MoreAccountSteps extends AccountSteps {}\n");
+        write("com/acme/model/Account.java",
+              "package com.acme.model;\n" +
+              "public class Account {\n" +
+              "    public void deposit() {}\n" +
+              "}\n");
+
+        compile("com/acme/steps/AccountSteps.java", "com/acme/steps/Hooks.java",
+                "com/acme/steps/MoreAccountSteps.java", "com/acme/model/Account.java");
+
+        assertThat(indexedClasses()).containsExactly("com.acme.steps.AccountSteps", "com.acme.steps.Hooks", "com.acme.steps.MoreAccountSteps",
+                                                     "-com.acme.model.Account");
+    }
+
+    @Test
+    public void the_index_of_freshly_compiled_classes_should_be_used() throws IOException {
+        write("com/acme/steps/AccountSteps.java",
+              "package com.acme.steps;\n" +
+              "public class AccountSteps {\n" +
+              "    @org.jbehave.core.annotations.Given(\"an account\")\n" +
+              "    public void anAccount() {}\n" +
+              "    public static class Account {}\n" +
+              "}\n");
+        write("com/acme/model/Account.java",
+              "package com.acme.model;\n" +
+              "public class Account {}\n");
+
+        compile("com/acme/steps/AccountSteps.java", "com/acme/model/Account.java");
+
+        Optional<List<String>> classNames = StepClassIndex.classNamesInPackage("com.acme", classLoaderFor(classes));
+        assertThat(classNames.get()).containsExactly("com.acme.steps.AccountSteps");
+    }
+
+    @Test
+    public void the_classpath_should_be_scanned_if_classes_were_compiled_without_the_processor_since() throws IOException {
+        writeIndex(classes, "com.acme.steps.AccountSteps\n-com.acme.model.Account\n");
+        new File(classes, "com/acme/steps").mkdirs();
+        new File(classes, "com/acme/model").mkdirs();
+        Files.write(new File(classes, "com/acme/steps/AccountSteps.class").toPath(), new byte[0]);
+        Files.write(new File(classes, "com/acme/model/Account.class").toPath(), new byte[0]);
+        Files.write(new File(classes, "com/acme/steps/TransferSteps.class").toPath(), new byte[0]);
+
+        Optional<List<String>> classNames = StepClassIndex.classNamesInPackage("com.acme", classLoaderFor(classes));
+
+        assertThat(classNames.isPresent()).isFalse();
+    }
+
+    @Test
+    public void classes_indexed_by_an_earlier_compilation_should_be_kept() throws IOException {
+        write("com/acme/steps/AccountSteps.java",
+              "package com.acme.steps;\n" +
+              "public class AccountSteps {\n" +
+              "    @org.jbehave.core.annotations.When(\"I deposit money\")\n" +
+              "    public void deposit() {}\n" +
+              "}\n");
+        write("com/acme/steps/TransferSteps.java",
+              "package com.acme.steps;\n" +
+              "public class TransferSteps {\n" +
+              "    @org.jbehave.core.annotations.Then(\"the money is transferred\")\n" +
+              "    public void transferred() {}\n" +
+              "}\n");
+
+        compile("com/acme/steps/AccountSteps.java");
+        compile("com/acme/steps/TransferSteps.java");
+
+        assertThat(indexedClasses()).containsExactly("com.acme.steps.AccountSteps", "com.acme.steps.TransferSteps");
+    }
+
+    @Test
+    public void the_index_should_list_the_classes_in_the_requested_package() throws IOException {
+        writeIndex(classes, "com.acme.steps.AccountSteps\ncom.acme.stepsandmore.OtherSteps\norg.other.Steps\n");
+        new File(classes, "com/acme/steps").mkdirs();
+
+        Optional<List<String>> classNames = StepClassIndex.classNamesInPackage("com.acme", classLoaderFor(classes));
+
+        assertThat(classNames.get()).containsExactly("com.acme.steps.AccountSteps", "com.acme.stepsandmore.OtherSteps");
+    }
+
+    @Test
+    public void the_classpath_should_be_scanned_if_some_classes_of_the_package_are_not_indexed() throws IOException {
+        writeIndex(classes, "com.acme.steps.AccountSteps\n");
+        new File(classes, "com/acme/steps").mkdirs();
+        File moreClasses = temporaryFolder.newFolder("more-classes");
+        new File(moreClasses, "com/acme/other").mkdirs();
+        Files.write(new File(moreClasses, "com/acme/other/OtherSteps.class").toPath(), new byte[0]);
+
+        Optional<List<String>> classNames = StepClassIndex.classNamesInPackage("com.acme", classLoaderFor(classes, moreClasses));
+
+        assertThat(classNames.isPresent()).isFalse();
+    }
+
+    @Test
+    public void classpath_entries_with_no_classes_in_the_package_should_not_need_an_index() throws IOException {
+        writeIndex(classes, "com.acme.steps.AccountSteps\n");
+        new File(classes, "com/acme/steps").mkdirs();
+        File resources = temporaryFolder.newFolder("resources");
+        new File(resources, "com/acme/stories").mkdirs();
+        Files.write(new File(resources, "com/acme/stories/account.story").toPath(), "Scenario: an account".getBytes(Charsets.UTF_8));
+
+        Optional<List<String>> classNames = StepClassIndex.classNamesInPackage("com.acme", classLoaderFor(classes, resources));
+
+        assertThat(classNames.get()).containsExactly("com.acme.steps.AccountSteps");
+    }
+
+    @Test
+    public void jars_with_classes_in_the_package_should_need_an_index() throws IOException {
+        writeIndex(classes, "com.acme.steps.AccountSteps\n");
+        new File(classes, "com/acme/steps").mkdirs();
+        File jar = new File(temporaryFolder.getRoot(), "other-steps.jar");
+        try (JarOutputStream output = new JarOutputStream(new FileOutputStream(jar))) {
+            output.putNextEntry(new JarEntry("com/acme/"));
+            output.closeEntry();
+            output.putNextEntry(new JarEntry("com/acme/other/OtherSteps.class"));
+            output.closeEntry();
+        }
+
+        Optional<List<String>> classNames = StepClassIndex.classNamesInPackage("com.acme", classLoaderFor(classes, jar));
+
+        assertThat(classNames.isPresent()).isFalse();
+    }
+
+    private List<String> indexedClasses() throws IOException {
+        return Files.readAllLines(new File(classes, StepClassIndex.INDEX_RESOURCE).toPath(), Charsets.UTF_8);
+    }
+
+    private void compile(String... sourceFiles) throws IOException {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, Charsets.UTF_8)) {
+            List<File> files = Lists.newArrayList();
+            for (String sourceFile : sourceFiles) {
+                files.add(new File(sources, sourceFile));
+            }
+            Iterable<? extends JavaFileObject> compilationUnits = fileManager.getJavaFileObjectsFromFiles(files);
+            List<String> options = ImmutableList.of("-d", classes.getPath(),
+                                                    "-classpath", classes.getPath() + File.pathSeparator + System.getProperty("java.class.path"),
+                                                    "-implicit:none");
+            JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, null, options, null, compilationUnits);
+            task.setProcessors(ImmutableList.of(new StepClassIndexProcessor()));
+            assertThat(task.call()).isTrue();
+        }
+    }
+
+    private void write(String sourceFile, String source) throws IOException {
+        File file = new File(sources, sourceFile);
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), source.getBytes(Charsets.UTF_8));
+    }
+
+    private void writeIndex(File root, String classNames) throws IOException {
+        File index = new File(root, StepClassIndex.INDEX_RESOURCE);
+        index.getParentFile().mkdirs();
+        Files.write(index.toPath(), classNames.getBytes(Charsets.UTF_8));
+    }
+
+    private ClassLoader classLoaderFor(File... roots) throws IOException {
+        URL[] urls = new URL[roots.length];
+        for (int i = 0; i < roots.length; i++) {
+            urls[i] = roots[i].toURI().toURL();
+        }
+        return new URLClassLoader(urls, null);
+    }
+}
@@ -0,0 +1,182 @@
+package net.serenitybdd.jbehave.parsing;
+
+import org.jbehave.core.annotations.AfterScenario.Outcome;
+import org.jbehave.core.configuration.Keywords;
+import org.jbehave.core.i18n.LocalizedKeywords;
+import org.jbehave.core.io.ResourceLoader;
+import org.jbehave.core.model.ExamplesTableFactory;
+import org.jbehave.core.model.Scenario;
+import org.jbehave.core.model.Story;
+import org.jbehave.core.parsers.RegexStoryParser;
+import org.jbehave.core.parsers.StoryParser;
+import org.jbehave.core.steps.ParameterConverters;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Locale;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class WhenCachingParsedStories {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    static final String STORY =
+            "An account story\n\n" +
+            "Meta:\n@epic accounts\n@tag smoke\n\n" +
+            "Narrative:\nIn order to pay bills\nAs a customer\nI want to see my balance\n\n" +
+            "GivenStories: stories/login.story\n\n" +
+            "Lifecycle:\nBefore:\nGiven a clean database\nAfter:\nOutcome: FAILURE\nThen take a screenshot\n\n" +
+            "Scenario: Checking the balance\n" +
+            "Meta:\n@issue ACC-1\n" +
+            "Given an account with <balance> dollars\n" +
+            "When I check my balance\n" +
+            "Then I should see <balance> dollars\n" +
+            "Examples:\n" +
+            "|balance|\n" +
+            "|10|\n" +
+            "|20|\n\n" +
+            "Scenario: Closing the account\n" +
+            "Given an account with 0 dollars\n" +
+            "When I close the account\n" +
+            "Then the account should be closed\n";
+
+    File cacheDirectory;
+    Keywords keywords = new LocalizedKeywords();
+    ResourceLoader tableLoader = new ResourceLoader() {
+        @Override
+        public String loadResourceAsText(String resourcePath) {
+            return "|balance|\n|30|";
+        }
+    };
+    ExamplesTableFactory tableFactory = new ExamplesTableFactory(keywords, tableLoader, new ParameterConverters());
+    CountingParser parser = new CountingParser(new RegexStoryParser(keywords, tableFactory));
+
+    @Before
+    public void setupCacheDirectory() {
+        cacheDirectory = new File(temporaryFolder.getRoot(), "parsed-stories");
+    }
+
+    @Test
+    public void unchanged_stories_should_not_be_parsed_again() {
+        parsedStory(STORY);
+        parsedStory(STORY);
+
+        assertThat(parser.parsedStories).isEqualTo(1);
+    }
+
+    @Test
+    public void changed_stories_should_be_parsed_again() {
+        parsedStory(STORY);
+        parsedStory(STORY + "And the balance should be 0 dollars\n");
+
+        assertThat(parser.parsedStories).isEqualTo(2);
+    }
+
+    @Test
+    public void stories_should_be_parsed_again_for_another_keyword_locale() {
+        parsedStory(STORY);
+
+        Keywords germanKeywords = new LocalizedKeywords(Locale.GERMAN);
+        new CachingStoryParser(parser, germanKeywords, new ExamplesTableFactory(germanKeywords), cacheDirectory)
+                .parseStory(STORY, "stories/account.story");
+
+        assertThat(parser.parsedStories).isEqualTo(2);
+    }
+
+    @Test
+    public void a_cached_story_should_have_the_same_content_as_the_parsed_story() {
+        Story parsed = parsedStory(STORY);
+        Story cached = parsedStory(STORY);
+
+        assertThat(cached.getPath()).isEqualTo("stories/account.story");
+        assertThat(cached.getName()).isEqualTo("account.story");
+        assertThat(cached.getDescription().asString()).isEqualTo(parsed.getDescription().asString());
+        assertThat(cached.getMeta().getProperty("epic")).isEqualTo("accounts");
+        assertThat(cached.getMeta().getPropertyNames()).isEqualTo(parsed.getMeta().getPropertyNames());
+        assertThat(cached.getNarrative().iWantTo()).isEqualTo("see my balance");
+        assertThat(cached.getGivenStories().getPaths()).containsExactly("stories/login.story");
+        assertThat(cached.getLifecycle().getBeforeSteps()).isEqualTo(parsed.getLifecycle().getBeforeSteps());
+        assertThat(cached.getLifecycle().getAfterSteps(Outcome.FAILURE)).containsExactly("Then take a screenshot");
+        assertThat(cached.getScenarios()).hasSize(2);
+        for (int i = 0; i < parsed.getScenarios().size(); i++) {
+            Scenario parsedScenario = parsed.getScenarios().get(i);
+            Scenario cachedScenario = cached.getScenarios().get(i);
+            assertThat(cachedScenario.getTitle()).isEqualTo(parsedScenario.getTitle());
+            assertThat(cachedScenario.getSteps()).isEqualTo(parsedScenario.getSteps());
+            assertThat(cachedScenario.getMeta().getPropertyNames()).isEqualTo(parsedScenario.getMeta().getPropertyNames());
+            assertThat(cachedScenario.getExamplesTable().getRows()).isEqualTo(parsedScenario.getExamplesTable().getRows());
+        }
+    }
+
+    @Test
+    public void stories_without_a_lifecycle_or_narrative_should_be_cached_as_such() {
+        parsedStory("Scenario: simple\nGiven a step\n");
+        Story cached = parsedStory("Scenario: simple\nGiven a step\n");
+
+        assertThat(cached.getLifecycle().isEmpty()).isTrue();
+        assertThat(cached.getNarrative().isEmpty()).isTrue();
+        assertThat(cached.getMeta().isEmpty()).isTrue();
+        assertThat(parser.parsedStories).isEqualTo(1);
+    }
+
+    @Test
+    public void stories_with_examples_tables_loaded_from_other_files_should_not_be_cached() {
+        String story = "Scenario: table from a file\nGiven an account with <balance> dollars\nExamples:\nstories/balances.table\n";
+
+        parsedStory(story);
+        parsedStory(story);
+
+        assertThat(parser.parsedStories).isEqualTo(2);
+    }
+
+    @Test
+    public void unreadable_cache_files_should_be_ignored() throws Exception {
+        parsedStory(STORY);
+        for (File cacheFile : cacheDirectory.listFiles()) {
+            Files.write(cacheFile.toPath(), new byte[]{0, 0, 0, 1, 42});
+        }
+
+        Story story = parsedStory(STORY);
+
+        assertThat(story.getScenarios()).hasSize(2);
+        assertThat(parser.parsedStories).isEqualTo(2);
+    }
+
+    @Test
+    public void only_the_standard_story_parser_should_be_cached() {
+        assertThat(CachingStoryParser.cachingStoriesParsedBy(new RegexStoryParser(), cacheDirectory))
+                .isInstanceOf(CachingStoryParser.class);
+        assertThat(CachingStoryParser.cachingStoriesParsedBy(parser, cacheDirectory)).isSameAs(parser);
+    }
+
+    private Story parsedStory(String storyAsText) {
+        return new CachingStoryParser(parser, keywords, tableFactory, cacheDirectory)
+                .parseStory(storyAsText, "stories/account.story");
+    }
+
+    static class CountingParser implements StoryParser {
+        private final StoryParser parser;
+        int parsedStories;
+
+        CountingParser(StoryParser parser) {
+            this.parser = parser;
+        }
+
+        @Override
+        public Story parseStory(String storyAsText) {
+            return parseStory(storyAsText, null);
+        }
+
+        @Override
+        public Story parseStory(String storyAsText, String storyPath) {
+            parsedStories++;
+            return parser.parseStory(storyAsText, storyPath);
+        }
+    }
+}
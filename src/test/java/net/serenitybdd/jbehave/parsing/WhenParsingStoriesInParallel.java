@@ -0,0 +1,85 @@
+package net.serenitybdd.jbehave.parsing;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import org.jbehave.core.configuration.Configuration;
+import org.jbehave.core.configuration.MostUsefulConfiguration;
+import org.jbehave.core.io.StoryLoader;
+import org.jbehave.core.io.StoryResourceNotFound;
+import org.jbehave.core.model.Story;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class WhenParsingStoriesInParallel {
+
+    Set<String> parsingThreads = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+    StoryLoader storyLoader = new StoryLoader() {
+        @Override
+        public String loadStoryAsText(String storyPath) {
+            parsingThreads.add(Thread.currentThread().getName());
+            if (storyPath.contains("missing")) {
+                throw new StoryResourceNotFound(storyPath, (ClassLoader) null);
+            }
+            if (storyPath.startsWith("slow")) {
+                pause(100);
+            }
+            return "Scenario: " + storyPath + "\nGiven a step";
+        }
+
+        @Override
+        public String loadResourceAsText(String resourcePath) {
+            return loadStoryAsText(resourcePath);
+        }
+    };
+
+    Configuration configuration = new MostUsefulConfiguration().useStoryLoader(storyLoader);
+
+    @Test
+    public void stories_should_be_returned_in_the_order_of_their_paths() {
+        List<String> storyPaths = ImmutableList.of("slow/a.story", "b.story", "slow/c.story", "d.story");
+
+        List<Story> stories = new ParallelStoryParser(configuration, 4).storiesOf(storyPaths);
+
+        List<String> parsedPaths = Lists.newArrayList();
+        for (Story story : stories) {
+            parsedPaths.add(story.getPath());
+        }
+        assertThat(parsedPaths).isEqualTo(storyPaths);
+        assertThat(stories.get(2).getScenarios().get(0).getTitle()).isEqualTo("slow/c.story");
+    }
+
+    @Test
+    public void stories_should_be_parsed_on_several_threads() {
+        new ParallelStoryParser(configuration, 4).storiesOf(ImmutableList.of("slow/a.story", "slow/b.story", "slow/c.story"));
+
+        assertThat(parsingThreads.size()).isGreaterThan(1);
+    }
+
+    @Test
+    public void no_threads_should_be_needed_when_there_are_no_stories() {
+        List<Story> stories = new ParallelStoryParser(configuration).storiesOf(Collections.<String>emptyList());
+
+        assertThat(stories).isEmpty();
+        assertThat(parsingThreads).isEmpty();
+    }
+
+    @Test(expected = StoryResourceNotFound.class)
+    public void a_story_that_cannot_be_loaded_should_fail_as_it_would_when_parsed_on_its_own() {
+        new ParallelStoryParser(configuration, 2).storiesOf(ImmutableList.of("a.story", "missing.story", "c.story"));
+    }
+
+    private void pause(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
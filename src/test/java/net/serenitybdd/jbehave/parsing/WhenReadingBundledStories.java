@@ -0,0 +1,176 @@
+package net.serenitybdd.jbehave.parsing;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableMap;
+import net.serenitybdd.jbehave.parsing.WhenCachingParsedStories.CountingParser;
+import org.jbehave.core.configuration.Keywords;
+import org.jbehave.core.configuration.MostUsefulConfiguration;
+import org.jbehave.core.i18n.LocalizedKeywords;
+import org.jbehave.core.io.StoryLoader;
+import org.jbehave.core.model.ExamplesTableFactory;
+import org.jbehave.core.model.Story;
+import org.jbehave.core.parsers.RegexStoryParser;
+import org.jbehave.core.parsers.StoryParser;
+import org.jbehave.core.steps.ParameterConverters;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.util.Locale;
+
+import static net.serenitybdd.jbehave.parsing.WhenCachingParsedStories.STORY;
+import static org.fest.assertions.Assertions.assertThat;
+
+public class WhenReadingBundledStories {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    static final String TABLE_FROM_A_FILE =
+            "Scenario: table from a file\nGiven an account with <balance> dollars\nExamples:\nstories/balances.table\n";
+
+    Keywords keywords = new LocalizedKeywords();
+    ExamplesTableFactory tableFactory = new ExamplesTableFactory(keywords, new TableLoader(), new ParameterConverters());
+    CountingParser parser = new CountingParser(new RegexStoryParser(keywords, tableFactory));
+    File bundleFile;
+    StoryBundle bundle;
+
+    @Before
+    public void writeBundle() throws IOException {
+        bundleFile = new File(temporaryFolder.getRoot(), "stories.bundle");
+        StoryBundle.write(bundleFile,
+                          ImmutableMap.of("stories/account.story", STORY, "stories/balances.story", TABLE_FROM_A_FILE),
+                          keywords, new RegexStoryParser(keywords, tableFactory));
+        bundle = StoryBundle.open(bundleFile);
+    }
+
+    @Test
+    public void bundled_stories_should_not_be_parsed_again() {
+        Story story = bundledStoryParser().parseStory(STORY, "stories/account.story");
+
+        assertThat(parser.parsedStories).isEqualTo(0);
+        assertThat(story.getPath()).isEqualTo("stories/account.story");
+        assertThat(story.getMeta().getProperty("epic")).isEqualTo("accounts");
+        assertThat(story.getScenarios()).hasSize(2);
+        assertThat(story.getScenarios().get(0).getExamplesTable().getRowCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void stories_that_have_changed_since_they_were_bundled_should_be_parsed() {
+        bundledStoryParser().parseStory(STORY + "And the balance should be 0 dollars\n", "stories/account.story");
+
+        assertThat(parser.parsedStories).isEqualTo(1);
+    }
+
+    @Test
+    public void stories_that_are_not_bundled_should_be_parsed() {
+        bundledStoryParser().parseStory(STORY, "stories/other.story");
+
+        assertThat(parser.parsedStories).isEqualTo(1);
+    }
+
+    @Test
+    public void stories_with_examples_tables_loaded_from_other_files_should_only_be_bundled_as_text() {
+        bundledStoryParser().parseStory(TABLE_FROM_A_FILE, "stories/balances.story");
+
+        assertThat(bundle.textOf("stories/balances.story").get()).isEqualTo(TABLE_FROM_A_FILE);
+        assertThat(parser.parsedStories).isEqualTo(1);
+    }
+
+    @Test
+    public void bundled_stories_should_not_be_used_with_other_keywords() {
+        Keywords germanKeywords = new LocalizedKeywords(Locale.GERMAN);
+
+        StoryParser storyParser = BundledStoryParser.bundledStoriesOr(parser, bundle, germanKeywords, new ExamplesTableFactory(germanKeywords));
+
+        assertThat(storyParser).isSameAs(parser);
+    }
+
+    @Test
+    public void the_text_of_bundled_stories_should_be_read_from_the_bundle() throws IOException {
+        File resources = resourcesWithTheAccountStory();
+        StoryLoader storyLoader = new BundledStoryLoader(compiledBundleOf(resources), new TableLoader(), classLoaderOf(resources));
+
+        assertThat(storyLoader.loadStoryAsText("/stories/account.story")).isEqualTo(STORY);
+        assertThat(storyLoader.loadStoryAsText("stories/other.story")).isEqualTo("|balance|\n|30|");
+    }
+
+    @Test
+    public void stories_edited_since_they_were_bundled_should_be_read_from_the_story_file() throws IOException {
+        File resources = resourcesWithTheAccountStory();
+        StoryBundle compiledBundle = compiledBundleOf(resources);
+        File storyFile = new File(resources, "stories/account.story");
+        Files.write(storyFile.toPath(), (STORY + "And the balance should be 0 dollars\n").getBytes(Charsets.UTF_8));
+
+        StoryLoader storyLoader = new BundledStoryLoader(compiledBundle, new TableLoader(), classLoaderOf(resources));
+
+        assertThat(storyLoader.loadStoryAsText("/stories/account.story")).isEqualTo("|balance|\n|30|");
+    }
+
+    @Test
+    public void the_story_loader_reading_changed_stories_should_be_available() {
+        StoryLoader storyFileLoader = new TableLoader();
+
+        assertThat(new BundledStoryLoader(bundle, storyFileLoader).getStoryLoader()).isSameAs(storyFileLoader);
+    }
+
+    @Test
+    public void stories_bundled_without_the_stamp_of_their_file_should_be_read_from_the_story_file() throws IOException {
+        File resources = resourcesWithTheAccountStory();
+        StoryLoader storyLoader = new BundledStoryLoader(bundle, new TableLoader(), classLoaderOf(resources));
+
+        assertThat(storyLoader.loadStoryAsText("stories/account.story")).isEqualTo("|balance|\n|30|");
+    }
+
+    @Test
+    public void the_compiler_should_bundle_the_stories_in_resource_directories() throws IOException {
+        File resources = temporaryFolder.newFolder("resources");
+        new File(resources, "stories/accounts").mkdirs();
+        Files.write(new File(resources, "stories/accounts/account.story").toPath(), STORY.getBytes(Charsets.UTF_8));
+        Files.write(new File(resources, "stories/accounts/notes.txt").toPath(), "not a story".getBytes(Charsets.UTF_8));
+
+        new StoryBundleCompiler(new MostUsefulConfiguration()).compile(bundleFile, resources);
+
+        StoryBundle compiledBundle = StoryBundle.open(bundleFile);
+        assertThat(compiledBundle.storyPaths()).containsOnly("stories/accounts/account.story");
+        assertThat(compiledBundle.storyOf("stories/accounts/account.story", STORY, tableFactory).isPresent()).isTrue();
+    }
+
+    private File resourcesWithTheAccountStory() throws IOException {
+        File resources = temporaryFolder.newFolder("resources");
+        new File(resources, "stories").mkdirs();
+        Files.write(new File(resources, "stories/account.story").toPath(), STORY.getBytes(Charsets.UTF_8));
+        return resources;
+    }
+
+    private StoryBundle compiledBundleOf(File resources) throws IOException {
+        new StoryBundleCompiler(new MostUsefulConfiguration()).compile(bundleFile, resources);
+        return StoryBundle.open(bundleFile);
+    }
+
+    private ClassLoader classLoaderOf(File resources) throws IOException {
+        return new URLClassLoader(new URL[]{resources.toURI().toURL()}, null);
+    }
+
+    private StoryParser bundledStoryParser() {
+        return BundledStoryParser.bundledStoriesOr(parser, bundle, keywords, tableFactory);
+    }
+
+    static class TableLoader implements StoryLoader {
+        @Override
+        public String loadResourceAsText(String resourcePath) {
+            return "|balance|\n|30|";
+        }
+
+        @Override
+        public String loadStoryAsText(String storyPath) {
+            return loadResourceAsText(storyPath);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package net.serenitybdd.jbehave.parsing;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableMap;
+import org.jbehave.core.configuration.MostUsefulConfiguration;
+import org.jbehave.core.io.StoryResourceNotFound;
+import org.jbehave.core.model.ExamplesTable;
+import org.jbehave.core.model.Story;
+import org.jbehave.core.parsers.RegexStoryParser;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class WhenReadingDelimitedExamplesTables {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    File classes;
+    DelimitedExamplesTableFactory tableFactory;
+
+    @Before
+    public void setupClasspath() throws IOException {
+        classes = temporaryFolder.newFolder("classes");
+        new File(classes, "data").mkdirs();
+        ClassLoader classLoader = new URLClassLoader(new URL[]{classes.toURI().toURL()}, null);
+        tableFactory = new DelimitedExamplesTableFactory(new MostUsefulConfiguration(), classLoader);
+    }
+
+    @Test
+    public void csv_files_should_be_read_into_rows_named_by_their_headers() throws IOException {
+        write("data/accounts.csv", "owner, balance\nJoe,100\n\nJane, 20\n");
+
+        ExamplesTable table = tableFactory.createExamplesTable("data/accounts.csv");
+
+        assertThat(table.getHeaders()).containsExactly("owner", "balance");
+        assertThat(table.getRowCount()).isEqualTo(2);
+        assertThat(table.getRow(0)).isEqualTo(ImmutableMap.of("owner", "Joe", "balance", "100"));
+        assertThat(table.getRow(1)).isEqualTo(ImmutableMap.of("owner", "Jane", "balance", "20"));
+    }
+
+    @Test
+    public void quoted_csv_values_may_contain_separators_quotes_and_new_lines() throws IOException {
+        write("data/quotes.csv", "author,quote\n\"Smith, Joe\",\"He said \"\"hi\"\"\nand left\"\n");
+
+        ExamplesTable table = tableFactory.createExamplesTable("data/quotes.csv");
+
+        assertThat(table.getRowCount()).isEqualTo(1);
+        assertThat(table.getRow(0)).isEqualTo(ImmutableMap.of("author", "Smith, Joe", "quote", "He said \"hi\"\nand left"));
+    }
+
+    @Test
+    public void tsv_files_should_be_split_on_tabs() throws IOException {
+        write("data/accounts.tsv", "owner\tbalance\n\"Joe\", Jr.\t100\nJane\n");
+
+        ExamplesTable table = tableFactory.createExamplesTable("data/accounts.tsv");
+
+        assertThat(table.getRow(0)).isEqualTo(ImmutableMap.of("owner", "\"Joe\", Jr.", "balance", "100"));
+        assertThat(table.getRow(1)).isEqualTo(ImmutableMap.of("owner", "Jane", "balance", ""));
+    }
+
+    @Test
+    public void a_file_with_only_headers_should_give_a_table_without_rows() throws IOException {
+        write("data/empty.csv", "owner,balance\n");
+
+        ExamplesTable table = tableFactory.createExamplesTable("data/empty.csv");
+
+        assertThat(table.getHeaders()).containsExactly("owner", "balance");
+        assertThat(table.getRowCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void jbehave_tables_should_still_be_parsed_as_usual() {
+        ExamplesTable table = tableFactory.createExamplesTable("|owner|balance|\n|Joe|100|");
+
+        assertThat(table.getRow(0)).isEqualTo(ImmutableMap.of("owner", "Joe", "balance", "100"));
+    }
+
+    @Test
+    public void stories_should_be_able_to_take_their_examples_from_csv_files() throws IOException {
+        write("data/accounts.csv", "owner,balance\nJoe,100\nJane,20\n");
+
+        Story story = new RegexStoryParser(tableFactory.keywords(), tableFactory)
+                .parseStory("Scenario: Checking balances\nGiven <owner> has <balance> dollars\nExamples:\ndata/accounts.csv\n");
+
+        assertThat(story.getScenarios().get(0).getExamplesTable().getRowCount()).isEqualTo(2);
+    }
+
+    @Test(expected = StoryResourceNotFound.class)
+    public void missing_files_should_not_be_found() {
+        tableFactory.createExamplesTable("data/missing.csv");
+    }
+
+    private void write(String resourcePath, String text) throws IOException {
+        Files.write(new File(classes, resourcePath).toPath(), text.getBytes(Charsets.UTF_8));
+    }
+}
@@ -0,0 +1,95 @@
+package net.serenitybdd.jbehave.runners;
+
+import de.codecentric.jbehave.junit.monitoring.JUnitDescriptionGenerator;
+import org.jbehave.core.annotations.Given;
+import org.jbehave.core.annotations.Then;
+import org.jbehave.core.annotations.When;
+import org.jbehave.core.configuration.Configuration;
+import org.jbehave.core.configuration.MostUsefulConfiguration;
+import org.jbehave.core.model.Story;
+import org.jbehave.core.steps.CandidateSteps;
+import org.jbehave.core.steps.InstanceStepsFactory;
+import org.junit.Test;
+import org.junit.runner.Description;
+
+import java.util.List;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class WhenDeferringStepDescriptions {
+
+    public static class AccountSteps {
+        @Given("an account with $amount dollars")
+        public void anAccountWith(int amount) {}
+
+        @When("I withdraw $amount dollars")
+        public void withdraw(int amount) {}
+
+        @Then("the balance should be $amount dollars")
+        public void theBalanceShouldBe(int amount) {}
+    }
+
+    static final String STORY =
+            "Scenario: Withdrawing money\n" +
+            "GivenStories: stories/login.story\n" +
+            "Given an account with <balance> dollars\n" +
+            "When I withdraw 10 dollars\n" +
+            "Then the balance should be <remaining> dollars\n" +
+            "Examples:\n" +
+            "|balance|remaining|\n" +
+            "|100|90|\n" +
+            "|20|10|\n\n" +
+            "Scenario: Withdrawing money\n" +
+            "Given an account with 100 dollars\n" +
+            "!-- a comment\n" +
+            "When I transfer 10 dollars\n" +
+            "Then the balance should be 90 dollars\n";
+
+    Configuration configuration = new MostUsefulConfiguration();
+    List<CandidateSteps> candidateSteps = new InstanceStepsFactory(configuration, new AccountSteps()).createCandidateSteps();
+    Story story = configuration.storyParser().parseStory(STORY, "stories/withdrawals.story");
+
+    @Test
+    public void stories_should_be_described_down_to_their_scenarios_and_examples() {
+        Description skeleton = new StoryDescriptionSkeleton(configuration).createDescriptionFrom(story);
+
+        Description firstScenario = skeleton.getChildren().get(0);
+        assertThat(skeleton.getDisplayName()).isEqualTo("withdrawals.story");
+        assertThat(skeleton.getChildren()).hasSize(2);
+        assertThat(firstScenario.getDisplayName()).isEqualTo("Scenario: Withdrawing money");
+        assertThat(firstScenario.getChildren()).hasSize(3);
+        assertThat(firstScenario.getChildren().get(0).getDisplayName()).isEqualTo("login.story");
+        assertThat(firstScenario.getChildren().get(1).getChildren()).isEmpty();
+        assertThat(skeleton.getChildren().get(1).getChildren()).isEmpty();
+    }
+
+    @Test
+    public void the_estimated_number_of_tests_should_match_the_full_descriptions() {
+        StoryDescriptionSkeleton skeleton = new StoryDescriptionSkeleton(configuration);
+        skeleton.createDescriptionFrom(story);
+
+        JUnitDescriptionGenerator generator = new JUnitDescriptionGenerator(candidateSteps, configuration);
+        generator.createDescriptionFrom(story);
+
+        assertThat(skeleton.getEstimatedTestCases()).isEqualTo(generator.getTestCases());
+    }
+
+    @Test
+    public void a_completed_skeleton_should_look_like_the_full_description() {
+        Description skeleton = new StoryDescriptionSkeleton(configuration).createDescriptionFrom(story);
+        Description fullDescription = new JUnitDescriptionGenerator(candidateSteps, configuration).createDescriptionFrom(story);
+
+        StoryDescriptionSkeleton.complete(skeleton, fullDescription);
+
+        assertThat(treeOf(skeleton)).isEqualTo(treeOf(fullDescription));
+        assertThat(skeleton.testCount()).isEqualTo(fullDescription.testCount());
+    }
+
+    private String treeOf(Description description) {
+        StringBuilder tree = new StringBuilder(description.getDisplayName()).append("\n");
+        for (Description child : description.getChildren()) {
+            tree.append(treeOf(child).replaceAll("(?m)^", "  "));
+        }
+        return tree.toString();
+    }
+}
@@ -0,0 +1,110 @@
+package net.serenitybdd.jbehave.scheduling;
+
+import com.google.common.collect.ImmutableList;
+import net.serenitybdd.jbehave.SerenityStoryReporterBuilder;
+import org.jbehave.core.model.Story;
+import org.jbehave.core.reporters.NullStoryReporter;
+import org.jbehave.core.reporters.StoryReporter;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class WhenRecordingStoryDurations {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    File durationsFile;
+    StoryDurations storyDurations;
+    StoryDurationRecorder recorder;
+
+    @Before
+    public void setupRecorder() {
+        durationsFile = new File(temporaryFolder.getRoot(), "story-durations.properties");
+        storyDurations = StoryDurations.none();
+        recorder = new StoryDurationRecorder(storyDurations, durationsFile);
+    }
+
+    @Test
+    public void should_record_how_long_each_story_took() throws Exception {
+        recorder.beforeStory(new Story("stories/slow.story"), false);
+        Thread.sleep(50);
+        recorder.afterStory(false);
+
+        assertThat(storyDurations.durationOf("stories/slow.story").get()).isGreaterThanOrEqualTo(50L);
+    }
+
+    @Test
+    public void given_stories_should_count_towards_the_stories_that_use_them() throws Exception {
+        recorder.beforeStory(new Story("stories/slow.story"), false);
+        recorder.beforeStory(new Story("stories/login.story"), true);
+        Thread.sleep(50);
+        recorder.afterStory(true);
+        recorder.afterStory(false);
+
+        assertThat(storyDurations.durationOf("stories/login.story").isPresent()).isFalse();
+        assertThat(storyDurations.durationOf("stories/slow.story").get()).isGreaterThanOrEqualTo(50L);
+    }
+
+    @Test
+    public void should_save_the_durations_once_all_the_stories_have_run() {
+        recorder.beforeStory(new Story("stories/quick.story"), false);
+        recorder.afterStory(false);
+        assertThat(durationsFile.exists()).isFalse();
+
+        recorder.beforeStory(new Story("AfterStories"), false);
+        recorder.afterStory(false);
+
+        assertThat(StoryDurations.loadedFrom(durationsFile).durationOf("stories/quick.story").isPresent()).isTrue();
+    }
+
+    @Test
+    public void should_keep_durations_saved_by_other_jvms() {
+        StoryDurations otherJvm = StoryDurations.none();
+        otherJvm.record("stories/other.story", 1000);
+        otherJvm.saveTo(durationsFile);
+
+        storyDurations.record("stories/quick.story", 10);
+        storyDurations.saveTo(durationsFile);
+
+        StoryDurations savedDurations = StoryDurations.loadedFrom(durationsFile);
+        assertThat(savedDurations.durationOf("stories/other.story").get()).isEqualTo(1000L);
+        assertThat(savedDurations.durationOf("stories/quick.story").get()).isEqualTo(10L);
+    }
+
+    @Test
+    public void should_order_stories_from_the_longest_to_the_quickest() {
+        storyDurations.record("stories/slow.story", 9000);
+        storyDurations.record("stories/medium.story", 6000);
+        storyDurations.record("stories/quick.story", 1000);
+
+        List<String> storyPaths = storyDurations.longestFirst(ImmutableList.of("stories/medium.story", "stories/new.story",
+                                                                              "stories/quick.story", "stories/slow.story"));
+
+        assertThat(storyPaths).containsExactly("stories/slow.story", "stories/medium.story", "stories/new.story", "stories/quick.story");
+    }
+
+    @Test
+    public void live_reporters_should_hear_about_stories_running_in_parallel_straight_away() {
+        final List<String> storiesStarted = new ArrayList<>();
+        StoryReporter liveReporter = new NullStoryReporter() {
+            @Override
+            public void beforeStory(Story story, boolean givenStory) {
+                storiesStarted.add(story.getPath());
+            }
+        };
+        SerenityStoryReporterBuilder builder = new SerenityStoryReporterBuilder().withLiveReporters(liveReporter);
+        builder.withMultiThreading(true);
+
+        builder.build("stories/slow.story").beforeStory(new Story("stories/slow.story"), false);
+
+        assertThat(storiesStarted).containsExactly("stories/slow.story");
+    }
+}
@@ -0,0 +1,97 @@
+package net.serenitybdd.jbehave.scheduling;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class WhenShardingStories {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void every_story_should_be_in_exactly_one_shard() {
+        List<String> storyPaths = storyPaths(100);
+        StoryShards shards = new StoryShards(7, StoryDurations.none());
+
+        List<String> allShardedStories = Lists.newArrayList();
+        for (int shard = 0; shard < 7; shard++) {
+            allShardedStories.addAll(shards.storiesInShard(shard, storyPaths));
+        }
+
+        assertThat(allShardedStories).hasSize(100);
+        assertThat(Sets.newHashSet(allShardedStories)).isEqualTo(Sets.newHashSet(storyPaths));
+    }
+
+    @Test
+    public void stories_should_stay_in_the_same_shard_when_other_stories_are_added() {
+        List<String> storyPaths = storyPaths(100);
+        List<String> moreStoryPaths = Lists.newArrayList(storyPaths);
+        moreStoryPaths.add("stories/a_new_story.story");
+
+        Set<String> shardBefore = Sets.newHashSet(new StoryShards(4, StoryDurations.none()).storiesInShard(2, storyPaths));
+        Set<String> shardAfter = Sets.newHashSet(new StoryShards(4, StoryDurations.none()).storiesInShard(2, moreStoryPaths));
+        shardAfter.remove("stories/a_new_story.story");
+
+        assertThat(shardAfter).isEqualTo(shardBefore);
+    }
+
+    @Test
+    public void shards_should_be_balanced_by_recorded_durations() throws IOException {
+        StoryDurations durations = durationsFrom("stories/slow.story=10000\n" +
+                                                 "stories/medium.story=5000\n" +
+                                                 "stories/quick_1.story=4000\n" +
+                                                 "stories/quick_2.story=1000\n");
+        List<String> storyPaths = ImmutableList.of("stories/medium.story", "stories/quick_1.story",
+                                                   "stories/quick_2.story", "stories/slow.story");
+
+        StoryShards shards = new StoryShards(2, durations);
+
+        assertThat(shards.storiesInShard(0, storyPaths)).containsExactly("stories/slow.story");
+        assertThat(shards.storiesInShard(1, storyPaths)).containsExactly("stories/medium.story", "stories/quick_1.story",
+                                                                        "stories/quick_2.story");
+    }
+
+    @Test
+    public void stories_that_were_never_timed_should_count_as_average_stories() throws IOException {
+        StoryDurations durations = durationsFrom("stories/slow.story=6000\nstories/quick.story=2000\n");
+        List<String> storyPaths = ImmutableList.of("stories/new.story", "stories/quick.story", "stories/slow.story");
+
+        StoryShards shards = new StoryShards(2, durations);
+
+        assertThat(shards.storiesInShard(0, storyPaths)).containsExactly("stories/slow.story");
+        assertThat(shards.storiesInShard(1, storyPaths)).containsExactly("stories/new.story", "stories/quick.story");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void the_shard_index_should_be_less_than_the_number_of_shards() {
+        new StoryShards(3, StoryDurations.none()).storiesInShard(3, storyPaths(10));
+    }
+
+    private List<String> storyPaths(int count) {
+        List<String> storyPaths = Lists.newArrayList();
+        for (int i = 0; i < count; i++) {
+            storyPaths.add("stories/story_" + i + ".story");
+        }
+        return storyPaths;
+    }
+
+    private StoryDurations durationsFrom(String contents) throws IOException {
+        File durationsFile = temporaryFolder.newFile("story-durations.properties");
+        try (FileWriter writer = new FileWriter(durationsFile)) {
+            writer.write(contents);
+        }
+        return StoryDurations.loadedFrom(durationsFile);
+    }
+}
@@ -0,0 +1,129 @@
+package net.serenitybdd.jbehave.watch;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import net.serenitybdd.core.pages.PageObject;
+import net.thucydides.core.annotations.Steps;
+import org.jbehave.core.annotations.Given;
+import org.jbehave.core.annotations.Then;
+import org.jbehave.core.annotations.When;
+import org.jbehave.core.configuration.MostUsefulConfiguration;
+import org.jbehave.core.model.Story;
+import org.jbehave.core.parsers.RegexStoryParser;
+import org.jbehave.core.steps.InstanceStepsFactory;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class WhenFindingStoriesAffectedByChanges {
+
+    public static class AccountSteps {
+        @Steps
+        AccountLibrary accountLibrary;
+
+        @Given("an account")
+        public void anAccount() {}
+
+        @When("I log in")
+        public void logIn() {}
+    }
+
+    public static class ReportSteps {
+        @Then("I should see a report")
+        public void seeAReport() {}
+    }
+
+    public static class AccountLibrary {
+        LoginPage loginPage;
+    }
+
+    public static class LoginPage extends PageObject {}
+
+    public static class ReportFormatter {}
+
+    Story accountStory = story("stories/account.story", "Scenario: log in\nGiven an account\nWhen I log in");
+    Story reportStory = story("stories/report.story", "GivenStories: stories/login.story\n\nScenario: report\nGiven an account\nAnd I should see a report");
+    Story loginStory = story("stories/login.story", "Scenario: log in\nWhen I log in");
+    List<Story> stories = ImmutableList.of(accountStory, reportStory, loginStory);
+
+    AffectedStoryFinder finder = new AffectedStoryFinder(
+            new InstanceStepsFactory(new MostUsefulConfiguration(), new AccountSteps(), new ReportSteps()).createCandidateSteps());
+
+    @Test
+    public void should_run_a_changed_story_again() {
+        List<String> affectedStories = finder.storiesAffectedBy(changesTo("stories/account.story"), stories);
+
+        assertThat(affectedStories).containsOnly("stories/account.story");
+    }
+
+    @Test
+    public void should_run_stories_using_a_changed_given_story_again() {
+        List<String> affectedStories = finder.storiesAffectedBy(changesTo("stories/login.story"), stories);
+
+        assertThat(affectedStories).containsOnly("stories/report.story", "stories/login.story");
+    }
+
+    @Test
+    public void should_run_stories_using_a_changed_step_class_again() {
+        StoryChanges changes = new StoryChanges(ImmutableSet.<String>of(), ImmutableSet.of(AccountSteps.class.getName()));
+
+        List<String> affectedStories = finder.storiesAffectedBy(changes, stories);
+
+        assertThat(affectedStories).containsOnly("stories/account.story", "stories/report.story", "stories/login.story");
+    }
+
+    @Test
+    public void should_match_and_steps_against_the_previous_step_type() {
+        StoryChanges changes = new StoryChanges(ImmutableSet.<String>of(), ImmutableSet.of(ReportSteps.class.getName()));
+
+        List<String> affectedStories = finder.storiesAffectedBy(changes, stories);
+
+        assertThat(affectedStories).isEmpty();
+    }
+
+    @Test
+    public void should_run_stories_using_a_step_class_whose_step_library_changed_again() {
+        List<String> affectedStories = finder.storiesAffectedBy(changesToClass(AccountLibrary.class.getName()), storiesWithAReportOnlyStory());
+
+        assertThat(affectedStories).containsOnly("stories/account.story");
+    }
+
+    @Test
+    public void should_run_stories_using_a_step_class_whose_page_objects_changed_again() {
+        List<String> affectedStories = finder.storiesAffectedBy(changesToClass(LoginPage.class.getName()), storiesWithAReportOnlyStory());
+
+        assertThat(affectedStories).containsOnly("stories/account.story");
+    }
+
+    @Test
+    public void should_treat_nested_classes_as_part_of_their_enclosing_class() {
+        List<String> affectedStories = finder.storiesAffectedBy(changesToClass(AccountSteps.class.getName() + "$1"), storiesWithAReportOnlyStory());
+
+        assertThat(affectedStories).containsOnly("stories/account.story");
+    }
+
+    @Test
+    public void should_run_every_story_again_when_a_changed_class_is_used_by_no_step_class() {
+        List<String> affectedStories = finder.storiesAffectedBy(changesToClass(ReportFormatter.class.getName()), storiesWithAReportOnlyStory());
+
+        assertThat(affectedStories).containsOnly("stories/account.story", "stories/report-only.story");
+    }
+
+    private List<Story> storiesWithAReportOnlyStory() {
+        return ImmutableList.of(accountStory, story("stories/report-only.story", "Scenario: report\nThen I should see a report"));
+    }
+
+    private StoryChanges changesToClass(String className) {
+        return new StoryChanges(ImmutableSet.<String>of(), ImmutableSet.of(className));
+    }
+
+    private StoryChanges changesTo(String storyPath) {
+        return new StoryChanges(ImmutableSet.of(storyPath), ImmutableSet.<String>of());
+    }
+
+    private Story story(String path, String text) {
+        return new RegexStoryParser().parseStory(text, path);
+    }
+}
@@ -0,0 +1,78 @@
+package net.serenitybdd.jbehave.watch;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class WhenWatchingForStoryChanges {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    File classpathRoot;
+    StoryChangeWatcher watcher;
+
+    @Before
+    public void watchAClasspathDirectory() throws IOException {
+        classpathRoot = temporaryFolder.newFolder("classes");
+        new File(classpathRoot, "stories").mkdirs();
+        new File(classpathRoot, "com/acme").mkdirs();
+        watcher = StoryChangeWatcher.watching(ImmutableList.of(classpathRoot), 200);
+    }
+
+    @After
+    public void stopWatching() throws IOException {
+        watcher.close();
+    }
+
+    @Test
+    public void should_report_changed_story_files() throws Exception {
+        write(new File(classpathRoot, "stories/some_behavior.story"));
+
+        StoryChanges changes = watcher.waitForChanges(10, TimeUnit.SECONDS);
+
+        assertThat(changes.getStoryPaths()).containsOnly("stories/some_behavior.story");
+        assertThat(changes.includeClasses()).isFalse();
+    }
+
+    @Test
+    public void should_report_changed_classes_by_name() throws Exception {
+        write(new File(classpathRoot, "com/acme/AccountSteps.class"));
+
+        StoryChanges changes = watcher.waitForChanges(10, TimeUnit.SECONDS);
+
+        assertThat(changes.getClassNames()).containsOnly("com.acme.AccountSteps");
+    }
+
+    @Test
+    public void should_watch_directories_created_after_the_watcher_started() throws Exception {
+        new File(classpathRoot, "stories/new").mkdirs();
+        watcher.waitForChanges(10, TimeUnit.SECONDS);
+
+        write(new File(classpathRoot, "stories/new/new_behavior.story"));
+        StoryChanges changes = watcher.waitForChanges(10, TimeUnit.SECONDS);
+
+        assertThat(changes.getStoryPaths()).containsOnly("stories/new/new_behavior.story");
+    }
+
+    @Test
+    public void should_report_nothing_if_nothing_changed() throws Exception {
+        assertThat(watcher.waitForChanges(100, TimeUnit.MILLISECONDS).isEmpty()).isTrue();
+    }
+
+    private void write(File file) throws IOException {
+        try (FileWriter writer = new FileWriter(file)) {
+            writer.write("Scenario: something changed");
+        }
+    }
+}